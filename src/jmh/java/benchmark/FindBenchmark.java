@@ -0,0 +1,65 @@
+package benchmark;
+
+import command.EddieException;
+import command.FindCommand;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import tasklist.TaskList;
+import ui.Ui;
+
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures FindCommand.execute for a selective and a broad keyword, and for a ranked search
+ * spelt right and with a typo. Output is discarded.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(value = 1, jvmArgs = {"-Xms2g", "-Xmx2g"})
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class FindBenchmark {
+    @Param({"10", "1000", "100000", "1000000"})
+    public int size;
+
+    @Param({"todo", "deadline", "event", "mixed"})
+    public String mix;
+
+    @Param({"item7", "book", "~book", "~bok"})
+    public String keyword;
+
+    private TaskList tasks;
+    private Ui ui;
+    private FindCommand command;
+    private PrintStream originalOut;
+
+    @Setup
+    public void setUp() throws EddieException {
+        tasks = new TaskList(TaskFixtures.generate(size, mix));
+        originalOut = TaskFixtures.silenceSystemOut();
+        ui = new Ui();
+        command = new FindCommand(keyword);
+    }
+
+    @TearDown
+    public void tearDown() {
+        System.setOut(originalOut);
+    }
+
+    @Benchmark
+    public void find() {
+        command.execute(tasks, ui, null);
+    }
+}
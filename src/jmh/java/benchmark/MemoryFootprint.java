@@ -0,0 +1,83 @@
+package benchmark;
+
+import storage.Storage;
+import storage.TaskFileFormat;
+import task.Task;
+import tasklist.ColumnarTaskStore;
+import tasklist.TaskList;
+
+import java.io.IOException;
+import java.lang.ref.Reference;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.function.Supplier;
+
+/**
+ * Reports the retained heap per task of each way a task list can be held in memory.
+ *
+ * Run with {@code gradle memoryReport}, optionally with {@code -PmemorySize=N}.
+ */
+public final class MemoryFootprint {
+    private MemoryFootprint() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        Path directory = Files.createTempDirectory("eddie-memory");
+        String filePath = directory.resolve("tasks.txt").toString();
+        new Storage(filePath).convertTo(TaskFileFormat.TEXT, generateWithIds(size));
+
+        System.out.printf("%,d mixed tasks%n", size);
+        report("ArrayList<Task>", size, () -> generateWithIds(size));
+        report("TaskList (objects + indexes)", size, () -> new TaskList(generateWithIds(size)));
+        report("TaskList (columnar)", size, () -> new TaskList(ColumnarTaskStore.of(generateWithIds(size))));
+        report("TaskList (lazy file index)", size, () -> {
+            try {
+                return new Storage(filePath).loadLazily();
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        deleteDirectory(directory);
+    }
+
+    private static ArrayList<Task> generateWithIds(int size) {
+        ArrayList<Task> tasks = TaskFixtures.generate(size, "mixed");
+        for (int i = 0; i < tasks.size(); i++) {
+            tasks.get(i).setId(i + 1);
+        }
+        return tasks;
+    }
+
+    private static void report(String layout, int size, Supplier<Object> build) {
+        long before = usedHeap();
+        Object retained = build.get();
+        long after = usedHeap();
+        System.out.printf("  %-30s %,8.1f bytes/task%n", layout, (after - before) / (double) size);
+        Reference.reachabilityFence(retained);
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static void deleteDirectory(Path directory) throws IOException {
+        try (var files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(directory);
+    }
+}
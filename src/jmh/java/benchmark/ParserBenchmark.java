@@ -0,0 +1,50 @@
+package benchmark;
+
+import command.Command;
+import command.EddieException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import parser.Parser;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures Parser.parse on commands of each kind. Parsing does not depend on list size.
+ * With one distinct line every parse after the first is a repeat; with 1024 none are.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ParserBenchmark {
+    @Param({"todo", "deadline", "event", "mark", "find", "list"})
+    public String kind;
+
+    @Param({"1", "1024"})
+    public int distinct;
+
+    private String[] inputs;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        inputs = TaskFixtures.commandLines(kind, distinct);
+    }
+
+    @Benchmark
+    public Command parse() throws EddieException {
+        next = (next + 1) % inputs.length;
+        return Parser.parse(inputs[next]);
+    }
+}
@@ -0,0 +1,83 @@
+package benchmark;
+
+import command.Command;
+import command.EddieException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import parser.Parser;
+import storage.Storage;
+import tasklist.TaskList;
+import ui.Ui;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures a command from raw input line to executed result: parsing, argument checks and
+ * execution against a 1000-task list. Saves are deferred by a batch that is never committed,
+ * and output goes nowhere, so only the command pipeline itself is timed.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class PipelineBenchmark {
+    @Param({"todo", "deadline", "event", "mark", "find", "list"})
+    public String kind;
+
+    @Param({"1", "1024"})
+    public int distinct;
+
+    private String[] inputs;
+    private int next;
+    private boolean isAdding;
+    private TaskList tasks;
+    private Ui ui;
+    private Path directory;
+    private Storage storage;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        inputs = TaskFixtures.commandLines(kind, distinct);
+        isAdding = kind.equals("todo") || kind.equals("deadline") || kind.equals("event");
+        tasks = new TaskList(TaskFixtures.generate(1000, "mixed"));
+        ui = new Ui(InputStream.nullInputStream(), OutputStream.nullOutputStream());
+        directory = Files.createTempDirectory("eddie-bench");
+        storage = new Storage(directory.resolve("tasks.txt").toString());
+        storage.beginBatch();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(directory.resolve("tasks.txt"));
+        Files.delete(directory);
+    }
+
+    @Benchmark
+    public Command parseAndExecute() throws EddieException {
+        next = (next + 1) % inputs.length;
+        Command command = Parser.parse(inputs[next]);
+        command.execute(tasks, ui, storage);
+        if (isAdding) {
+            tasks.removeTask(tasks.size() - 1);
+        }
+        return command;
+    }
+}
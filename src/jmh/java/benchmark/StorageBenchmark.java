@@ -0,0 +1,79 @@
+package benchmark;
+
+import command.EddieException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import storage.Storage;
+import storage.TaskFileFormat;
+import task.Task;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures Storage.loadTask and Storage.saveTasks on files of each size, mix and format.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgs = {"-Xms2g", "-Xmx2g"})
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class StorageBenchmark {
+    @Param({"10", "1000", "100000", "1000000"})
+    public int size;
+
+    @Param({"todo", "deadline", "event", "mixed"})
+    public String mix;
+
+    @Param({"TEXT", "BINARY"})
+    public TaskFileFormat format;
+
+    private Path directory;
+    private String filePath;
+    private ArrayList<Task> tasks;
+    private Storage storage;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("eddie-bench");
+        filePath = directory.resolve("tasks.txt").toString();
+        tasks = TaskFixtures.generate(size, mix);
+        storage = new Storage(filePath);
+        storage.convertTo(format, tasks);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try (var files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(directory);
+    }
+
+    @Benchmark
+    public ArrayList<Task> load() throws EddieException {
+        return new Storage(filePath).loadTask();
+    }
+
+    @Benchmark
+    public void save() {
+        storage.saveTasks(tasks);
+    }
+}
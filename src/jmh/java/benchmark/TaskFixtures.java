@@ -0,0 +1,111 @@
+package benchmark;
+
+import task.Deadline;
+import task.Event;
+import task.Task;
+import task.Todo;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+
+/**
+ * Generates task lists for the benchmarks.
+ */
+final class TaskFixtures {
+    static final String[] WORDS = {"read", "book", "return", "group", "project", "meeting", "submit", "assignment"};
+    private static final LocalDateTime START = LocalDateTime.of(2025, 4, 1, 18, 0);
+
+    private TaskFixtures() {
+    }
+
+    /**
+     * Builds a task list of the given size.
+     *
+     * @param size The number of tasks.
+     * @param mix  One of "todo", "deadline", "event" or "mixed" (an even split of all three).
+     * @return The generated tasks.
+     */
+    static ArrayList<Task> generate(int size, String mix) {
+        ArrayList<Task> tasks = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            String description = WORDS[i % WORDS.length] + " " + WORDS[(i / WORDS.length) % WORDS.length] + " item" + i;
+            LocalDateTime time = START.plusMinutes(i * 15L);
+            boolean isDone = i % 4 == 0;
+            switch (typeOf(mix, i)) {
+            case 'D':
+                tasks.add(new Deadline(description, time, isDone));
+                break;
+            case 'E':
+                tasks.add(new Event(description, time, time.plusHours(2), isDone));
+                break;
+            default:
+                tasks.add(new Todo(description, isDone));
+                break;
+            }
+        }
+        return tasks;
+    }
+
+    /**
+     * Builds command lines of one kind for the parsing benchmarks.
+     *
+     * @param kind     One of "todo", "deadline", "event", "mark", "find" or "list".
+     * @param distinct How many different lines to build. One line is always the same input;
+     *                 more lines than the parser caches makes every parse a miss.
+     * @return The command lines.
+     */
+    static String[] commandLines(String kind, int distinct) {
+        String[] lines = new String[distinct];
+        for (int i = 0; i < distinct; i++) {
+            switch (kind) {
+            case "deadline":
+                lines[i] = "deadline return book " + i + " /by 2025-04-01 1800";
+                break;
+            case "event":
+                lines[i] = "event group meeting " + i + " /from 2025-04-02 1000 /to 2025-04-02 1200";
+                break;
+            case "mark":
+                lines[i] = "mark " + (i % 1000 + 1);
+                break;
+            case "find":
+                lines[i] = "find item" + i;
+                break;
+            case "list":
+                // Trailing spaces make distinct lines for the same 20 pages of a 1000-task list.
+                lines[i] = "list " + (i % 20 + 1) + " ".repeat(i / 20);
+                break;
+            default:
+                lines[i] = "todo read book " + i;
+                break;
+            }
+        }
+        return lines;
+    }
+
+    /**
+     * Swaps System.out for a stream that discards everything, so console speed does not
+     * dominate benchmarks that go through Ui.
+     *
+     * @return The original System.out, to restore afterwards.
+     */
+    static PrintStream silenceSystemOut() {
+        PrintStream original = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        return original;
+    }
+
+    private static char typeOf(String mix, int i) {
+        switch (mix) {
+        case "deadline":
+            return 'D';
+        case "event":
+            return 'E';
+        case "mixed":
+            return "TDE".charAt(i % 3);
+        default:
+            return 'T';
+        }
+    }
+}
@@ -1,30 +1,69 @@
 import command.Command;
+import command.CrossListCommand;
 import command.EddieException;
+import metrics.Metrics;
 import parser.Parser;
-import storage.Storage;
-import tasklist.TaskList;
+import server.EddieServer;
+import ui.ErrorMessages;
 import ui.Ui;
+import workspace.Shard;
+import workspace.Workspace;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * The main class for the Eddie chatbot task manager.
  */
 public class Eddie {
+    private static final int DEFAULT_PORT = 4040;
+    private static final int MAX_PORT = 65535;
+    private static final String DEFAULT_LEAD_TIMES = "1h";
+
     private Ui ui;
-    private Storage storage;
-    private TaskList tasks;
+    private Workspace workspace;
+    private Shard shard;
 
     /**
      * Initializes Eddie with the default storage file path.
      */
     public Eddie(String filePath) {
+        this(filePath, "objects");
+    }
+
+    /**
+     * Initializes Eddie with the given storage file path. Other lists are kept beside it, in
+     * the same directory, and the file's own list is loaded straight away.
+     *
+     * @param filePath The task file, named {@code {list}.txt} where the list name only has
+     *                 letters, digits, '-' and '_'.
+     * @param layout   How tasks are held in memory: "objects" for one object per task, "lazy" to
+     *                 decode them from the file only when used, or "columnar" for packed columns.
+     */
+    public Eddie(String filePath, String layout) {
         ui = new Ui();
-        storage = new Storage(filePath);
+        File file = new File(filePath);
+        String directory = (file.getParent() == null) ? "." : file.getParent();
+        String listName = file.getName().replaceFirst("\\.txt$", "");
+        workspace = new Workspace(directory, layout);
 
         try {
-            tasks = new TaskList(storage.loadTask());
+            shard = workspace.getShard(listName);
         } catch (EddieException e) {
-            ui.showLoadingError();
-            tasks = new TaskList();
+            throw new IllegalArgumentException(e.getMessage(), e);
+        }
+        shard.getTasks();
+        for (String failure : workspace.takeFailures()) {
+            ui.showError(failure);
         }
     }
 
@@ -38,23 +77,271 @@ public class Eddie {
         while (isRunning) {
             String userInput = ui.readCommand();
             ui.printLine();
+            isRunning = !executeCommand(userInput);
+            ui.startResponse();
+            if (isRunning) {
+                ui.showReminders(workspace.takeDueReminders());
+            }
+            ui.printLine();
+        }
+        ui.flush();
+        workspace.close();
+    }
+
+    /**
+     * Runs every command from the input without prompting, and persists the task list once
+     * at the end instead of after every command.
+     *
+     * @param input         The commands, one per line.
+     * @param flushInterval Also persist after this many commands, or 0 to persist only at the end.
+     */
+    public void runBatch(BufferedReader input, int flushInterval) {
+        int commandCount = 0;
+        workspace.beginBatch();
+        try {
+            String line;
+            while ((line = input.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                commandCount++;
+                boolean isExit = executeCommand(line.trim());
+                ui.startResponse();
+                ui.printLine();
+                ui.endResponse();
+                if (isExit) {
+                    break;
+                }
+                if (flushInterval > 0 && commandCount % flushInterval == 0) {
+                    workspace.commitBatch();
+                    workspace.beginBatch();
+                }
+            }
+        } catch (IOException e) {
+            ui.showError(ErrorMessages.BATCH_READ_FAILED + e.getMessage());
+        }
+        workspace.commitBatch();
+        ui.showBatchSummary(commandCount);
+        ui.flush();
+        workspace.close();
+    }
+
+    /**
+     * Serves the task list to TCP clients until the process is stopped.
+     *
+     * @param port The port to listen on.
+     */
+    public void runServer(int port) {
+        try {
+            new EddieServer(port, workspace, shard).start(ui);
+        } catch (IOException e) {
+            ui.showError(ErrorMessages.SERVER_FAILED + e.getMessage());
+            ui.flush();
+        }
+        workspace.close();
+    }
+
+    /**
+     * Writes changes on a background thread at most {@code maxDelayMillis} after they are made,
+     * instead of before each command returns.
+     */
+    public void enableWriteBehind(long maxDelayMillis) {
+        workspace.enableWriteBehind(maxDelayMillis);
+    }
+
+    /**
+     * Reminds of deadlines and events in every list after each command, once per lead time
+     * before each one starts.
+     *
+     * @param clock     Where the current time comes from.
+     * @param leadTimes How long before each task starts to remind of it, at least one.
+     */
+    public void enableReminders(Clock clock, List<Duration> leadTimes) {
+        workspace.enableReminders(clock, leadTimes);
+    }
+
+    /**
+     * Writes the collected metrics to a file when the program exits, as JSON if the file name
+     * ends in ".json" and as Prometheus text otherwise.
+     *
+     * @param path The file to write.
+     */
+    public void enableMetricsDump(String path) {
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
             try {
-                Command command = Parser.parse(userInput);
-                command.execute(tasks, ui, storage);
-                if (command.isExit()) {
-                    isRunning = false;
+                Metrics.writeTo(Path.of(path), workspace.countTasksByType());
+            } catch (IOException e) {
+                System.out.println(ErrorMessages.METRICS_WRITE_FAILED + e.getMessage());
+            }
+        }, "eddie-metrics-dump"));
+    }
+
+    /**
+     * Parses and executes one command, showing any error to the user.
+     * The command holds its list's lock so a background save never sees it half-changed.
+     *
+     * @return True if the command ends the session.
+     */
+    private boolean executeCommand(String userInput) {
+        try {
+            long start = System.nanoTime();
+            Command command = Parser.parse(userInput);
+            long parsed = System.nanoTime();
+            Metrics.recordParse(parsed - start);
+            try {
+                if (command.getListName() != null) {
+                    shard = workspace.getShard(command.getListName());
+                }
+                if (command instanceof CrossListCommand && ((CrossListCommand) command).isCrossList()) {
+                    ((CrossListCommand) command).executeAcross(workspace, ui);
+                } else {
+                    shard.execute(command, ui);
                 }
-            } catch (EddieException e) {
-                ui.showError(e.getMessage());
+            } finally {
+                Metrics.recordCommand(command.getClass().getSimpleName(), System.nanoTime() - parsed);
             }
-            ui.printLine();
+            for (String failure : workspace.takeFailures()) {
+                ui.showError(failure);
+            }
+            return command.isExit();
+        } catch (EddieException e) {
+            ui.showError(e.getMessage());
+            return false;
         }
     }
 
     /**
      * Entry point for the program.
+     *
+     * Starts the interactive chatbot, or with {@code --batch [file] [--flush-every N]} runs the
+     * commands in the file (or standard input if no file or {@code -} is given) as one batch.
+     * With {@code --server [port]} it serves the task list over TCP instead.
+     * In any mode, {@code --write-behind <ms>} saves changes in the background within that delay,
+     * {@code --lazy} decodes tasks from the file only when they are used, {@code --columnar}
+     * packs them into primitive columns, and {@code --metrics-file <file>} writes the collected
+     * metrics to the file on exit. Every list in {@code data/} can be switched to with {@code use}.
+     * Outside batch mode, deadlines and events are reminded of an hour before they start, or at
+     * the lead times given by {@code --remind}, e.g. {@code --remind 1d,2h,15m}; {@code --remind off}
+     * turns reminders off.
      */
     public static void main(String[] args) {
-        new Eddie("data/tasks.txt").run();
+        String mode = "";
+        String source = "-";
+        String serverPort = String.valueOf(DEFAULT_PORT);
+        String flushEvery = "0";
+        String writeBehind = "0";
+        String layout = "objects";
+        String metricsFile = null;
+        String leadTimes = DEFAULT_LEAD_TIMES;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--write-behind") && i + 1 < args.length) {
+                writeBehind = args[++i];
+            } else if (args[i].equals("--remind") && i + 1 < args.length) {
+                leadTimes = args[++i];
+            } else if (args[i].equals("--metrics-file") && i + 1 < args.length) {
+                metricsFile = args[++i];
+            } else if (args[i].equals("--flush-every") && i + 1 < args.length) {
+                flushEvery = args[++i];
+            } else if (args[i].equals("--lazy") || args[i].equals("--columnar")) {
+                layout = args[i].substring(2);
+            } else if (args[i].equals("--server") || args[i].equals("--batch")) {
+                mode = args[i];
+            } else if (mode.equals("--server")) {
+                serverPort = args[i];
+            } else {
+                source = args[i];
+            }
+        }
+
+        long writeBehindMillis;
+        int flushInterval;
+        int port;
+        List<Duration> leadDurations = new ArrayList<>();
+        try {
+            writeBehindMillis = parseCount(writeBehind, Long.MAX_VALUE, ErrorMessages.INVALID_WRITE_BEHIND);
+            flushInterval = (int) parseCount(flushEvery, Integer.MAX_VALUE, ErrorMessages.INVALID_FLUSH_EVERY);
+            port = (int) parseCount(serverPort, MAX_PORT, ErrorMessages.INVALID_PORT);
+            if (!mode.equals("--batch") && !leadTimes.equals("off")) {
+                leadDurations = parseLeadTimes(leadTimes);
+            }
+        } catch (EddieException e) {
+            System.out.println(e.getMessage());
+            return;
+        }
+
+        Eddie eddie = new Eddie("data/tasks.txt", layout);
+        if (writeBehindMillis > 0) {
+            eddie.enableWriteBehind(writeBehindMillis);
+        }
+        if (metricsFile != null) {
+            eddie.enableMetricsDump(metricsFile);
+        }
+
+        if (!leadDurations.isEmpty()) {
+            eddie.enableReminders(Clock.systemDefaultZone(), leadDurations);
+        }
+
+        if (mode.equals("--server")) {
+            eddie.runServer(port);
+            return;
+        }
+        if (!mode.equals("--batch")) {
+            eddie.run();
+            return;
+        }
+
+        try (Reader reader = source.equals("-") ? new InputStreamReader(System.in) : new FileReader(source)) {
+            eddie.runBatch(new BufferedReader(reader), flushInterval);
+        } catch (IOException e) {
+            System.out.println(ErrorMessages.BATCH_READ_FAILED + e.getMessage());
+        }
+    }
+
+    /**
+     * Parses a whole number option that may be at most {@code max}.
+     *
+     * @throws EddieException If the value is not a number, or is negative or above {@code max}.
+     */
+    private static long parseCount(String text, long max, String errorMessage) throws EddieException {
+        try {
+            long value = Long.parseLong(text);
+            if (value < 0 || value > max) {
+                throw new EddieException(errorMessage + text);
+            }
+            return value;
+        } catch (NumberFormatException e) {
+            throw new EddieException(errorMessage + text);
+        }
+    }
+
+    /**
+     * Parses lead times such as {@code 1d,2h,15m} into durations.
+     *
+     * @throws EddieException If a lead time is not a positive whole number followed by d, h or m.
+     */
+    private static List<Duration> parseLeadTimes(String text) throws EddieException {
+        List<Duration> leadTimes = new ArrayList<>();
+        for (String leadTime : text.split(",", -1)) {
+            leadTime = leadTime.trim();
+            if (!leadTime.matches("[0-9]{1,6}[dhm]")) {
+                throw new EddieException(ErrorMessages.INVALID_LEAD_TIME + leadTime);
+            }
+            long amount = Long.parseLong(leadTime.substring(0, leadTime.length() - 1));
+            if (amount == 0) {
+                throw new EddieException(ErrorMessages.INVALID_LEAD_TIME + leadTime);
+            }
+            switch (leadTime.charAt(leadTime.length() - 1)) {
+            case 'd':
+                leadTimes.add(Duration.ofDays(amount));
+                break;
+            case 'h':
+                leadTimes.add(Duration.ofHours(amount));
+                break;
+            default:
+                leadTimes.add(Duration.ofMinutes(amount));
+                break;
+            }
+        }
+        return leadTimes;
     }
 }
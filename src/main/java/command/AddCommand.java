@@ -1,72 +1,178 @@
 package command;
 
 import storage.Storage;
+import tasklist.Change;
 import tasklist.TaskList;
 import ui.ErrorMessages;
 import ui.Ui;
+import task.DateFormats;
+import task.Task;
 import task.Todo;
 import task.Deadline;
 import task.Event;
+import task.Recurring;
 
+import java.time.DateTimeException;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
-import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.Locale;
 
 /**
  * Represents a command to add a new task todo, deadline and event.
+ *
+ * A deadline or event followed by {@code /every [number] day|week|month [until yyyy-MM-dd]}
+ * becomes one {@link Recurring} task rather than a task per occurrence.
+ *
+ * The details are split and the dates parsed when the command is built, so a malformed command
+ * is rejected before it runs, and a parsed command can be executed again to add another task.
  */
 public class AddCommand extends Command {
-    private final String taskDetails;
+    private static final String BY_MARKER = " /by ";
+    private static final String FROM_MARKER = " /from ";
+    private static final String TO_MARKER = " /to ";
+    private static final String EVERY_MARKER = " /every ";
+    private static final String UNTIL_WORD = "until";
+
     private final String taskType;
+    private final String description;
+    private final LocalDateTime from;
+    private final LocalDateTime to;
+    private final int interval;
+    private final ChronoUnit unit;
+    private final LocalDate until;
 
-    public AddCommand(String taskDetails, String taskType) {
-        this.taskDetails = taskDetails;
+    /**
+     * Parses the details of a new task.
+     *
+     * @param taskDetails The text after the command word.
+     * @param taskType    One of "todo", "deadline" or "event".
+     * @throws EddieException If the details do not match the task type's format.
+     */
+    public AddCommand(String taskDetails, String taskType) throws EddieException {
         this.taskType = taskType;
-    }
-
-    @Override
-    public void execute(TaskList tasks, Ui ui, Storage storage) throws EddieException {
+        int every = taskType.equals("todo") ? -1 : taskDetails.indexOf(EVERY_MARKER);
+        if (every >= 0) {
+            String[] rule = taskDetails.substring(every + EVERY_MARKER.length()).trim().split("\\s+");
+            taskDetails = taskDetails.substring(0, every);
+            int word = 0;
+            interval = rule[0].matches("\\d{1,6}") ? Integer.parseInt(rule[word++]) : 1;
+            unit = (word < rule.length) ? parseUnit(rule[word++]) : null;
+            if (word + 2 == rule.length && rule[word].equalsIgnoreCase(UNTIL_WORD)) {
+                until = parseDay(rule[word + 1]);
+            } else if (word == rule.length) {
+                until = null;
+            } else {
+                throw new EddieException(ErrorMessages.INVALID_RECURRENCE);
+            }
+        } else {
+            interval = 0;
+            unit = null;
+            until = null;
+        }
         switch (taskType) {
         case "todo":
             if (taskDetails.isEmpty()) {
                 throw new EddieException(ErrorMessages.INVALID_TODO);
             }
-            tasks.addTask(new Todo(taskDetails));
+            description = taskDetails;
+            from = null;
+            to = null;
             break;
-        case "deadline":
-            String[] deadlineParts = taskDetails.split(" /by ", 2);
-            if (deadlineParts.length < 2 || deadlineParts[0].trim().isEmpty()) {
-                throw new EddieException(ErrorMessages.INVALID_DEADLINE);
-            }
-            try {
-                DateTimeFormatter inputFormat = DateTimeFormatter.ofPattern("yyyy-MM-dd HHmm");
-                LocalDateTime by = LocalDateTime.parse(deadlineParts[1].trim(), inputFormat);
-                tasks.addTask(new Deadline(deadlineParts[0].trim(), by));
-            } catch (DateTimeParseException e) {
+        case "deadline": {
+            int by = taskDetails.indexOf(BY_MARKER);
+            if (by < 0) {
                 throw new EddieException(ErrorMessages.INVALID_DEADLINE);
             }
+            description = requireDescription(taskDetails, by, ErrorMessages.INVALID_DEADLINE);
+            from = parseDate(taskDetails.substring(by + BY_MARKER.length()), ErrorMessages.INVALID_DEADLINE);
+            to = from;
             break;
-        case "event":
-            String[] eventParts = taskDetails.split(" /from ", 2);
-            if (eventParts.length < 2 || !eventParts[1].contains(" /to ") || eventParts[0].trim().isEmpty()) {
-                throw new EddieException(ErrorMessages.INVALID_EVENT);
-            }
-            String[] timeParts = eventParts[1].split(" /to ", 2);
-            try {
-                DateTimeFormatter inputFormat = DateTimeFormatter.ofPattern("yyyy-MM-dd HHmm");
-                LocalDateTime from = LocalDateTime.parse(timeParts[0].trim(), inputFormat);
-                LocalDateTime to = LocalDateTime.parse(timeParts[1].trim(), inputFormat);
-                tasks.addTask(new Event(eventParts[0].trim(), from, to));
-            } catch (DateTimeParseException e) {
+        }
+        case "event": {
+            int start = taskDetails.indexOf(FROM_MARKER);
+            int end = (start < 0) ? -1 : taskDetails.indexOf(TO_MARKER, start + FROM_MARKER.length());
+            if (end < 0) {
                 throw new EddieException(ErrorMessages.INVALID_EVENT);
             }
+            description = requireDescription(taskDetails, start, ErrorMessages.INVALID_EVENT);
+            from = parseDate(taskDetails.substring(start + FROM_MARKER.length(), end), ErrorMessages.INVALID_EVENT);
+            to = parseDate(taskDetails.substring(end + TO_MARKER.length()), ErrorMessages.INVALID_EVENT);
             break;
+        }
         default:
             throw new EddieException(ErrorMessages.INVALID_COMMAND);
         }
+        if (every >= 0 && !Recurring.isValidRule(from, interval, unit, until)) {
+            throw new EddieException(ErrorMessages.INVALID_RECURRENCE);
+        }
+    }
+
+    @Override
+    public void execute(TaskList tasks, Ui ui, Storage storage) throws EddieException {
+        Task task;
+        if (unit != null) {
+            task = new Recurring(description, from, to, interval, unit, until);
+        } else {
+            switch (taskType) {
+            case "deadline":
+                task = new Deadline(description, from);
+                break;
+            case "event":
+                task = new Event(description, from, to);
+                break;
+            default:
+                task = new Todo(description);
+                break;
+            }
+        }
+        Change change = Change.added(task, tasks.size());
+        change.applyTo(tasks);
+        tasks.getHistory().record(change);
 
         // Show confirm task to user and save tasks
         ui.showTaskAdded(tasks.getLastTask(), tasks.size());
-        storage.saveTasks(tasks.getAllTasks());
+        storage.recordAdd(tasks.getLastTask(), tasks);
+    }
+
+    private static String requireDescription(String taskDetails, int end, String errorMessage)
+            throws EddieException {
+        String description = taskDetails.substring(0, end).trim();
+        if (description.isEmpty()) {
+            throw new EddieException(errorMessage);
+        }
+        return description;
+    }
+
+    private static ChronoUnit parseUnit(String word) throws EddieException {
+        switch (word.toLowerCase(Locale.ROOT)) {
+        case "day":
+        case "days":
+            return ChronoUnit.DAYS;
+        case "week":
+        case "weeks":
+            return ChronoUnit.WEEKS;
+        case "month":
+        case "months":
+            return ChronoUnit.MONTHS;
+        default:
+            throw new EddieException(ErrorMessages.INVALID_RECURRENCE);
+        }
+    }
+
+    private static LocalDate parseDay(String text) throws EddieException {
+        try {
+            return LocalDate.parse(text);
+        } catch (DateTimeException e) {
+            throw new EddieException(ErrorMessages.INVALID_RECURRENCE);
+        }
+    }
+
+    private static LocalDateTime parseDate(String text, String errorMessage) throws EddieException {
+        try {
+            return DateFormats.parseDateTime(text.trim());
+        } catch (DateTimeException e) {
+            throw new EddieException(errorMessage);
+        }
     }
 }
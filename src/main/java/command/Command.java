@@ -18,9 +18,27 @@ public abstract class Command {
      */
     public abstract void execute(TaskList tasks, Ui ui, Storage storage) throws EddieException;
 
+    /**
+     * Returns the list the command switches to. The command is then executed on that list.
+     *
+     * @return The list's name, or null to stay on the list in use.
+     */
+    public String getListName() {
+        return null;
+    }
+
     public boolean isExit() {
         return false;
     }
+
+    /**
+     * Returns whether the command only reads the task list, so it can run alongside other readers.
+     *
+     * @return True if the command never changes the task list or storage.
+     */
+    public boolean isReadOnly() {
+        return false;
+    }
 }
 
 
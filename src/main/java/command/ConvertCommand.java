@@ -0,0 +1,28 @@
+package command;
+
+import storage.Storage;
+import storage.TaskFileFormat;
+import tasklist.TaskList;
+import ui.ErrorMessages;
+import ui.Ui;
+
+/**
+ * Rewrites the task file in the text or binary format.
+ */
+public class ConvertCommand extends Command {
+    private final TaskFileFormat format;
+
+    public ConvertCommand(String formatName) throws EddieException {
+        try {
+            format = TaskFileFormat.valueOf(formatName.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new EddieException(ErrorMessages.INVALID_FORMAT);
+        }
+    }
+
+    @Override
+    public void execute(TaskList tasks, Ui ui, Storage storage) throws EddieException {
+        storage.convertTo(format, tasks.getAllTasks());
+        ui.showFormatConverted(format.name().toLowerCase());
+    }
+}
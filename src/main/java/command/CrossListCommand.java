@@ -0,0 +1,27 @@
+package command;
+
+import ui.Ui;
+import workspace.Workspace;
+
+/**
+ * A command that can work on every list of the workspace rather than the one in use.
+ */
+public interface CrossListCommand {
+    /**
+     * Returns whether this command spans lists, so it must be run through
+     * {@link #executeAcross} instead of {@link Command#execute}.
+     *
+     * @return True if the command spans lists.
+     */
+    boolean isCrossList();
+
+    /**
+     * Executes the command over every list of the workspace. The command locks each list
+     * itself as it uses it.
+     *
+     * @param workspace The workspace holding every list.
+     * @param ui        The UI to interact with the user.
+     * @throws EddieException for error occurs during command execution.
+     */
+    void executeAcross(Workspace workspace, Ui ui) throws EddieException;
+}
@@ -1,27 +1,65 @@
 package command;
 
 import storage.Storage;
+import tasklist.Change;
 import tasklist.TaskList;
 import ui.Ui;
 import task.Task;
 
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Deletes one task, or every task in a {@link TaskSelection} at once.
+ */
 public class DeleteCommand extends Command {
-    private String taskIndex;
+    private final TaskSelection selection;
 
-    public DeleteCommand(String taskIndex) {
-        this.taskIndex = taskIndex;
+    public DeleteCommand(String taskIndex) throws EddieException {
+        this.selection = TaskSelection.parse(taskIndex);
     }
 
     @Override
-    public void execute(TaskList tasks, Ui ui, Storage storage) {
+    public void execute(TaskList tasks, Ui ui, Storage storage) throws EddieException {
+        if (selection.getSingle() == null) {
+            executeBulk(tasks, ui, storage);
+            return;
+        }
         try {
-            int index = Integer.parseInt(taskIndex) - 1;
-            Task removedTask = tasks.removeTask(index);
+            long id = selection.getSingle().resolveId(tasks);
+            Task removedTask = tasks.getTaskById(id);
+            Change change = Change.deleted(removedTask, tasks.indexOfId(id));
+            change.applyTo(tasks);
+            tasks.getHistory().record(change);
             ui.showTaskDeleted(removedTask, tasks.size());
-            storage.saveTasks(tasks.getAllTasks());
+            storage.recordDelete(id, tasks);
 
-        } catch (NumberFormatException | EddieException e) {
+        } catch (EddieException e) {
             ui.showError("Invalid task number!");
         }
     }
+
+    /**
+     * Removes every selected task, compacting the list at most once, then records and saves
+     * them as one change.
+     */
+    private void executeBulk(TaskList tasks, Ui ui, Storage storage) throws EddieException {
+        BitSet positions = selection.resolvePositions(tasks);
+        List<Change> changes = new ArrayList<>(positions.cardinality());
+        List<Task> removedTasks = new ArrayList<>(positions.cardinality());
+        // Removing from the back leaves every task at its original position until it goes, so
+        // undoing the changes in reverse puts each one back where it was.
+        for (int position = positions.length() - 1; position >= 0; position = positions.previousSetBit(position - 1)) {
+            Task task = tasks.getTask(position);
+            changes.add(Change.deleted(task, position));
+            removedTasks.add(task);
+        }
+        tasks.applyChanges(changes);
+        tasks.getHistory().record(changes.toArray(new Change[0]));
+        Collections.reverse(removedTasks);
+        ui.showTasksDeleted(removedTasks, tasks.size());
+        storage.recordChanges(changes, tasks);
+    }
 }
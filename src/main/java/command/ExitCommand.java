@@ -7,6 +7,7 @@ import ui.Ui;
 public class ExitCommand extends Command {
     @Override
     public void execute(TaskList tasks, Ui ui, Storage storage) {
+        storage.flush();
         ui.showEndPage();
     }
 
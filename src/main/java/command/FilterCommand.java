@@ -0,0 +1,54 @@
+package command;
+
+import storage.Storage;
+import tasklist.TaskFilter;
+import tasklist.TaskList;
+import ui.Ui;
+import workspace.Workspace;
+
+/**
+ * Shows the tasks that pass a filter on tags, task type and done status, such as
+ * {@code filter #work #urgent type:D not-done}. See {@link TaskFilter} for the syntax.
+ * A filter ending in {@code /all} is applied to every list instead of the one in use.
+ */
+public class FilterCommand extends Command implements CrossListCommand {
+    private static final String ALL_LISTS_FLAG = "/all";
+
+    private final TaskFilter filter;
+    private final boolean isAllLists;
+
+    /**
+     * Constructs a FilterCommand.
+     *
+     * @param arguments The filter, optionally followed by {@code /all}.
+     * @throws EddieException If the filter is empty or malformed.
+     */
+    public FilterCommand(String arguments) throws EddieException {
+        String trimmed = arguments.trim();
+        isAllLists = trimmed.endsWith(ALL_LISTS_FLAG);
+        if (isAllLists) {
+            trimmed = trimmed.substring(0, trimmed.length() - ALL_LISTS_FLAG.length());
+        }
+        filter = TaskFilter.parse(trimmed);
+    }
+
+    @Override
+    public void execute(TaskList tasks, Ui ui, Storage storage) {
+        ui.showMatchingTasks(tasks.filterTasks(filter));
+    }
+
+    @Override
+    public void executeAcross(Workspace workspace, Ui ui) throws EddieException {
+        ui.showMatchingTasksByList(workspace.queryEveryList(tasks -> tasks.filterTasks(filter)));
+    }
+
+    @Override
+    public boolean isCrossList() {
+        return isAllLists;
+    }
+
+    @Override
+    public boolean isReadOnly() {
+        return true;
+    }
+}
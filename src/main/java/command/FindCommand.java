@@ -2,30 +2,75 @@ package command;
 
 import storage.Storage;
 import tasklist.TaskList;
+import ui.ErrorMessages;
 import ui.Ui;
 import task.Task;
+import workspace.Workspace;
 
-import java.util.ArrayList;
 import java.util.List;
 
 /**
  * Finds and displays tasks that descriptions contain a given keyword.
+ *
+ * A query starting with {@code ~} is a ranked search instead: the best matches for its words
+ * are shown first, tolerating typos and partial words, and only the top few are shown.
+ * Either kind of search ending in {@code /all} searches every list instead of the one in use.
  */
-public class FindCommand extends Command {
+public class FindCommand extends Command implements CrossListCommand {
+    private static final String RANKED_PREFIX = "~";
+    private static final String LIMIT_FLAG = "/top";
+    private static final String ALL_LISTS_FLAG = "/all";
+    private static final int DEFAULT_LIMIT = 20;
+
     private final String keyword;
+    private final boolean isRanked;
+    private final int limit;
+    private final boolean isAllLists;
 
     /**
      * Constructs a FindCommand with the specified keyword to search for.
      *
-     * @param keyword The keyword used to search task descriptions.
+     * @param keyword The keyword used to search task descriptions, or {@code ~} followed by the
+     *                words for a ranked search, optionally ending in {@code /top {number}}.
+     *                Either may end in {@code /all} to search every list.
+     * @throws EddieException If a ranked search has no words or an invalid limit.
      */
-    public FindCommand(String keyword) {
-        this.keyword = keyword;
+    public FindCommand(String keyword) throws EddieException {
+        String trimmed = keyword.trim();
+        isAllLists = trimmed.endsWith(ALL_LISTS_FLAG);
+        if (isAllLists) {
+            keyword = trimmed.substring(0, trimmed.length() - ALL_LISTS_FLAG.length()).trim();
+            trimmed = keyword;
+        }
+        isRanked = trimmed.startsWith(RANKED_PREFIX);
+        if (!isRanked) {
+            this.keyword = keyword;
+            limit = 0;
+            return;
+        }
+
+        String query = trimmed.substring(RANKED_PREFIX.length());
+        int flag = query.lastIndexOf(LIMIT_FLAG);
+        if (flag < 0) {
+            limit = DEFAULT_LIMIT;
+        } else {
+            try {
+                limit = Integer.parseInt(query.substring(flag + LIMIT_FLAG.length()).trim());
+            } catch (NumberFormatException e) {
+                throw new EddieException(ErrorMessages.INVALID_RANKED_FIND);
+            }
+            query = query.substring(0, flag);
+        }
+        this.keyword = query.trim();
+        if (this.keyword.isEmpty() || limit < 1) {
+            throw new EddieException(ErrorMessages.INVALID_RANKED_FIND);
+        }
     }
 
     /**
      * Executes the find command by searching task list for tasks that contain the same keyword
-     * in their description, and displays the matching tasks using the UI.
+     * in their description, or that best match its words for a ranked search, and displays
+     * the matching tasks using the UI.
      *
      * @param tasks   The TaskList containing the user's tasks.
      * @param ui      The Ui instance to handle user interaction.
@@ -33,14 +78,32 @@ public class FindCommand extends Command {
      */
     @Override
     public void execute(TaskList tasks, Ui ui, Storage storage) {
-        List<Task> matchedTasks = new ArrayList<>();
+        ui.showMatchingTasks(search(tasks));
+    }
 
-        for (Task task : tasks.getAllTasks()) {
-            if (task.getDescription().toLowerCase().contains(keyword.toLowerCase())) {
-                matchedTasks.add(task);
-            }
-        }
+    /**
+     * Runs the search on every list in parallel, and displays the matches of each list.
+     *
+     * @param workspace The workspace holding every list.
+     * @param ui        The Ui instance to handle user interaction.
+     * @throws EddieException If a list cannot be opened.
+     */
+    @Override
+    public void executeAcross(Workspace workspace, Ui ui) throws EddieException {
+        ui.showMatchingTasksByList(workspace.queryEveryList(this::search));
+    }
+
+    @Override
+    public boolean isCrossList() {
+        return isAllLists;
+    }
 
-        ui.showMatchingTasks(matchedTasks);
+    private List<Task> search(TaskList tasks) {
+        return isRanked ? tasks.rankTasks(keyword, limit) : tasks.findTasks(keyword);
+    }
+
+    @Override
+    public boolean isReadOnly() {
+        return true;
     }
 }
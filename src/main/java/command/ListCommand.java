@@ -2,11 +2,54 @@ package command;
 
 import storage.Storage;
 import tasklist.TaskList;
+import ui.ErrorMessages;
 import ui.Ui;
 
+/**
+ * Lists every task, or a single page of tasks when given a page number.
+ */
 public class ListCommand extends Command {
+    private final int pageNumber;
+
+    /**
+     * Constructs a ListCommand.
+     *
+     * @param page The page number to show, or an empty string to show every task.
+     * @throws EddieException If the page is not a positive number.
+     */
+    public ListCommand(String page) throws EddieException {
+        String trimmed = page.trim();
+        if (trimmed.isEmpty()) {
+            pageNumber = 0;
+            return;
+        }
+        try {
+            pageNumber = Integer.parseInt(trimmed);
+        } catch (NumberFormatException e) {
+            throw new EddieException(ErrorMessages.INVALID_PAGE);
+        }
+        if (pageNumber < 1) {
+            throw new EddieException(ErrorMessages.INVALID_PAGE);
+        }
+    }
+
+    @Override
+    public void execute(TaskList tasks, Ui ui, Storage storage) throws EddieException {
+        if (pageNumber == 0) {
+            ui.showTaskList(tasks.getAllTasks());
+            return;
+        }
+
+        if ((pageNumber - 1) * Ui.PAGE_SIZE >= Math.max(1, tasks.size())) {
+            throw new EddieException(ErrorMessages.INVALID_PAGE);
+        }
+        int from = (pageNumber - 1) * Ui.PAGE_SIZE;
+        ui.showTaskListPage(tasks.getTasks(from, Math.min(tasks.size(), from + Ui.PAGE_SIZE)), pageNumber,
+                tasks.size());
+    }
+
     @Override
-    public void execute(TaskList tasks, Ui ui, Storage storage) {
-        ui.showTaskList(tasks.getAllTasks());
+    public boolean isReadOnly() {
+        return true;
     }
 }
@@ -1,31 +1,130 @@
 package command;
 
 import storage.Storage;
+import task.Recurring;
 import task.Task;
+import tasklist.Change;
 import tasklist.TaskList;
+import ui.ErrorMessages;
 import ui.Ui;
 
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
 
+/**
+ * Marks or unmarks one task, or every task in a {@link TaskSelection} at once.
+ *
+ * Marking a recurring task marks its next occurrence that is not done, and unmarking it
+ * reopens the last one that is; {@code mark {number} /on yyyy-MM-dd} picks the occurrence
+ * starting that day instead.
+ */
 public class MarkCommand extends Command {
-    private String taskIndex;
-    private boolean isMarking;
+    private static final String ON_MARKER = " /on ";
 
-    public MarkCommand(String taskIndex, boolean isMarking) {
-        this.taskIndex = taskIndex;
+    private final TaskSelection selection;
+    private final boolean isMarking;
+    private final LocalDate day;
+
+    public MarkCommand(String taskIndex, boolean isMarking) throws EddieException {
+        int on = taskIndex.indexOf(ON_MARKER);
+        if (on >= 0) {
+            try {
+                this.day = LocalDate.parse(taskIndex.substring(on + ON_MARKER.length()).trim());
+            } catch (DateTimeParseException e) {
+                throw new EddieException(ErrorMessages.NO_OCCURRENCE);
+            }
+            taskIndex = taskIndex.substring(0, on);
+        } else {
+            this.day = null;
+        }
+        this.selection = TaskSelection.parse(taskIndex);
         this.isMarking = isMarking;
+        if (day != null && selection.getSingle() == null) {
+            throw new EddieException(ErrorMessages.NO_OCCURRENCE);
+        }
     }
 
     @Override
-    public void execute(TaskList tasks, Ui ui, Storage storage) {
+    public void execute(TaskList tasks, Ui ui, Storage storage) throws EddieException {
+        if (selection.getSingle() == null) {
+            executeBulk(tasks, ui, storage);
+            return;
+        }
+        long id;
+        Task task;
         try {
-            int index = Integer.parseInt(taskIndex) - 1;
-            Task task = tasks.getTask(index);
-            tasks.markTask(index, isMarking);
-            ui.showMarkedStatus(task, isMarking);
-            storage.saveTasks(tasks.getAllTasks());
-
-        } catch (NumberFormatException | EddieException e) {
+            id = selection.getSingle().resolveId(tasks);
+            task = tasks.getTaskById(id);
+        } catch (EddieException e) {
             ui.showError("Invalid task number!");
+            return;
+        }
+        if (task instanceof Recurring) {
+            markOccurrence((Recurring) task, tasks, ui, storage);
+            return;
+        }
+        if (day != null) {
+            throw new EddieException(ErrorMessages.NO_OCCURRENCE);
+        }
+        Change change = Change.marked(task, task.isDone(), isMarking);
+        change.applyTo(tasks);
+        tasks.getHistory().record(change);
+        ui.showMarkedStatus(task, isMarking);
+        storage.recordMark(id, isMarking, tasks);
+    }
+
+    private void markOccurrence(Recurring series, TaskList tasks, Ui ui, Storage storage) throws EddieException {
+        int occurrence = (day != null) ? series.occurrenceOn(day) : occurrenceToChange(series);
+        if (occurrence < 0 || series.isOccurrenceDone(occurrence) == isMarking) {
+            throw new EddieException(ErrorMessages.NO_OCCURRENCE);
+        }
+        Change change = Change.occurrenceMarked(series, occurrence, isMarking);
+        change.applyTo(tasks);
+        tasks.getHistory().record(change);
+        ui.showMarkedStatus(series.getOccurrence(occurrence), isMarking);
+        storage.recordChanges(List.of(change), tasks);
+    }
+
+    /**
+     * Returns the occurrence that marking or unmarking a whole series changes, or -1 if there
+     * is none.
+     */
+    private int occurrenceToChange(Recurring series) {
+        return isMarking ? series.nextPendingOccurrence() : series.lastCompletedOccurrence();
+    }
+
+    /**
+     * Changes every selected task that is not already marked that way, then records and
+     * saves them as one change. A recurring task changes one occurrence, as if marked alone.
+     */
+    private void executeBulk(TaskList tasks, Ui ui, Storage storage) throws EddieException {
+        BitSet positions = selection.resolvePositions(tasks);
+        List<Change> changes = new ArrayList<>(positions.cardinality());
+        List<Task> markedTasks = new ArrayList<>(positions.cardinality());
+        for (int position = positions.nextSetBit(0); position >= 0; position = positions.nextSetBit(position + 1)) {
+            Task task = tasks.getTask(position);
+            if (task instanceof Recurring) {
+                Recurring series = (Recurring) task;
+                int occurrence = occurrenceToChange(series);
+                if (occurrence < 0) {
+                    continue;
+                }
+                changes.add(Change.occurrenceMarked(series, occurrence, isMarking));
+                markedTasks.add(series.getOccurrence(occurrence));
+                continue;
+            }
+            if (task.isDone() == isMarking) {
+                continue;
+            }
+            changes.add(Change.marked(task, task.isDone(), isMarking));
+            markedTasks.add(task);
         }
+        tasks.applyChanges(changes);
+        tasks.getHistory().record(changes.toArray(new Change[0]));
+        ui.showMarkedStatus(markedTasks, isMarking);
+        storage.recordChanges(changes, tasks);
     }
 }
@@ -0,0 +1,58 @@
+package command;
+
+import storage.Storage;
+import task.Task;
+import tasklist.QueryPlan;
+import tasklist.TaskList;
+import tasklist.TaskQuery;
+import ui.Ui;
+
+import java.util.Iterator;
+
+/**
+ * Shows the tasks that match a query, such as {@code query report and (#work or type:D) limit 10}.
+ * See {@link TaskQuery} for the syntax.
+ *
+ * A query starting with {@code explain} runs the same way, but shows the plan chosen for it
+ * instead of the tasks: each step with the rows it was estimated to produce and the rows it
+ * actually did, and how long the query took.
+ */
+public class QueryCommand extends Command {
+    private static final String EXPLAIN_PREFIX = "explain";
+
+    private final TaskQuery query;
+    private final boolean isExplain;
+
+    /**
+     * Constructs a QueryCommand.
+     *
+     * @param arguments The query, optionally preceded by {@code explain}.
+     * @throws EddieException If the query is empty or malformed.
+     */
+    public QueryCommand(String arguments) throws EddieException {
+        String trimmed = arguments.trim();
+        String[] words = trimmed.split("\\s+", 2);
+        isExplain = words[0].equalsIgnoreCase(EXPLAIN_PREFIX);
+        query = TaskQuery.parse(isExplain ? ((words.length > 1) ? words[1] : "") : trimmed);
+    }
+
+    @Override
+    public void execute(TaskList tasks, Ui ui, Storage storage) {
+        QueryPlan plan = tasks.planQuery(query);
+        if (!isExplain) {
+            ui.showQueryResults(plan);
+            return;
+        }
+        long start = System.nanoTime();
+        int count = 0;
+        for (Iterator<Task> results = plan.iterator(); results.hasNext(); results.next()) {
+            count++;
+        }
+        ui.showQueryPlan(plan.explain(), count, (System.nanoTime() - start) / 1000);
+    }
+
+    @Override
+    public boolean isReadOnly() {
+        return true;
+    }
+}
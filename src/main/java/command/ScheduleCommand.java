@@ -0,0 +1,117 @@
+package command;
+
+import storage.Storage;
+import task.Task;
+import tasklist.TaskList;
+import ui.ErrorMessages;
+import ui.Ui;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+
+/**
+ * Shows deadlines and events by time: those due on a day, those in a date range,
+ * or the next few that are not done yet.
+ */
+public class ScheduleCommand extends Command {
+    private final String queryType;
+    private final LocalDate from;
+    private final LocalDate to;
+    private final int count;
+
+    /**
+     * Parses a schedule query.
+     *
+     * @param arguments The text after the command word.
+     * @param queryType One of "due", "between" or "upcoming".
+     * @throws EddieException If the arguments do not fit the query type.
+     */
+    public ScheduleCommand(String arguments, String queryType) throws EddieException {
+        String trimmed = arguments.trim();
+        this.queryType = queryType;
+        switch (queryType) {
+        case "due":
+            from = parseDate(trimmed, ErrorMessages.INVALID_DUE);
+            to = from;
+            count = 0;
+            break;
+        case "between":
+            String[] dates = trimmed.split("\\s+");
+            if (dates.length != 2) {
+                throw new EddieException(ErrorMessages.INVALID_BETWEEN);
+            }
+            from = parseDate(dates[0], ErrorMessages.INVALID_BETWEEN);
+            to = parseDate(dates[1], ErrorMessages.INVALID_BETWEEN);
+            if (to.isBefore(from)) {
+                throw new EddieException(ErrorMessages.INVALID_BETWEEN);
+            }
+            count = 0;
+            break;
+        case "upcoming":
+            try {
+                count = Integer.parseInt(trimmed);
+            } catch (NumberFormatException e) {
+                throw new EddieException(ErrorMessages.INVALID_UPCOMING);
+            }
+            if (count < 1) {
+                throw new EddieException(ErrorMessages.INVALID_UPCOMING);
+            }
+            from = null;
+            to = null;
+            break;
+        default:
+            throw new EddieException(ErrorMessages.INVALID_COMMAND);
+        }
+    }
+
+    @Override
+    public void execute(TaskList tasks, Ui ui, Storage storage) throws EddieException {
+        switch (queryType) {
+        case "due":
+            showTasksBetween("due on " + from, tasks, startOf(from), endOf(from), ui);
+            break;
+        case "between":
+            showTasksBetween("between " + from + " and " + to, tasks, startOf(from), endOf(to), ui);
+            break;
+        default:
+            List<Task> upcoming = tasks.findUpcomingTasks(LocalDateTime.now(), Math.min(count, Ui.MAX_RESULTS));
+            ui.showScheduledTasks("coming up next", upcoming, upcoming.size());
+            break;
+        }
+    }
+
+    /**
+     * Shows the first tasks in the range, and how many more there are only if the range holds
+     * more than can be shown, as counting them means visiting every timed task in it.
+     */
+    private static void showTasksBetween(String description, TaskList tasks, LocalDateTime start,
+            LocalDateTime end, Ui ui) {
+        List<Task> found = tasks.findTasksBetween(start, end, Ui.MAX_RESULTS);
+        long total = (found.size() < Ui.MAX_RESULTS) ? found.size() : tasks.countTasksBetween(start, end);
+        ui.showScheduledTasks(description, found, total);
+    }
+
+    @Override
+    public boolean isReadOnly() {
+        return true;
+    }
+
+    private static LocalDate parseDate(String text, String errorMessage) throws EddieException {
+        try {
+            return LocalDate.parse(text);
+        } catch (DateTimeParseException e) {
+            throw new EddieException(errorMessage);
+        }
+    }
+
+    private static LocalDateTime startOf(LocalDate day) {
+        return day.atStartOfDay();
+    }
+
+    private static LocalDateTime endOf(LocalDate day) {
+        return day.atTime(LocalTime.of(23, 59));
+    }
+}
@@ -0,0 +1,22 @@
+package command;
+
+import metrics.Metrics;
+import storage.Storage;
+import tasklist.TaskList;
+import ui.Ui;
+
+/**
+ * Shows how long each kind of command, save and load has taken, and how many tasks of each
+ * type there are.
+ */
+public class StatsCommand extends Command {
+    @Override
+    public void execute(TaskList tasks, Ui ui, Storage storage) {
+        ui.showStats(Metrics.describe(tasks.countTasksByType()));
+    }
+
+    @Override
+    public boolean isReadOnly() {
+        return true;
+    }
+}
@@ -0,0 +1,59 @@
+package command;
+
+import tasklist.TaskList;
+import ui.ErrorMessages;
+
+/**
+ * A task reference typed by the user: a 1-based list number such as {@code 3},
+ * or a stable task ID such as {@code id:12}.
+ *
+ * The syntax is checked when the reference is parsed; whether it names a task is only
+ * known against the list it is resolved in.
+ */
+class TaskReference {
+    private static final String ID_PREFIX = "id:";
+
+    private final boolean isId;
+    private final long number;
+
+    private TaskReference(boolean isId, long number) {
+        this.isId = isId;
+        this.number = number;
+    }
+
+    /**
+     * Parses a list number or {@code id:} reference.
+     *
+     * @param reference The text typed by the user.
+     * @return The parsed reference.
+     * @throws EddieException If the reference is malformed.
+     */
+    static TaskReference parse(String reference) throws EddieException {
+        String trimmed = reference.trim();
+        try {
+            if (trimmed.startsWith(ID_PREFIX)) {
+                return new TaskReference(true, Long.parseLong(trimmed.substring(ID_PREFIX.length()).trim()));
+            }
+            return new TaskReference(false, Integer.parseInt(trimmed));
+        } catch (NumberFormatException e) {
+            throw new EddieException(ErrorMessages.INVALID_TASK_NUMBER);
+        }
+    }
+
+    /**
+     * Returns the ID of the referenced task.
+     *
+     * @param tasks The task list the reference points into.
+     * @return The task's ID.
+     * @throws EddieException If the reference names no task.
+     */
+    long resolveId(TaskList tasks) throws EddieException {
+        if (isId) {
+            return tasks.getTaskById(number).getId();
+        }
+        if (number < 1 || number > tasks.size()) {
+            throw new EddieException(ErrorMessages.INVALID_TASK_NUMBER);
+        }
+        return tasks.getTask((int) number - 1).getId();
+    }
+}
@@ -0,0 +1,150 @@
+package command;
+
+import task.Task;
+import tasklist.TaskFilter;
+import tasklist.TaskList;
+import ui.ErrorMessages;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * The tasks a bulk command applies to, as typed by the user: a single {@link TaskReference},
+ * a comma-separated list of list numbers, ranges such as {@code 3-900} and IDs,
+ * {@code done} for every completed task, {@code find {keyword}} for every match, or
+ * {@code filter {filter}} for every task passing a {@link TaskFilter}.
+ *
+ * Like a TaskReference, the syntax is checked when the selection is parsed and the tasks are
+ * only known once it is resolved against a list.
+ */
+class TaskSelection {
+    private static final String DONE = "done";
+    private static final String FIND_PREFIX = "find ";
+    private static final String FILTER_PREFIX = "filter ";
+
+    private final TaskReference single;
+    private final List<TaskReference> references;
+    private final int[] rangeStarts;
+    private final int[] rangeEnds;
+    private final String keyword;
+    private final boolean isDone;
+    private final TaskFilter filter;
+
+    private TaskSelection(TaskReference single, List<TaskReference> references, int[] rangeStarts,
+            int[] rangeEnds, String keyword, boolean isDone) {
+        this(single, references, rangeStarts, rangeEnds, keyword, isDone, null);
+    }
+
+    private TaskSelection(TaskReference single, List<TaskReference> references, int[] rangeStarts,
+            int[] rangeEnds, String keyword, boolean isDone, TaskFilter filter) {
+        this.single = single;
+        this.references = references;
+        this.rangeStarts = rangeStarts;
+        this.rangeEnds = rangeEnds;
+        this.keyword = keyword;
+        this.isDone = isDone;
+        this.filter = filter;
+    }
+
+    /**
+     * Parses a selection.
+     *
+     * @param selection The text typed by the user.
+     * @return The parsed selection.
+     * @throws EddieException If the selection is malformed.
+     */
+    static TaskSelection parse(String selection) throws EddieException {
+        String trimmed = selection.trim();
+        if (trimmed.equalsIgnoreCase(DONE)) {
+            return new TaskSelection(null, null, null, null, null, true);
+        }
+        if (trimmed.regionMatches(true, 0, FIND_PREFIX, 0, FIND_PREFIX.length())) {
+            String keyword = trimmed.substring(FIND_PREFIX.length()).trim();
+            if (keyword.isEmpty()) {
+                throw new EddieException(ErrorMessages.INVALID_SELECTION);
+            }
+            return new TaskSelection(null, null, null, null, keyword, false);
+        }
+        if (trimmed.regionMatches(true, 0, FILTER_PREFIX, 0, FILTER_PREFIX.length())) {
+            TaskFilter filter = TaskFilter.parse(trimmed.substring(FILTER_PREFIX.length()));
+            return new TaskSelection(null, null, null, null, null, false, filter);
+        }
+        if (trimmed.indexOf(',') < 0 && trimmed.indexOf('-') < 0) {
+            return new TaskSelection(TaskReference.parse(trimmed), null, null, null, null, false);
+        }
+
+        String[] parts = trimmed.split(",");
+        List<TaskReference> references = new ArrayList<>();
+        int[] rangeStarts = new int[parts.length];
+        int[] rangeEnds = new int[parts.length];
+        int rangeCount = 0;
+        for (String part : parts) {
+            int dash = part.indexOf('-');
+            if (dash < 0) {
+                references.add(TaskReference.parse(part));
+                continue;
+            }
+            try {
+                rangeStarts[rangeCount] = Integer.parseInt(part.substring(0, dash).trim());
+                rangeEnds[rangeCount] = Integer.parseInt(part.substring(dash + 1).trim());
+            } catch (NumberFormatException e) {
+                throw new EddieException(ErrorMessages.INVALID_SELECTION);
+            }
+            if (rangeStarts[rangeCount] < 1 || rangeStarts[rangeCount] > rangeEnds[rangeCount]) {
+                throw new EddieException(ErrorMessages.INVALID_SELECTION);
+            }
+            rangeCount++;
+        }
+        return new TaskSelection(null, references, Arrays.copyOf(rangeStarts, rangeCount),
+                Arrays.copyOf(rangeEnds, rangeCount), null, false);
+    }
+
+    /**
+     * Returns the single task reference this selection is, or null if it may name several tasks.
+     *
+     * @return The reference, or null.
+     */
+    TaskReference getSingle() {
+        return single;
+    }
+
+    /**
+     * Returns the 0-based list positions of the selected tasks.
+     *
+     * @param tasks The task list the selection points into.
+     * @return The positions, each set once.
+     * @throws EddieException If a list number, range or ID names no task.
+     */
+    BitSet resolvePositions(TaskList tasks) throws EddieException {
+        BitSet positions = new BitSet(tasks.size());
+        if (single != null) {
+            positions.set(tasks.indexOfId(single.resolveId(tasks)));
+        } else if (isDone) {
+            int position = 0;
+            for (Task task : tasks.getAllTasks()) {
+                if (task.isDone()) {
+                    positions.set(position);
+                }
+                position++;
+            }
+        } else if (keyword != null || filter != null) {
+            List<Task> matchedTasks = (filter != null) ? tasks.filterTasks(filter) : tasks.findTasks(keyword);
+            for (Task task : matchedTasks) {
+                positions.set(tasks.indexOfId(task.getId()));
+            }
+        } else {
+            for (TaskReference reference : references) {
+                positions.set(tasks.indexOfId(reference.resolveId(tasks)));
+            }
+            for (int i = 0; i < rangeStarts.length; i++) {
+                if (rangeEnds[i] > tasks.size()) {
+                    throw new EddieException(ErrorMessages.INVALID_TASK_NUMBER);
+                }
+                positions.set(rangeStarts[i] - 1, rangeEnds[i]);
+            }
+        }
+        return positions;
+    }
+}
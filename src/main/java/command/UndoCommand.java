@@ -0,0 +1,76 @@
+package command;
+
+import storage.Storage;
+import task.Recurring;
+import task.Task;
+import tasklist.Change;
+import tasklist.TaskList;
+import tasklist.UndoHistory;
+import ui.ErrorMessages;
+import ui.Ui;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Undoes the changes made by the most recent command, or redoes the most recently undone one.
+ *
+ * Only the changes themselves are applied and saved, so undo costs the same however long the
+ * list is.
+ */
+public class UndoCommand extends Command {
+    private final boolean isRedo;
+
+    /**
+     * Constructs an UndoCommand.
+     *
+     * @param isRedo True to redo instead of undo.
+     */
+    public UndoCommand(boolean isRedo) {
+        this.isRedo = isRedo;
+    }
+
+    @Override
+    public void execute(TaskList tasks, Ui ui, Storage storage) throws EddieException {
+        UndoHistory history = tasks.getHistory();
+        Change[] changes = isRedo ? history.peekRedo() : history.peekUndo();
+        if (changes == null) {
+            throw new EddieException(isRedo ? ErrorMessages.NOTHING_TO_REDO : ErrorMessages.NOTHING_TO_UNDO);
+        }
+
+        List<Change> steps = new ArrayList<>(changes.length);
+        List<String> descriptions = new ArrayList<>(changes.length);
+        for (int i = 0; i < changes.length; i++) {
+            // Undo walks the command's changes backwards so each one meets the state it left.
+            Change step = isRedo ? changes[i] : changes[changes.length - 1 - i].inverse();
+            steps.add(step);
+        }
+        // The position in the history only moves once every step is in, so a step that fails
+        // leaves both the list and the history as they were.
+        tasks.applyChanges(steps);
+        if (isRedo) {
+            history.stepForward();
+        } else {
+            history.stepBack();
+        }
+        for (Change step : steps) {
+            descriptions.add(describe(step));
+        }
+        ui.showHistoryStep(isRedo, descriptions, tasks.size());
+        storage.recordChanges(steps, tasks);
+    }
+
+    private static String describe(Change change) {
+        switch (change.getKind()) {
+        case ADD:
+            return "Restored: " + change.getTask();
+        case DELETE:
+            return "Removed: " + change.getTask();
+        case MARK_OCCURRENCE:
+            Task occurrence = ((Recurring) change.getTask()).getOccurrence(change.getOccurrence());
+            return (change.isDone() ? "Marked as done: " : "Marked as not done: ") + occurrence;
+        default:
+            return (change.isDone() ? "Marked as done: " : "Marked as not done: ") + change.getTask();
+        }
+    }
+}
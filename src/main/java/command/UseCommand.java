@@ -0,0 +1,49 @@
+package command;
+
+import storage.Storage;
+import tasklist.TaskList;
+import ui.ErrorMessages;
+import ui.Ui;
+import workspace.Workspace;
+
+/**
+ * Switches to another named task list, creating it if it does not exist yet.
+ */
+public class UseCommand extends Command {
+    private final String listName;
+
+    /**
+     * Constructs a UseCommand.
+     *
+     * @param listName The name of the list to switch to.
+     * @throws EddieException If the name is empty or has characters a list name cannot have.
+     */
+    public UseCommand(String listName) throws EddieException {
+        this.listName = listName.trim();
+        if (!Workspace.isValidName(this.listName)) {
+            throw new EddieException(ErrorMessages.INVALID_LIST_NAME);
+        }
+    }
+
+    /**
+     * Shows the list that is now in use. The caller has already switched to it.
+     *
+     * @param tasks   The task list switched to.
+     * @param ui      The Ui instance to handle user interaction.
+     * @param storage The Storage of the list switched to (not used here).
+     */
+    @Override
+    public void execute(TaskList tasks, Ui ui, Storage storage) {
+        ui.showListInUse(listName, tasks.size());
+    }
+
+    @Override
+    public String getListName() {
+        return listName;
+    }
+
+    @Override
+    public boolean isReadOnly() {
+        return true;
+    }
+}
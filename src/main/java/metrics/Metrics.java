@@ -0,0 +1,252 @@
+package metrics;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Process-wide timings and byte counts for the hot paths: parsing, executing each command
+ * type, rendering output, and saving, journaling and loading tasks.
+ *
+ * Recording is lock-free and costs a few atomic increments, so it is always on. The numbers
+ * are read by the {@code stats} command and can be written out as JSON or Prometheus text.
+ */
+public final class Metrics {
+    private static final Map<String, LatencyHistogram> commandLatencies = new ConcurrentHashMap<>();
+    private static final LatencyHistogram parseLatency = new LatencyHistogram();
+    private static final LatencyHistogram renderLatency = new LatencyHistogram();
+    private static final IoMetric saves = new IoMetric("save");
+    private static final IoMetric journalAppends = new IoMetric("journal");
+    private static final IoMetric loads = new IoMetric("load");
+
+    private Metrics() {
+    }
+
+    /**
+     * Records how long parsing one input line took.
+     *
+     * @param nanos The duration in nanoseconds.
+     */
+    public static void recordParse(long nanos) {
+        parseLatency.record(nanos);
+    }
+
+    /**
+     * Records how long one command took to execute, including saving its changes.
+     *
+     * @param command The command's type name, e.g. "AddCommand".
+     * @param nanos   The duration in nanoseconds.
+     */
+    public static void recordCommand(String command, long nanos) {
+        LatencyHistogram histogram = commandLatencies.get(command);
+        if (histogram == null) {
+            histogram = commandLatencies.computeIfAbsent(command, key -> new LatencyHistogram());
+        }
+        histogram.record(nanos);
+    }
+
+    /**
+     * Records how long a command's response took to render, from when the command finished
+     * executing until its output was written out.
+     *
+     * @param nanos The duration in nanoseconds.
+     */
+    public static void recordRender(long nanos) {
+        renderLatency.record(nanos);
+    }
+
+    /**
+     * Records one write of the whole task file.
+     *
+     * @param bytes The size of the written file.
+     * @param nanos The duration in nanoseconds, including the fsync.
+     */
+    public static void recordSave(long bytes, long nanos) {
+        saves.record(bytes, nanos);
+    }
+
+    /**
+     * Records one append to the journal.
+     *
+     * @param bytes The bytes appended.
+     * @param nanos The duration in nanoseconds.
+     */
+    public static void recordJournalAppend(long bytes, long nanos) {
+        journalAppends.record(bytes, nanos);
+    }
+
+    /**
+     * Records one load of the task file.
+     *
+     * @param bytes The size of the task file.
+     * @param nanos The duration in nanoseconds, including replaying the journal.
+     */
+    public static void recordLoad(long bytes, long nanos) {
+        loads.record(bytes, nanos);
+    }
+
+    /**
+     * Describes the metrics in lines of text for the user.
+     *
+     * @param taskCounts The number of tasks of each type, keyed by type name.
+     * @return The lines, without trailing newlines.
+     */
+    public static List<String> describe(Map<String, Integer> taskCounts) {
+        List<String> lines = new ArrayList<>();
+        lines.add("Tasks: " + describeCounts(taskCounts));
+        lines.add("Latency (ms):        count     mean      p50      p99      max");
+        for (Map.Entry<String, LatencyHistogram> entry : sortedCommands().entrySet()) {
+            lines.add(describeLatency(entry.getKey(), entry.getValue()));
+        }
+        lines.add(describeLatency("parse", parseLatency));
+        lines.add(describeLatency("render", renderLatency));
+        for (IoMetric io : new IoMetric[] {saves, journalAppends, loads}) {
+            lines.add(describeLatency(io.name, io.latency) + "  " + io.bytes.sum() + " bytes");
+        }
+        return lines;
+    }
+
+    /**
+     * Returns the metrics as a JSON object. Durations are in microseconds.
+     *
+     * @param taskCounts The number of tasks of each type, keyed by type name.
+     * @return The JSON text.
+     */
+    public static String toJson(Map<String, Integer> taskCounts) {
+        StringBuilder json = new StringBuilder("{\n  \"tasks\": {");
+        String separator = "";
+        for (Map.Entry<String, Integer> entry : taskCounts.entrySet()) {
+            json.append(separator).append('"').append(entry.getKey()).append("\": ").append(entry.getValue());
+            separator = ", ";
+        }
+        json.append("},\n  \"commands\": {");
+        separator = "\n";
+        for (Map.Entry<String, LatencyHistogram> entry : sortedCommands().entrySet()) {
+            json.append(separator).append("    \"").append(entry.getKey()).append("\": ");
+            appendJson(json, entry.getValue(), "");
+            separator = ",\n";
+        }
+        json.append("\n  },\n  \"parse\": ");
+        appendJson(json, parseLatency, "");
+        json.append(",\n  \"render\": ");
+        appendJson(json, renderLatency, "");
+        for (IoMetric io : new IoMetric[] {saves, journalAppends, loads}) {
+            json.append(",\n  \"").append(io.name).append("\": ");
+            appendJson(json, io.latency, ", \"bytes\": " + io.bytes.sum());
+        }
+        return json.append("\n}\n").toString();
+    }
+
+    /**
+     * Returns the metrics in the Prometheus text exposition format, as summaries in seconds.
+     *
+     * @param taskCounts The number of tasks of each type, keyed by type name.
+     * @return The exposition text.
+     */
+    public static String toPrometheus(Map<String, Integer> taskCounts) {
+        StringBuilder text = new StringBuilder();
+        text.append("# TYPE eddie_tasks gauge\n");
+        for (Map.Entry<String, Integer> entry : taskCounts.entrySet()) {
+            text.append("eddie_tasks{type=\"").append(entry.getKey()).append("\"} ").append(entry.getValue()).append('\n');
+        }
+        text.append("# TYPE eddie_command_seconds summary\n");
+        for (Map.Entry<String, LatencyHistogram> entry : sortedCommands().entrySet()) {
+            appendSummary(text, "eddie_command_seconds", "command=\"" + entry.getKey() + "\"", entry.getValue());
+        }
+        text.append("# TYPE eddie_parse_seconds summary\n");
+        appendSummary(text, "eddie_parse_seconds", "", parseLatency);
+        text.append("# TYPE eddie_render_seconds summary\n");
+        appendSummary(text, "eddie_render_seconds", "", renderLatency);
+        for (IoMetric io : new IoMetric[] {saves, journalAppends, loads}) {
+            text.append("# TYPE eddie_").append(io.name).append("_seconds summary\n");
+            appendSummary(text, "eddie_" + io.name + "_seconds", "", io.latency);
+            text.append("# TYPE eddie_").append(io.name).append("_bytes_total counter\n");
+            text.append("eddie_").append(io.name).append("_bytes_total ").append(io.bytes.sum()).append('\n');
+        }
+        return text.toString();
+    }
+
+    /**
+     * Writes the metrics to a file, as JSON if its name ends in ".json" and as Prometheus
+     * text otherwise.
+     *
+     * @param path       The file to write.
+     * @param taskCounts The number of tasks of each type, keyed by type name.
+     * @throws IOException If the file cannot be written.
+     */
+    public static void writeTo(Path path, Map<String, Integer> taskCounts) throws IOException {
+        String contents = path.toString().endsWith(".json") ? toJson(taskCounts) : toPrometheus(taskCounts);
+        Files.writeString(path, contents, StandardCharsets.UTF_8);
+    }
+
+    private static Map<String, LatencyHistogram> sortedCommands() {
+        return new TreeMap<>(commandLatencies);
+    }
+
+    private static String describeCounts(Map<String, Integer> taskCounts) {
+        if (taskCounts.isEmpty()) {
+            return "none";
+        }
+        StringBuilder counts = new StringBuilder();
+        for (Map.Entry<String, Integer> entry : taskCounts.entrySet()) {
+            counts.append(counts.length() == 0 ? "" : ", ").append(entry.getKey()).append(' ').append(entry.getValue());
+        }
+        return counts.toString();
+    }
+
+    private static String describeLatency(String name, LatencyHistogram histogram) {
+        long count = histogram.getCount();
+        double mean = (count == 0) ? 0 : (double) histogram.getSumNanos() / count;
+        return String.format(Locale.ROOT, "%-18s %7d %8.3f %8.3f %8.3f %8.3f", name, count, mean / 1e6,
+                histogram.getPercentileNanos(0.5) / 1e6, histogram.getPercentileNanos(0.99) / 1e6,
+                histogram.getMaxNanos() / 1e6);
+    }
+
+    private static void appendJson(StringBuilder json, LatencyHistogram histogram, String extraFields) {
+        long count = histogram.getCount();
+        json.append("{\"count\": ").append(count)
+                .append(", \"meanMicros\": ").append((count == 0) ? 0 : histogram.getSumNanos() / count / 1000)
+                .append(", \"p50Micros\": ").append(histogram.getPercentileNanos(0.5) / 1000)
+                .append(", \"p99Micros\": ").append(histogram.getPercentileNanos(0.99) / 1000)
+                .append(", \"maxMicros\": ").append(histogram.getMaxNanos() / 1000)
+                .append(extraFields)
+                .append('}');
+    }
+
+    private static void appendSummary(StringBuilder text, String name, String labels, LatencyHistogram histogram) {
+        String prefix = labels.isEmpty() ? "" : labels + ",";
+        for (double quantile : new double[] {0.5, 0.99}) {
+            text.append(name).append("{").append(prefix).append("quantile=\"").append(quantile).append("\"} ")
+                    .append(histogram.getPercentileNanos(quantile) / 1e9).append('\n');
+        }
+        String suffix = labels.isEmpty() ? "" : "{" + labels + "}";
+        text.append(name).append("_sum").append(suffix).append(' ').append(histogram.getSumNanos() / 1e9).append('\n');
+        text.append(name).append("_count").append(suffix).append(' ').append(histogram.getCount()).append('\n');
+    }
+
+    /**
+     * Timings and a byte count for one kind of file access.
+     */
+    private static class IoMetric {
+        private final String name;
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final LongAdder bytes = new LongAdder();
+
+        IoMetric(String name) {
+            this.name = name;
+        }
+
+        void record(long byteCount, long nanos) {
+            latency.record(nanos);
+            bytes.add(byteCount);
+        }
+    }
+}
@@ -3,7 +3,27 @@ package parser;
 import command.*;
 import command.EddieException;
 
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Turns a line of user input into a ready-to-run Command.
+ *
+ * The line is tokenized in one pass: the command word is sliced out by index and only
+ * lowercased when it has capitals, and each command checks its own arguments as it is built.
+ * Parsed commands are immutable, so a small LRU cache returns the same Command for a repeated
+ * line, which is common in scripted input.
+ */
 public class Parser {
+    private static final int CACHE_SIZE = 256;
+    private static final Map<String, Command> recentCommands = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Command> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+
     /**
      * Parses the user input and returns the corresponding command.
      *
@@ -12,9 +32,35 @@ public class Parser {
      * @throws EddieException If the input is invalid.
      */
     public static Command parse(String input) throws EddieException {
-        String[] parts = input.trim().split(" ", 2);
-        String command = parts[0].toLowerCase();
-        String arguments = (parts.length > 1) ? parts[1] : "";
+        Command command;
+        synchronized (recentCommands) {
+            command = recentCommands.get(input);
+        }
+        if (command != null) {
+            return command;
+        }
+        command = parseUncached(input);
+        synchronized (recentCommands) {
+            recentCommands.put(input, command);
+        }
+        return command;
+    }
+
+    private static Command parseUncached(String input) throws EddieException {
+        int end = input.length();
+        while (end > 0 && Character.isWhitespace(input.charAt(end - 1))) {
+            end--;
+        }
+        int start = 0;
+        while (start < end && Character.isWhitespace(input.charAt(start))) {
+            start++;
+        }
+        int wordEnd = input.indexOf(' ', start);
+        if (wordEnd < 0 || wordEnd > end) {
+            wordEnd = end;
+        }
+        String command = toLowerCase(input.substring(start, wordEnd));
+        String arguments = (wordEnd < end) ? input.substring(wordEnd + 1, end) : "";
 
         switch (command) {
         case "todo":
@@ -24,7 +70,7 @@ public class Parser {
         case "event":
             return new AddCommand(arguments, "event");
         case "list":
-            return new ListCommand();
+            return new ListCommand(arguments);
         case "mark":
             return new MarkCommand(arguments, true);
         case "unmark":
@@ -33,10 +79,41 @@ public class Parser {
             return new DeleteCommand(arguments);
         case "find":
             return new FindCommand(arguments);
+        case "filter":
+            return new FilterCommand(arguments);
+        case "query":
+            return new QueryCommand(arguments);
+        case "due":
+            return new ScheduleCommand(arguments, "due");
+        case "between":
+            return new ScheduleCommand(arguments, "between");
+        case "upcoming":
+            return new ScheduleCommand(arguments, "upcoming");
+        case "undo":
+            return new UndoCommand(false);
+        case "redo":
+            return new UndoCommand(true);
+        case "use":
+            return new UseCommand(arguments);
+        case "stats":
+            return new StatsCommand();
+        case "convert":
+            return new ConvertCommand(arguments);
         case "bye":
             return new ExitCommand();
         default:
-            throw new EddieException("Unknown command! Try: todo, deadline, event, list, mark {num}, unmark {num}, delete {num}, or bye.");
+            throw new EddieException("Unknown command! Try: todo, deadline, event, list, mark {num}, "
+                    + "unmark {num}, delete {num}, find, filter, query, due, between, upcoming, undo, "
+                    + "redo, use, stats, convert, or bye.");
+        }
+    }
+
+    private static String toLowerCase(String word) {
+        for (int i = 0; i < word.length(); i++) {
+            if (Character.isUpperCase(word.charAt(i))) {
+                return word.toLowerCase(Locale.ROOT);
+            }
         }
+        return word;
     }
 }
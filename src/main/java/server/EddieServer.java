@@ -0,0 +1,144 @@
+package server;
+
+import command.Command;
+import command.CrossListCommand;
+import command.EddieException;
+import metrics.Metrics;
+import parser.Parser;
+import ui.Ui;
+import workspace.Shard;
+import workspace.Workspace;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Serves the chatbot over TCP so several clients can share one workspace of task lists.
+ *
+ * Each connection gets its own Ui and speaks the same line protocol as the console: one command
+ * per line, with every response framed by {@link Ui#DIVIDER} lines. Each connection starts on
+ * the same list and can switch with {@code use} on its own. Read-only commands run under their
+ * list's read lock, so {@code list} and {@code find} never block each other, and commands on
+ * different lists never block each other at all. Reminders of a list that come due are shown
+ * to the next connection to run a command on it.
+ *
+ * Connections are not authenticated, so the server only listens on the loopback address.
+ */
+public class EddieServer {
+    private final int port;
+    private final Workspace workspace;
+    private final Shard initialShard;
+
+    /**
+     * Constructs a server for a workspace.
+     *
+     * @param port         The port to listen on.
+     * @param workspace    The lists to serve.
+     * @param initialShard The list each connection starts on.
+     */
+    public EddieServer(int port, Workspace workspace, Shard initialShard) {
+        this.port = port;
+        this.workspace = workspace;
+        this.initialShard = initialShard;
+    }
+
+    /**
+     * Accepts connections from this machine until the process is stopped.
+     *
+     * @param ui The console Ui used to report that the server has started.
+     * @throws IOException If the server socket cannot be opened.
+     */
+    public void start(Ui ui) throws IOException {
+        ExecutorService connections = newConnectionExecutor();
+        try (ServerSocket serverSocket = new ServerSocket(port, 0, InetAddress.getLoopbackAddress())) {
+            ui.showServerStarted(serverSocket.getLocalPort());
+            ui.flush();
+            while (true) {
+                Socket socket = serverSocket.accept();
+                connections.submit(() -> serve(socket));
+            }
+        } finally {
+            connections.shutdownNow();
+        }
+    }
+
+    private void serve(Socket socket) {
+        try (socket) {
+            // Responses are small and interactive, so do not let Nagle's algorithm hold them back.
+            socket.setTcpNoDelay(true);
+            Ui ui = new Ui(socket.getInputStream(), socket.getOutputStream());
+            ui.showStartPage();
+            Shard[] shard = {initialShard};
+            boolean isRunning = true;
+            while (isRunning && ui.hasCommand()) {
+                String userInput = ui.readCommand();
+                ui.printLine();
+                isRunning = !execute(userInput, ui, shard);
+                ui.startResponse();
+                if (isRunning) {
+                    ui.showReminders(shard[0].takeDueReminders());
+                }
+                ui.printLine();
+            }
+            ui.flush();
+        } catch (IOException e) {
+            // The client went away; there is nobody left to report to.
+        }
+    }
+
+    /**
+     * Parses and executes one command under the matching task list lock.
+     *
+     * @param shard The connection's list in use, as a one-element array that {@code use} updates.
+     * @return True if the command ends the connection.
+     */
+    private boolean execute(String userInput, Ui ui, Shard[] shard) {
+        try {
+            long start = System.nanoTime();
+            Command command = Parser.parse(userInput);
+            long parsed = System.nanoTime();
+            Metrics.recordParse(parsed - start);
+            try {
+                if (command.getListName() != null) {
+                    shard[0] = workspace.getShard(command.getListName());
+                }
+                if (command instanceof CrossListCommand && ((CrossListCommand) command).isCrossList()) {
+                    ((CrossListCommand) command).executeAcross(workspace, ui);
+                } else {
+                    shard[0].execute(command, ui);
+                }
+            } finally {
+                Metrics.recordCommand(command.getClass().getSimpleName(), System.nanoTime() - parsed);
+            }
+            showFailures(ui);
+            return command.isExit();
+        } catch (EddieException e) {
+            ui.showError(e.getMessage());
+            return false;
+        }
+    }
+
+    private void showFailures(Ui ui) {
+        for (String failure : workspace.takeFailures()) {
+            ui.showError(failure);
+        }
+    }
+
+    /**
+     * Returns an executor that runs each connection on its own virtual thread where the
+     * runtime supports them (Java 21+), or on a pooled platform thread otherwise.
+     */
+    private static ExecutorService newConnectionExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool();
+        }
+    }
+}
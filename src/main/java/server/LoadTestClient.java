@@ -0,0 +1,110 @@
+package server;
+
+import ui.Ui;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.Socket;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Drives an {@link EddieServer} with concurrent clients and reports throughput and latency.
+ *
+ * Usage: {@code LoadTestClient [host] [port] [clients] [commandsPerClient] [readPercent]}.
+ * Reads are {@code find} and {@code list 1}; writes add {@code todo loadtest ...} tasks to the
+ * served list, so point it at a scratch store or use a read percentage of 100.
+ */
+public class LoadTestClient {
+    private static final String[] KEYWORDS = {"book", "meeting", "read", "project", "loadtest"};
+
+    public static void main(String[] args) throws InterruptedException {
+        String host = args.length > 0 ? args[0] : "localhost";
+        int port = args.length > 1 ? Integer.parseInt(args[1]) : 4040;
+        int clients = args.length > 2 ? Integer.parseInt(args[2]) : 16;
+        int commandsPerClient = args.length > 3 ? Integer.parseInt(args[3]) : 1000;
+        int readPercent = args.length > 4 ? Integer.parseInt(args[4]) : 90;
+
+        long[][] latencies = new long[clients][];
+        CountDownLatch done = new CountDownLatch(clients);
+        long start = System.nanoTime();
+        for (int i = 0; i < clients; i++) {
+            int client = i;
+            Thread thread = new Thread(() -> {
+                try {
+                    latencies[client] = runClient(host, port, client, commandsPerClient, readPercent);
+                } catch (IOException e) {
+                    System.out.println("Client " + client + " failed: " + e.getMessage());
+                    latencies[client] = new long[0];
+                } finally {
+                    done.countDown();
+                }
+            });
+            thread.start();
+        }
+        done.await();
+        long elapsed = System.nanoTime() - start;
+
+        long[] all = Arrays.stream(latencies).flatMapToLong(Arrays::stream).sorted().toArray();
+        if (all.length == 0) {
+            System.out.println("No commands completed.");
+            return;
+        }
+        System.out.printf("Commands: %d from %d clients in %.2f s%n", all.length, clients, elapsed / 1e9);
+        System.out.printf("Throughput: %.0f commands/s%n", all.length / (elapsed / 1e9));
+        System.out.printf("Latency: p50 %.3f ms, p99 %.3f ms, max %.3f ms%n",
+                percentile(all, 50) / 1e6, percentile(all, 99) / 1e6, all[all.length - 1] / 1e6);
+    }
+
+    private static long[] runClient(String host, int port, int client, int commands, int readPercent)
+            throws IOException {
+        long[] latencies = new long[commands];
+        Random random = new Random(client);
+        try (Socket socket = new Socket(host, port);
+                BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+                PrintWriter out = new PrintWriter(socket.getOutputStream(), true)) {
+            socket.setTcpNoDelay(true);
+            // The start page is also framed by two dividers.
+            skipPast(in, 2);
+            for (int i = 0; i < commands; i++) {
+                String command;
+                if (random.nextInt(100) < readPercent) {
+                    command = random.nextBoolean() ? "list 1" : "find " + KEYWORDS[random.nextInt(KEYWORDS.length)];
+                } else {
+                    command = "todo loadtest " + client + "-" + i;
+                }
+                long sent = System.nanoTime();
+                out.println(command);
+                // A response is framed by two dividers; the first may carry the "You: " prompt.
+                skipPast(in, 2);
+                latencies[i] = System.nanoTime() - sent;
+            }
+            out.println("bye");
+        }
+        return latencies;
+    }
+
+    /**
+     * Reads lines until the given number of divider lines have been seen.
+     */
+    private static void skipPast(BufferedReader in, int dividers) throws IOException {
+        int seen = 0;
+        while (seen < dividers) {
+            String line = in.readLine();
+            if (line == null) {
+                throw new IOException("server closed the connection");
+            }
+            if (line.endsWith(Ui.DIVIDER)) {
+                seen++;
+            }
+        }
+    }
+
+    private static long percentile(long[] sorted, int percent) {
+        int index = (int) Math.ceil(percent / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, index)];
+    }
+}
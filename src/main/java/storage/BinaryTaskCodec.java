@@ -0,0 +1,292 @@
+package storage;
+
+import command.EddieException;
+import task.Deadline;
+import task.Event;
+import task.Occurrence;
+import task.Recurring;
+import task.Task;
+import task.Todo;
+import ui.ErrorMessages;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Reads and writes the binary task file format.
+ *
+ * The file starts with {@link #MAGIC} and a version byte. Each task is then one tag byte
+ * holding the type letter with the done flag in its top bit, the task ID as a varint (from
+ * version 2), a varint byte length and the UTF-8 description, followed by one long of epoch
+ * minutes (UTC) per date: {@code by} for deadlines, {@code from} and {@code to} for events.
+ * A recurring task adds the start and end of its first occurrence, its interval as a varint,
+ * its unit letter, its last day as a varint of epoch day + 1 (0 for none), and the words of
+ * its done-occurrence bits as a varint count followed by longs.
+ *
+ * From version 3 the tasks are followed by an {@link #END_TAG} byte, the task count as a
+ * varint and the CRC-32 of every byte up to and including the end tag, so a torn file is
+ * detected. From version 4 the count is followed by the next ID to give out as a varint, which
+ * stays above the IDs of deleted tasks so they are never reused. Reading stops at the first
+ * damaged record and keeps the tasks before it.
+ */
+class BinaryTaskCodec {
+    private static final byte[] MAGIC = {(byte) 0xED, 'D', 'B'};
+    private static final int VERSION_WITHOUT_IDS = 1;
+    private static final int VERSION_WITHOUT_TRAILER = 2;
+    private static final int VERSION_WITHOUT_NEXT_ID = 3;
+    private static final int VERSION = 4;
+    private static final int END_TAG = 0;
+    private static final int DONE_BIT = 0x80;
+
+    /**
+     * Returns whether the file starts with the binary magic header.
+     *
+     * @param path The task file.
+     * @return True if the file is in the binary format.
+     * @throws IOException If the file cannot be read.
+     */
+    static boolean isBinary(Path path) throws IOException {
+        try (InputStream in = Files.newInputStream(path)) {
+            return Arrays.equals(in.readNBytes(MAGIC.length), MAGIC);
+        }
+    }
+
+    /**
+     * Writes the magic header and every task.
+     *
+     * @param tasks  The tasks to write.
+     * @param nextId The next ID to give out.
+     * @param out    The stream to write to; it is flushed but not closed.
+     * @throws IOException If writing fails.
+     */
+    static void write(List<Task> tasks, long nextId, OutputStream out) throws IOException {
+        CRC32 checksum = new CRC32();
+        DataOutputStream data = new DataOutputStream(new CheckedOutputStream(out, checksum));
+        data.write(MAGIC);
+        data.writeByte(VERSION);
+        for (Task task : tasks) {
+            writeTask(task, data);
+        }
+        data.writeByte(END_TAG);
+        int endChecksum = (int) checksum.getValue();
+        writeVarLong(tasks.size(), data);
+        writeVarLong(nextId, data);
+        data.writeInt(endChecksum);
+        data.flush();
+    }
+
+    /**
+     * Reads every task in a binary file, up to the first damaged record.
+     *
+     * @param path     The task file.
+     * @param checksum Updated with the file's bytes, or null if not needed.
+     * @param problems Receives a message if the file is damaged or incomplete.
+     * @param nextId   A one-element array that receives the stored next ID, or 0 if there is none.
+     * @return The tasks in file order.
+     * @throws EddieException If the file cannot be read or has no valid header.
+     */
+    static ArrayList<Task> read(Path path, CRC32 checksum, List<String> problems, long[] nextId)
+            throws EddieException {
+        ArrayList<Task> tasks = new ArrayList<>();
+        try (InputStream file = Files.newInputStream(path)) {
+            InputStream in = (checksum == null) ? file : new CheckedInputStream(file, checksum);
+            CRC32 contentChecksum = new CRC32();
+            DataInputStream data = new DataInputStream(
+                    new CheckedInputStream(new BufferedInputStream(in), contentChecksum));
+            if (!Arrays.equals(data.readNBytes(MAGIC.length), MAGIC)) {
+                throw new EddieException(ErrorMessages.TASK_LOAD_FAILED + "missing binary header");
+            }
+            int version = data.readUnsignedByte();
+            if (version < VERSION_WITHOUT_IDS || version > VERSION) {
+                throw new EddieException(ErrorMessages.TASK_LOAD_FAILED + "unsupported binary version " + version);
+            }
+            nextId[0] = readTasks(data, version, contentChecksum, tasks, problems);
+        } catch (IOException e) {
+            throw new EddieException(ErrorMessages.TASK_LOAD_FAILED + e.getMessage());
+        }
+        return tasks;
+    }
+
+    /**
+     * Reads tasks up to the end tag, checking the trailer after it.
+     *
+     * @return The stored next ID, or 0 if the file predates it or its trailer does not match.
+     */
+    private static long readTasks(DataInputStream data, int version, CRC32 contentChecksum,
+            ArrayList<Task> tasks, List<String> problems) throws IOException {
+        try {
+            int tag;
+            while ((tag = data.read()) != -1) {
+                if (tag == END_TAG && version > VERSION_WITHOUT_TRAILER) {
+                    long expected = contentChecksum.getValue();
+                    long count = readVarLong(data);
+                    long nextId = (version > VERSION_WITHOUT_NEXT_ID) ? readVarLong(data) : 0;
+                    if (count != tasks.size() || (data.readInt() & 0xFFFFFFFFL) != expected) {
+                        problems.add(ErrorMessages.TASK_FILE_INCOMPLETE);
+                        return 0;
+                    }
+                    return nextId;
+                }
+                long id = (version >= VERSION_WITHOUT_TRAILER) ? readVarLong(data) : 0;
+                Task task = readTask(tag, data);
+                task.setId(id);
+                tasks.add(task);
+            }
+            if (version > VERSION_WITHOUT_TRAILER) {
+                problems.add(ErrorMessages.TASK_FILE_INCOMPLETE);
+            }
+        } catch (EOFException e) {
+            problems.add(ErrorMessages.TASK_FILE_INCOMPLETE);
+        } catch (EddieException e) {
+            problems.add(ErrorMessages.TASK_RECORD_SKIPPED + (tasks.size() + 1) + ": " + e.getMessage());
+        }
+        return 0;
+    }
+
+    private static void writeTask(Task task, DataOutputStream data) throws IOException {
+        if (task instanceof Occurrence) {
+            task = ((Occurrence) task).getSeries();
+        }
+        char type = task.getTaskType().charAt(1);
+        data.writeByte(type | (task.isDone() ? DONE_BIT : 0));
+        writeVarLong(task.getId(), data);
+
+        byte[] description = task.getDescription().getBytes(StandardCharsets.UTF_8);
+        writeVarInt(description.length, data);
+        data.write(description);
+
+        if (task instanceof Deadline) {
+            data.writeLong(toEpochMinute(((Deadline) task).getBy()));
+        } else if (task instanceof Event) {
+            data.writeLong(toEpochMinute(((Event) task).getFrom()));
+            data.writeLong(toEpochMinute(((Event) task).getTo()));
+        } else if (task instanceof Recurring) {
+            writeRecurrence((Recurring) task, data);
+        }
+    }
+
+    private static Task readTask(int tag, DataInputStream data) throws IOException, EddieException {
+        boolean isDone = (tag & DONE_BIT) != 0;
+        char type = (char) (tag & ~DONE_BIT);
+        byte[] description = new byte[readVarInt(data)];
+        data.readFully(description);
+        String text = new String(description, StandardCharsets.UTF_8);
+
+        switch (type) {
+        case 'T':
+            return new Todo(text, isDone);
+        case 'D':
+            return new Deadline(text, fromEpochMinute(data.readLong()), isDone);
+        case 'E':
+            LocalDateTime from = fromEpochMinute(data.readLong());
+            LocalDateTime to = fromEpochMinute(data.readLong());
+            return new Event(text, from, to, isDone);
+        case 'R':
+            return readRecurrence(text, data);
+        default:
+            throw new EddieException(ErrorMessages.TASK_TYPE_UNKNOWN + type);
+        }
+    }
+
+    private static void writeRecurrence(Recurring task, DataOutputStream data) throws IOException {
+        data.writeLong(toEpochMinute(task.getFirstStart()));
+        data.writeLong(toEpochMinute(task.getFirstEnd()));
+        writeVarInt(task.getInterval(), data);
+        data.writeByte(task.getUnit().name().charAt(0));
+        writeVarLong((task.getUntil() == null) ? 0 : task.getUntil().toEpochDay() + 1, data);
+        long[] words = task.getCompleted().toLongArray();
+        writeVarInt(words.length, data);
+        for (long word : words) {
+            data.writeLong(word);
+        }
+    }
+
+    private static Task readRecurrence(String text, DataInputStream data) throws IOException, EddieException {
+        LocalDateTime firstStart = fromEpochMinute(data.readLong());
+        LocalDateTime firstEnd = fromEpochMinute(data.readLong());
+        int interval = readVarInt(data);
+        ChronoUnit unit;
+        switch (data.readUnsignedByte()) {
+        case 'D':
+            unit = ChronoUnit.DAYS;
+            break;
+        case 'W':
+            unit = ChronoUnit.WEEKS;
+            break;
+        case 'M':
+            unit = ChronoUnit.MONTHS;
+            break;
+        default:
+            throw new EddieException(ErrorMessages.TASK_PARSING_ERROR + text);
+        }
+        long until = readVarLong(data);
+        long[] words = new long[readVarInt(data)];
+        for (int i = 0; i < words.length; i++) {
+            words[i] = data.readLong();
+        }
+        if (!Recurring.isValidRule(firstStart, interval, unit, (until == 0) ? null : LocalDate.ofEpochDay(until - 1))) {
+            throw new EddieException(ErrorMessages.TASK_PARSING_ERROR + text);
+        }
+        return new Recurring(text, firstStart, firstEnd, interval, unit,
+                (until == 0) ? null : LocalDate.ofEpochDay(until - 1), BitSet.valueOf(words));
+    }
+
+    private static void writeVarInt(int value, DataOutputStream data) throws IOException {
+        writeVarLong(value, data);
+    }
+
+    private static void writeVarLong(long value, DataOutputStream data) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            data.writeByte((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        data.writeByte((int) value);
+    }
+
+    private static int readVarInt(DataInputStream data) throws IOException {
+        long value = readVarLong(data);
+        if (value > Integer.MAX_VALUE) {
+            throw new IOException("malformed length");
+        }
+        return (int) value;
+    }
+
+    private static long readVarLong(DataInputStream data) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = data.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("malformed varint");
+    }
+
+    private static long toEpochMinute(LocalDateTime dateTime) {
+        return dateTime.toEpochSecond(ZoneOffset.UTC) / 60;
+    }
+
+    private static LocalDateTime fromEpochMinute(long epochMinute) {
+        return LocalDateTime.ofEpochSecond(epochMinute * 60, 0, ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,154 @@
+package storage;
+
+import command.EddieException;
+import task.Task;
+import tasklist.TaskSource;
+import ui.ErrorMessages;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+/**
+ * A text task file opened for lazy loading. The file's bytes are read into memory once and only
+ * the offset and ID of each line are indexed up front; a task is decoded from those bytes when
+ * it is asked for.
+ *
+ * Only a file under 2 GB that ends with a valid trailer and has ascending IDs on every line can
+ * be opened this way, since a damaged line would otherwise only show up when it is first used.
+ */
+class LazyTaskFile implements TaskSource {
+    private final ByteBuffer buffer;
+    private final int[] lineStarts;
+    private final long[] ids;
+    private final int count;
+    private final long nextId;
+
+    private LazyTaskFile(ByteBuffer buffer, int[] lineStarts, long[] ids, int count, long nextId) {
+        this.buffer = buffer;
+        this.lineStarts = lineStarts;
+        this.ids = ids;
+        this.count = count;
+        this.nextId = nextId;
+    }
+
+    /**
+     * Indexes the lines of a text task file.
+     *
+     * @param path     The task file.
+     * @param checksum A new CRC32, updated with the file's bytes.
+     * @return The indexed file, or null if it cannot be loaded lazily.
+     * @throws EddieException If the file cannot be read.
+     */
+    static LazyTaskFile open(Path path, CRC32 checksum) throws EddieException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size == 0 || size > Integer.MAX_VALUE) {
+                return null;
+            }
+            int limit = (int) size;
+            ByteBuffer buffer = ByteBuffer.allocate(limit);
+            TaskFileReader.readRegion(channel, buffer, 0, limit);
+            int[] lineStarts = new int[1024];
+            long[] ids = new long[1024];
+            int count = 0;
+            int position = 0;
+            while (position < limit && buffer.get(position) != '#') {
+                long id = 0;
+                int i = position;
+                while (i < limit && buffer.get(i) >= '0' && buffer.get(i) <= '9') {
+                    id = id * 10 + (buffer.get(i) - '0');
+                    i++;
+                }
+                int end = indexOfNewline(buffer, i, limit);
+                if (i == position || end == limit || (count > 0 && id <= ids[count - 1])) {
+                    return null;
+                }
+                if (count + 1 == lineStarts.length) {
+                    lineStarts = Arrays.copyOf(lineStarts, lineStarts.length * 2);
+                    ids = Arrays.copyOf(ids, ids.length * 2);
+                }
+                lineStarts[count] = position;
+                ids[count] = id;
+                count++;
+                position = end + 1;
+            }
+            if (position == limit) {
+                return null;
+            }
+
+            checksum.update(buffer.slice(0, position));
+            int trailerEnd = indexOfNewline(buffer, position, limit);
+            if (trailerEnd < limit - 1) {
+                return null;
+            }
+            int trailerLength = (trailerEnd > position && buffer.get(trailerEnd - 1) == '\r')
+                    ? trailerEnd - 1 - position : trailerEnd - position;
+            byte[] trailer = new byte[trailerLength];
+            buffer.get(position, trailer);
+            String trailerText = new String(trailer, StandardCharsets.UTF_8);
+            if (!TaskFileReader.isValidTrailer(trailerText, count, checksum.getValue())) {
+                return null;
+            }
+            checksum.update(buffer.slice(position, limit - position));
+            lineStarts[count] = position;
+            return new LazyTaskFile(buffer, lineStarts, ids, count, TaskFileReader.nextIdOf(trailerText));
+        } catch (IOException e) {
+            throw new EddieException(ErrorMessages.TASK_LOAD_FAILED + e.getMessage());
+        }
+    }
+
+    @Override
+    public int size() {
+        return count;
+    }
+
+    @Override
+    public int recordOf(long id) {
+        int record = Arrays.binarySearch(ids, 0, count, id);
+        return Math.max(record, -1);
+    }
+
+    @Override
+    public long maxId() {
+        return (count == 0) ? 0 : ids[count - 1];
+    }
+
+    /**
+     * Returns the next ID stored in the trailer.
+     *
+     * @return The next ID to give out, or 0 if the file predates storing it.
+     */
+    long getNextId() {
+        return nextId;
+    }
+
+    @Override
+    public Task load(int record) {
+        int start = lineStarts[record];
+        int end = lineStarts[record + 1] - 1;
+        if (end > start && buffer.get(end - 1) == '\r') {
+            end--;
+        }
+        try {
+            return TaskFileReader.parseRecord(buffer.slice(start, end - start));
+        } catch (EddieException e) {
+            // The trailer vouched for every line, so the bytes in memory have gone bad.
+            throw new IllegalStateException(e.getMessage());
+        }
+    }
+
+    private static int indexOfNewline(ByteBuffer buffer, int from, int limit) {
+        for (int i = from; i < limit; i++) {
+            if (buffer.get(i) == '\n') {
+                return i;
+            }
+        }
+        return limit;
+    }
+}
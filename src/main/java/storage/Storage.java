@@ -1,78 +1,995 @@
 package storage;
 
+import task.DateFormats;
 import task.Task;
 import task.Todo;
 import task.Deadline;
 import task.Event;
+import task.Recurring;
+import tasklist.Change;
 import tasklist.TaskList;
 import command.EddieException;
+import metrics.Metrics;
 import ui.ErrorMessages;
 
 import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
 
+/**
+ * Loads and saves tasks to a file.
+ *
+ * Each task is stored with its stable ID; tasks from files written before IDs existed are
+ * numbered in file order when loaded. Every snapshot also stores the list's next ID, so the ID
+ * of a deleted task is not given to a new one after a restart.
+ *
+ * In journaled mode, each mutation is appended to a journal file next to the task file
+ * instead of rewriting the whole file. The journal starts with a header naming the checksum
+ * of the snapshot it applies to, and is folded back into the snapshot in the background once
+ * it grows past {@link #COMPACTION_THRESHOLD_BYTES}. Journal records refer to tasks by ID,
+ * except that a task put back into the middle of the list also records its position.
+ */
 public class Storage {
+    private static final long COMPACTION_THRESHOLD_BYTES = 1 << 20;
+    private static final long SHUTDOWN_FLUSH_TIMEOUT_MILLIS = 1000;
+    private static final String JOURNAL_HEADER = "#2 ";
+    private static final String LEGACY_JOURNAL_HEADER = "# ";
+    private static final String RECORD_ADD = "A";
+    private static final String RECORD_MARK = "M";
+    private static final String RECORD_UNMARK = "U";
+    private static final String RECORD_DELETE = "X";
+    private static final String RECORD_INSERT = "I";
+    private static final String RECORD_OCCURRENCE = "O";
+
     private final String filePath;
-    private static final DateTimeFormatter dateTimeFormat = DateTimeFormatter.ofPattern("yyyy-MM-dd HHmm");
+    private final boolean isJournaled;
+
+    private volatile TaskFileFormat format = TaskFileFormat.TEXT;
+    private final ExecutorService compactor;
+    private Future<?> pendingCompaction;
+    private BufferedWriter journalWriter;
+    private long journalSize;
+    private long snapshotChecksum;
+    private volatile long nextId = 1;
+    private boolean isBatching;
+    private boolean isBatchDirty;
+    private WriteBehindPersister writeBehind;
+    private int loadParallelism = Runtime.getRuntime().availableProcessors();
+    private final Queue<String> failures = new ConcurrentLinkedQueue<>();
 
     public Storage(String filePath) {
+        this(filePath, false);
+    }
+
+    /**
+     * Constructs a Storage for the given file.
+     *
+     * @param filePath    The path of the task file.
+     * @param isJournaled True to append mutations to a journal instead of rewriting the file.
+     */
+    public Storage(String filePath, boolean isJournaled) {
         this.filePath = filePath;
+        this.isJournaled = isJournaled;
+        this.compactor = isJournaled ? Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "eddie-compactor");
+            thread.setDaemon(true);
+            return thread;
+        }) : null;
+    }
+
+    /**
+     * Loads the task list lazily: only an index of the file is read now, and each task is
+     * decoded when it is first used. Falls back to {@link #loadTask()} for files that cannot
+     * be indexed safely, such as binary files or files without a valid checksum trailer.
+     *
+     * @return The task list.
+     * @throws EddieException If the file cannot be read.
+     */
+    public TaskList loadLazily() throws EddieException {
+        File file = new File(filePath);
+        if (!file.exists()) {
+            createFile();
+        }
+
+        long start = System.nanoTime();
+        CRC32 checksum = new CRC32();
+        LazyTaskFile source = LazyTaskFile.open(file.toPath(), checksum);
+        if (source == null) {
+            return new TaskList(loadTask());
+        }
+        format = TaskFileFormat.TEXT;
+        nextId = Math.max(source.getNextId(), source.maxId() + 1);
+        TaskList tasks = new TaskList(source);
+        if (isJournaled) {
+            synchronized (this) {
+                snapshotChecksum = checksum.getValue();
+                List<String> records = openCurrentJournal();
+                if (records != null && !records.get(0).startsWith(JOURNAL_HEADER)) {
+                    return new TaskList(loadTask());
+                }
+                if (records != null) {
+                    replayInto(tasks, records);
+                }
+            }
+            nextId = Math.max(nextId, tasks.getNextId());
+        }
+        Metrics.recordLoad(file.length(), System.nanoTime() - start);
+        return tasks;
+    }
+
+    /**
+     * Sets how many threads parse a text task file on load. Defaults to the number of processors.
+     *
+     * @param parallelism The thread count; 1 loads on the calling thread.
+     */
+    public void setLoadParallelism(int parallelism) {
+        loadParallelism = Math.max(1, parallelism);
+    }
+
+    /**
+     * Returns the ID the list should give its next new task, as stored with the tasks last
+     * loaded. Pass it to {@link TaskList#reserveIds} so IDs of deleted tasks are not reused.
+     *
+     * @return The next ID.
+     */
+    public long getNextId() {
+        return nextId;
     }
 
     public ArrayList<Task> loadTask() throws EddieException {
-        ArrayList<Task> tasks = new ArrayList<>();
+        long start = System.nanoTime();
+        ArrayList<Task> tasks = readTasks();
+        Metrics.recordLoad(new File(filePath).length(), System.nanoTime() - start);
+        return tasks;
+    }
+
+    private ArrayList<Task> readTasks() throws EddieException {
         File file = new File(filePath);
 
         if (!file.exists()) {
             createFile();
+        }
+
+        CRC32 checksum = isJournaled ? new CRC32() : null;
+        List<String> problems = new ArrayList<>();
+        long[] storedNextId = {0};
+        ArrayList<Task> tasks;
+        try {
+            format = BinaryTaskCodec.isBinary(file.toPath()) ? TaskFileFormat.BINARY : TaskFileFormat.TEXT;
+        } catch (IOException e) {
+            throw new EddieException(ErrorMessages.TASK_LOAD_FAILED + e.getMessage());
+        }
+        if (format == TaskFileFormat.BINARY) {
+            tasks = BinaryTaskCodec.read(file.toPath(), checksum, problems, storedNextId);
+        } else {
+            tasks = TaskFileReader.read(file.toPath(), checksum, problems, loadParallelism, storedNextId);
+        }
+        problems.forEach(this::reportFailure);
+        nextId = Math.max(1, storedNextId[0]);
+
+        if (!isJournaled) {
+            assignMissingIds(tasks);
             return tasks;
         }
+        synchronized (this) {
+            snapshotChecksum = checksum.getValue();
+            return replayJournal(tasks);
+        }
+    }
+
+    /**
+     * Replaces the task file with the given tasks. The live file is never truncated: the new
+     * contents are written and fsync'd beside it, then moved over it in one atomic step.
+     *
+     * @param tasks The full task list.
+     */
+    public void saveTasks(ArrayList<Task> tasks) {
+        if (deferToBatch()) {
+            return;
+        }
+        try {
+            persistSnapshot(tasks);
+        } catch (IOException e) {
+            reportFailure(ErrorMessages.SAVE_TASK_FAILED + e.getMessage());
+        }
+    }
+
+    /**
+     * Starts deferring persistence. Until {@link #commitBatch} is called, saves and
+     * journal records only mark the batch dirty.
+     */
+    public synchronized void beginBatch() {
+        isBatching = true;
+        isBatchDirty = false;
+    }
+
+    /**
+     * Ends the current batch, writing the task list once if anything changed. The file is
+     * replaced with a single atomic move, so either the whole batch is persisted or none of it.
+     *
+     * @param tasks The full task list at the end of the batch.
+     */
+    public void commitBatch(ArrayList<Task> tasks) {
+        boolean isDirty;
+        synchronized (this) {
+            isDirty = isBatchDirty;
+            isBatching = false;
+            isBatchDirty = false;
+        }
+        if (!isDirty) {
+            return;
+        }
+        try {
+            persistSnapshot(tasks);
+        } catch (IOException e) {
+            reportFailure(ErrorMessages.SAVE_TASK_FAILED + e.getMessage());
+        }
+    }
 
-        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                tasks.add(parseTask(line));
+    /**
+     * Switches to write-behind persistence: changes only mark the task list dirty, and a
+     * background thread writes it out at most {@code maxDelayMillis} later. Anything still
+     * pending is written by {@link #flush()}, {@link #close()} or at JVM shutdown.
+     *
+     * @param maxDelayMillis The longest a change may wait before being written.
+     */
+    public void enableWriteBehind(long maxDelayMillis) {
+        writeBehind = new WriteBehindPersister(this, maxDelayMillis);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            writeBehind.flush(SHUTDOWN_FLUSH_TIMEOUT_MILLIS);
+            for (String failure : takeFailures()) {
+                System.out.println(failure);
             }
+        }, "eddie-shutdown-flush"));
+    }
+
+    /**
+     * Writes out any changes still held back by write-behind persistence.
+     * The caller may hold the task list's lock.
+     */
+    public void flush() {
+        if (writeBehind != null) {
+            writeBehind.flush(Long.MAX_VALUE);
+        }
+    }
+
+    /**
+     * Returns and clears the save failures reported since the last call, so they can be
+     * shown through the Ui by whoever runs the next command.
+     *
+     * @return The failure messages, oldest first.
+     */
+    public List<String> takeFailures() {
+        List<String> taken = new ArrayList<>();
+        String failure;
+        while ((failure = failures.poll()) != null) {
+            taken.add(failure);
+        }
+        return taken;
+    }
+
+    /**
+     * Returns the encoding used when the task file is next written.
+     *
+     * @return The current file format.
+     */
+    public TaskFileFormat getFormat() {
+        return format;
+    }
+
+    /**
+     * Rewrites the task file in the given format. Later saves keep using that format.
+     *
+     * @param newFormat The format to convert to.
+     * @param tasks     The full task list.
+     */
+    public void convertTo(TaskFileFormat newFormat, ArrayList<Task> tasks) {
+        awaitCompaction();
+        synchronized (this) {
+            format = newFormat;
+        }
+        saveTasks(tasks);
+    }
+
+    /**
+     * Persists a newly added task.
+     *
+     * @param task  The task that was appended to the list.
+     * @param tasks The task list after the change.
+     */
+    public void recordAdd(Task task, TaskList tasks) {
+        nextId = tasks.getNextId();
+        if (deferToBatch()) {
+            return;
+        }
+        if (writeBehind != null) {
+            writeBehind.markDirty(tasks);
+            return;
+        }
+        if (!isJournaled) {
+            saveTasks(tasks.getAllTasks());
+            return;
+        }
+        appendRecord(RECORD_ADD + " | " + toRecord(task), tasks);
+    }
+
+    /**
+     * Persists the changes made by one command together, with a single write.
+     *
+     * @param changes The changes, in the order they were applied.
+     * @param tasks   The task list after the changes.
+     */
+    public void recordChanges(List<Change> changes, TaskList tasks) {
+        nextId = tasks.getNextId();
+        if (changes.isEmpty() || deferToBatch()) {
+            return;
+        }
+        if (writeBehind != null) {
+            writeBehind.markDirty(tasks);
+            return;
+        }
+        if (!isJournaled) {
+            saveTasks(tasks.getAllTasks());
+            return;
+        }
+        // Work out the list size before each change, so tasks added at the end get plain add records.
+        int size = tasks.size();
+        for (Change change : changes) {
+            if (change.getKind() == Change.Kind.ADD) {
+                size--;
+            } else if (change.getKind() == Change.Kind.DELETE) {
+                size++;
+            }
+        }
+        List<String> records = new ArrayList<>(changes.size());
+        for (Change change : changes) {
+            Task task = change.getTask();
+            switch (change.getKind()) {
+            case ADD:
+                records.add((change.getPosition() >= size)
+                        ? RECORD_ADD + " | " + toRecord(task)
+                        : RECORD_INSERT + " | " + change.getPosition() + " | " + toRecord(task));
+                size++;
+                break;
+            case DELETE:
+                records.add(RECORD_DELETE + " | " + task.getId());
+                size--;
+                break;
+            case MARK_OCCURRENCE:
+                records.add(RECORD_OCCURRENCE + " | " + task.getId() + " | " + change.getOccurrence()
+                        + " | " + (change.isDone() ? "1" : "0"));
+                break;
+            default:
+                records.add((change.isDone() ? RECORD_MARK : RECORD_UNMARK) + " | " + task.getId());
+                break;
+            }
+        }
+        appendRecords(records, tasks);
+    }
+
+    /**
+     * Persists a change to a task's done status.
+     *
+     * @param id     The ID of the task.
+     * @param isDone The new done status.
+     * @param tasks  The task list after the change.
+     */
+    public void recordMark(long id, boolean isDone, TaskList tasks) {
+        nextId = tasks.getNextId();
+        if (deferToBatch()) {
+            return;
+        }
+        if (writeBehind != null) {
+            writeBehind.markDirty(tasks);
+            return;
+        }
+        if (!isJournaled) {
+            saveTasks(tasks.getAllTasks());
+            return;
+        }
+        appendRecord((isDone ? RECORD_MARK : RECORD_UNMARK) + " | " + id, tasks);
+    }
+
+    /**
+     * Persists the removal of a task.
+     *
+     * @param id    The ID of the removed task.
+     * @param tasks The task list after the change.
+     */
+    public void recordDelete(long id, TaskList tasks) {
+        nextId = tasks.getNextId();
+        if (deferToBatch()) {
+            return;
+        }
+        if (writeBehind != null) {
+            writeBehind.markDirty(tasks);
+            return;
+        }
+        if (!isJournaled) {
+            saveTasks(tasks.getAllTasks());
+            return;
+        }
+        appendRecord(RECORD_DELETE + " | " + id, tasks);
+    }
+
+    /**
+     * Writes out pending changes, waits for any background compaction and releases the journal.
+     */
+    public void close() {
+        if (writeBehind != null) {
+            writeBehind.flush(Long.MAX_VALUE);
+            writeBehind.shutdown();
+        }
+        if (!isJournaled) {
+            return;
+        }
+        awaitCompaction();
+        compactor.shutdown();
+        synchronized (this) {
+            closeJournalWriter();
+        }
+    }
+
+    /**
+     * Replaces the task file with a snapshot of the tasks, written to a temporary file, fsync'd
+     * and moved into place. In journaled mode the journal is reset to match.
+     *
+     * @param tasks The tasks to write.
+     * @throws IOException If the snapshot cannot be written.
+     */
+    void persistSnapshot(List<Task> tasks) throws IOException {
+        persistSnapshot(encodeSnapshot(tasks));
+    }
+
+    /**
+     * Replaces the task file with an encoded snapshot, as {@link #persistSnapshot(List)} does.
+     *
+     * @param contents The snapshot, from {@link #encodeSnapshot(List)}.
+     * @throws IOException If the snapshot cannot be written.
+     */
+    void persistSnapshot(byte[] contents) throws IOException {
+        if (isJournaled) {
+            awaitCompaction();
+            synchronized (this) {
+                swapSnapshot(writeSnapshot(contents, tempSnapshotPath()), new byte[0]);
+            }
+            return;
+        }
+        synchronized (this) {
+            writeSnapshot(contents, tempSnapshotPath());
+            Files.move(tempSnapshotPath(), Path.of(filePath),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            forceParentDirectory();
+        }
+    }
+
+    /**
+     * Makes the renames into the task file's directory durable. Not every platform can
+     * sync a directory, and the rename itself is already atomic, so failures are ignored.
+     */
+    private void forceParentDirectory() {
+        Path parent = Path.of(filePath).toAbsolutePath().getParent();
+        try (FileChannel directory = FileChannel.open(parent, StandardOpenOption.READ)) {
+            directory.force(true);
         } catch (IOException e) {
-            throw new EddieException(ErrorMessages.TASK_LOAD_FAILED + e.getMessage());
+            // Best effort only.
+        }
+    }
+
+    void reportFailure(String message) {
+        failures.add(message);
+    }
+
+    private synchronized boolean deferToBatch() {
+        if (isBatching) {
+            isBatchDirty = true;
+        }
+        return isBatching;
+    }
+
+    private void appendRecord(String record, TaskList tasks) {
+        appendRecords(List.of(record), tasks);
+    }
+
+    private synchronized void appendRecords(List<String> records, TaskList tasks) {
+        try {
+            long start = System.nanoTime();
+            if (journalWriter == null) {
+                openJournalWriter();
+            }
+            long oldSize = journalSize;
+            for (String record : records) {
+                journalWriter.write(record);
+                journalWriter.newLine();
+                journalSize += record.getBytes(StandardCharsets.UTF_8).length + System.lineSeparator().length();
+            }
+            journalWriter.flush();
+            Metrics.recordJournalAppend(journalSize - oldSize, System.nanoTime() - start);
+        } catch (IOException e) {
+            reportFailure(ErrorMessages.SAVE_TASK_FAILED + e.getMessage());
+            return;
+        }
+
+        if (journalSize >= COMPACTION_THRESHOLD_BYTES && (pendingCompaction == null || pendingCompaction.isDone())) {
+            // The caller holds the list's write lock, so the snapshot is encoded here, where no
+            // task can change under it, and only the writing is left to the background.
+            byte[] snapshot = encodeSnapshot(tasks.getAllTasks());
+            long offset = journalSize;
+            pendingCompaction = compactor.submit(() -> compact(snapshot, offset));
+        }
+    }
+
+    /**
+     * Writes the snapshot, then moves every record appended since the compaction was scheduled
+     * into a fresh journal keyed to the new snapshot.
+     */
+    private void compact(byte[] snapshot, long offset) {
+        try {
+            long checksum = writeSnapshot(snapshot, tempSnapshotPath());
+            synchronized (this) {
+                if (journalWriter != null) {
+                    journalWriter.flush();
+                }
+                swapSnapshot(checksum, readJournalTail(offset));
+            }
+        } catch (IOException e) {
+            reportFailure(ErrorMessages.SAVE_TASK_FAILED + e.getMessage());
+        }
+    }
+
+    /**
+     * Moves a written snapshot into place together with a new journal. The new journal is
+     * staged first, so a crash between the two moves leaves a journal whose header matches
+     * whichever snapshot survived.
+     */
+    private void swapSnapshot(long checksum, byte[] tail) throws IOException {
+        Path stagedJournal = Path.of(filePath + ".journal.tmp");
+        try (FileOutputStream out = new FileOutputStream(stagedJournal.toFile())) {
+            out.write(journalHeader(checksum).getBytes(StandardCharsets.UTF_8));
+            out.write(tail);
+            out.getChannel().force(true);
+        }
+        closeJournalWriter();
+        Files.move(tempSnapshotPath(), Path.of(filePath),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        Files.move(stagedJournal, journalPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        forceParentDirectory();
+        snapshotChecksum = checksum;
+        journalSize = Files.size(journalPath());
+    }
+
+    /**
+     * Encodes the tasks as a whole task file in the current format. Tasks can change while
+     * they are encoded, so callers hold the list's lock and leave only the writing for later.
+     *
+     * @param tasks The tasks to encode.
+     * @return The file's contents.
+     */
+    byte[] encodeSnapshot(List<Task> tasks) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            writeTasks(tasks, out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    private long writeSnapshot(byte[] contents, Path target) throws IOException {
+        long start = System.nanoTime();
+        CRC32 checksum = new CRC32();
+        checksum.update(contents);
+        try (FileOutputStream file = new FileOutputStream(target.toFile())) {
+            file.write(contents);
+            file.getChannel().force(true);
+        }
+        Metrics.recordSave(contents.length, System.nanoTime() - start);
+        return checksum.getValue();
+    }
+
+    private void writeTasks(List<Task> tasks, OutputStream out) throws IOException {
+        BufferedOutputStream buffered = new BufferedOutputStream(out);
+        long snapshotNextId = nextIdAfter(tasks);
+        if (format == TaskFileFormat.BINARY) {
+            BinaryTaskCodec.write(tasks, snapshotNextId, buffered);
+            return;
+        }
+        CRC32 checksum = new CRC32();
+        BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(
+                new CheckedOutputStream(buffered, checksum), StandardCharsets.UTF_8));
+        for (Task task : tasks) {
+            writer.write(toRecord(task));
+            writer.newLine();
+        }
+        writer.flush();
+        writer.write(TaskFileReader.TRAILER_PREFIX + tasks.size() + " " + Long.toHexString(checksum.getValue())
+                + " " + snapshotNextId);
+        writer.newLine();
+        writer.flush();
+    }
+
+    private byte[] readJournalTail(long offset) throws IOException {
+        try (RandomAccessFile journal = new RandomAccessFile(journalPath().toFile(), "r")) {
+            byte[] tail = new byte[(int) (journal.length() - offset)];
+            journal.seek(offset);
+            journal.readFully(tail);
+            return tail;
         }
+    }
 
+    /**
+     * Applies the journal that belongs to the loaded snapshot, if there is one.
+     *
+     * @return The tasks after replaying the journal.
+     */
+    private ArrayList<Task> replayJournal(ArrayList<Task> tasks) throws EddieException {
+        List<String> records = openCurrentJournal();
+        if (records == null) {
+            assignMissingIds(tasks);
+            return tasks;
+        }
+        if (records.get(0).startsWith(JOURNAL_HEADER)) {
+            assignMissingIds(tasks);
+            return replayById(tasks, records);
+        }
+
+        // Journals written before tasks had IDs refer to them by position. Replay those, then
+        // rewrite the snapshot so the IDs are stored and the journal starts over with ID records.
+        replayByIndex(tasks, records);
+        assignMissingIds(tasks);
+        try {
+            swapSnapshot(writeSnapshot(encodeSnapshot(tasks), tempSnapshotPath()), new byte[0]);
+        } catch (IOException e) {
+            throw new EddieException(ErrorMessages.SAVE_TASK_FAILED + e.getMessage());
+        }
         return tasks;
     }
 
-    public void saveTasks(ArrayList<Task> tasks) {
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(filePath))) {
-            for (Task task : tasks) {
-                writer.write(task.toFileFormat());
-                writer.newLine();
+    /**
+     * Reads the journal that belongs to the loaded snapshot, promoting a staged journal left
+     * by an interrupted swap. If there is none, a fresh journal is started.
+     *
+     * @return The journal's lines, header first, or null if there was no matching journal.
+     */
+    private List<String> openCurrentJournal() throws EddieException {
+        Path journal = journalPath();
+        String header = currentJournalHeader(journal);
+        if (header == null) {
+            journal = Path.of(filePath + ".journal.tmp");
+            header = currentJournalHeader(journal);
+        }
+        if (header == null) {
+            resetJournal();
+            return null;
+        }
+
+        try {
+            List<String> records = Files.readAllLines(journal, StandardCharsets.UTF_8);
+            if (!journal.equals(journalPath())) {
+                Files.move(journal, journalPath(), StandardCopyOption.REPLACE_EXISTING);
             }
+            journalSize = Files.size(journalPath());
+            return records;
         } catch (IOException e) {
-            System.out.println(ErrorMessages.SAVE_TASK_FAILED + e.getMessage());
+            throw new EddieException(ErrorMessages.TASK_LOAD_FAILED + e.getMessage());
+        }
+    }
+
+    private void replayInto(TaskList tasks, List<String> records) throws EddieException {
+        for (int i = 1; i < records.size(); i++) {
+            try {
+                String[] parts = records.get(i).split(" \\| ", 2);
+                switch (parts[0]) {
+                case RECORD_ADD:
+                    tasks.addTask(parseTask(parts[1]));
+                    break;
+                case RECORD_MARK:
+                    tasks.markTaskById(Long.parseLong(parts[1]), true);
+                    break;
+                case RECORD_UNMARK:
+                    tasks.markTaskById(Long.parseLong(parts[1]), false);
+                    break;
+                case RECORD_DELETE:
+                    tasks.removeTaskById(Long.parseLong(parts[1]));
+                    break;
+                case RECORD_OCCURRENCE:
+                    String[] mark = parts[1].split(" \\| ");
+                    tasks.markOccurrenceById(Long.parseLong(mark[0]), Integer.parseInt(mark[1]), mark[2].equals("1"));
+                    break;
+                case RECORD_INSERT:
+                    String[] insert = parts[1].split(" \\| ", 2);
+                    tasks.insertTask(Math.min(Integer.parseInt(insert[0]), tasks.size()), parseTask(insert[1]));
+                    break;
+                default:
+                    throw new EddieException(ErrorMessages.TASK_PARSING_ERROR + records.get(i));
+                }
+            } catch (EddieException | RuntimeException e) {
+                if (isTornRecord(i, records)) {
+                    break;
+                }
+                throw new EddieException(ErrorMessages.TASK_PARSING_ERROR + records.get(i));
+            }
+        }
+    }
+
+    private ArrayList<Task> replayById(ArrayList<Task> tasks, List<String> records) throws EddieException {
+        if (records.size() <= 1) {
+            return tasks;
         }
+        Map<Long, Task> tasksById = new LinkedHashMap<>();
+        for (Task task : tasks) {
+            tasksById.put(task.getId(), task);
+        }
+        // A run of insert records, such as an undone bulk delete, is applied to one ordered copy.
+        List<Task> inserted = null;
+        for (int i = 1; i < records.size(); i++) {
+            try {
+                String record = records.get(i);
+                if (record.startsWith(RECORD_INSERT + " | ")) {
+                    String[] insert = record.split(" \\| ", 3);
+                    Task task = parseTask(insert[2]);
+                    nextId = Math.max(nextId, task.getId() + 1);
+                    if (inserted == null) {
+                        inserted = new ArrayList<>(tasksById.values());
+                    }
+                    inserted.add(Math.min(Integer.parseInt(insert[1]), inserted.size()), task);
+                    continue;
+                }
+                if (inserted != null) {
+                    reorder(tasksById, inserted);
+                    inserted = null;
+                }
+                applyRecord(record, tasksById);
+            } catch (EddieException | RuntimeException e) {
+                if (isTornRecord(i, records)) {
+                    break;
+                }
+                throw new EddieException(ErrorMessages.TASK_PARSING_ERROR + records.get(i));
+            }
+        }
+        if (inserted != null) {
+            reorder(tasksById, inserted);
+        }
+        return new ArrayList<>(tasksById.values());
+    }
+
+    private void replayByIndex(ArrayList<Task> tasks, List<String> records) throws EddieException {
+        for (int i = 1; i < records.size(); i++) {
+            try {
+                String[] parts = records.get(i).split(" \\| ", 2);
+                switch (parts[0]) {
+                case RECORD_ADD:
+                    tasks.add(parseTask(parts[1]));
+                    break;
+                case RECORD_MARK:
+                    tasks.get(Integer.parseInt(parts[1])).markDone();
+                    break;
+                case RECORD_UNMARK:
+                    tasks.get(Integer.parseInt(parts[1])).markNotDone();
+                    break;
+                case RECORD_DELETE:
+                    tasks.remove(Integer.parseInt(parts[1]));
+                    break;
+                default:
+                    throw new EddieException(ErrorMessages.TASK_PARSING_ERROR + records.get(i));
+                }
+            } catch (EddieException | RuntimeException e) {
+                if (isTornRecord(i, records)) {
+                    break;
+                }
+                throw new EddieException(ErrorMessages.TASK_PARSING_ERROR + records.get(i));
+            }
+        }
+    }
+
+    /**
+     * Returns whether a bad record is the last one. A torn final record is what a crash
+     * mid-append leaves behind; anything earlier means the journal itself is damaged.
+     */
+    private static boolean isTornRecord(int index, List<String> records) {
+        return index == records.size() - 1;
+    }
+
+    private void applyRecord(String record, Map<Long, Task> tasksById) throws EddieException {
+        String[] parts = record.split(" \\| ", 2);
+        switch (parts[0]) {
+        case RECORD_ADD:
+            Task task = parseTask(parts[1]);
+            tasksById.put(task.getId(), task);
+            nextId = Math.max(nextId, task.getId() + 1);
+            break;
+        case RECORD_MARK:
+            tasksById.get(Long.parseLong(parts[1])).markDone();
+            break;
+        case RECORD_UNMARK:
+            tasksById.get(Long.parseLong(parts[1])).markNotDone();
+            break;
+        case RECORD_DELETE:
+            if (tasksById.remove(Long.parseLong(parts[1])) == null) {
+                throw new EddieException(ErrorMessages.TASK_PARSING_ERROR + record);
+            }
+            break;
+        case RECORD_OCCURRENCE:
+            String[] mark = parts[1].split(" \\| ");
+            ((Recurring) tasksById.get(Long.parseLong(mark[0]))).setOccurrenceDone(Integer.parseInt(mark[1]),
+                    mark[2].equals("1"));
+            break;
+        default:
+            throw new EddieException(ErrorMessages.TASK_PARSING_ERROR + record);
+        }
+    }
+
+    /**
+     * Refills an ordered map with the given tasks, in order.
+     */
+    private static void reorder(Map<Long, Task> tasksById, List<Task> ordered) {
+        tasksById.clear();
+        for (Task orderedTask : ordered) {
+            tasksById.put(orderedTask.getId(), orderedTask);
+        }
+    }
+
+    /**
+     * Numbers tasks that were stored without an ID, continuing after the stored next ID or the
+     * highest stored ID, whichever is larger.
+     */
+    private void assignMissingIds(List<Task> tasks) {
+        long next = nextIdAfter(tasks);
+        for (Task task : tasks) {
+            if (task.getId() == 0) {
+                task.setId(next++);
+            }
+        }
+        nextId = next;
+    }
+
+    /**
+     * Returns the next ID to store with the tasks: the list's next ID, unless a task already holds it.
+     */
+    private long nextIdAfter(List<Task> tasks) {
+        long next = nextId;
+        for (Task task : tasks) {
+            next = Math.max(next, task.getId() + 1);
+        }
+        return next;
+    }
+
+    /**
+     * Returns the journal's header if it belongs to the loaded snapshot, or null otherwise.
+     */
+    private String currentJournalHeader(Path journal) {
+        if (!Files.exists(journal)) {
+            return null;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(journal, StandardCharsets.UTF_8)) {
+            String header = reader.readLine();
+            String checksum = Long.toHexString(snapshotChecksum);
+            if ((JOURNAL_HEADER + checksum).equals(header) || (LEGACY_JOURNAL_HEADER + checksum).equals(header)) {
+                return header;
+            }
+            return null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private void resetJournal() throws EddieException {
+        try {
+            Files.writeString(journalPath(), journalHeader(snapshotChecksum), StandardCharsets.UTF_8);
+            Files.deleteIfExists(Path.of(filePath + ".journal.tmp"));
+            journalSize = Files.size(journalPath());
+        } catch (IOException e) {
+            throw new EddieException(ErrorMessages.SAVE_TASK_FAILED + e.getMessage());
+        }
+    }
+
+    private void openJournalWriter() throws IOException {
+        if (!Files.exists(journalPath())) {
+            Files.writeString(journalPath(), journalHeader(snapshotChecksum), StandardCharsets.UTF_8);
+            journalSize = Files.size(journalPath());
+        }
+        journalWriter = new BufferedWriter(new OutputStreamWriter(
+                new FileOutputStream(journalPath().toFile(), true), StandardCharsets.UTF_8));
+    }
+
+    private void closeJournalWriter() {
+        if (journalWriter == null) {
+            return;
+        }
+        try {
+            journalWriter.close();
+        } catch (IOException e) {
+            reportFailure(ErrorMessages.SAVE_TASK_FAILED + e.getMessage());
+        }
+        journalWriter = null;
+    }
+
+    private void awaitCompaction() {
+        Future<?> compaction;
+        synchronized (this) {
+            compaction = pendingCompaction;
+        }
+        if (compaction == null) {
+            return;
+        }
+        try {
+            compaction.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            reportFailure(ErrorMessages.SAVE_TASK_FAILED + e.getCause().getMessage());
+        }
+    }
+
+    private String journalHeader(long checksum) {
+        return JOURNAL_HEADER + Long.toHexString(checksum) + System.lineSeparator();
+    }
+
+    private Path journalPath() {
+        return Path.of(filePath + ".journal");
+    }
+
+    private Path tempSnapshotPath() {
+        return Path.of(filePath + ".tmp");
+    }
+
+    /**
+     * Returns a task as one line of the text format: its ID, then {@link Task#toFileFormat()}.
+     */
+    private static String toRecord(Task task) {
+        return task.getId() + " | " + task.toFileFormat();
     }
 
     private Task parseTask(String line) throws EddieException {
         try {
             String[] parts = line.split(" \\| ");
-            String type = parts[0];
-            boolean isDone = parts[1].equals("1");
-            String description = parts[2];
+            int first = Character.isDigit(parts[0].charAt(0)) ? 1 : 0;
+            String type = parts[first];
+            boolean isDone = parts[first + 1].equals("1");
+            String description = parts[first + 2];
 
+            Task task;
             switch (type) {
             case "T":
-                return new Todo(description, isDone);
+                task = new Todo(description, isDone);
+                break;
             case "D":
-                LocalDateTime by = LocalDateTime.parse(parts[3], dateTimeFormat);
-                return new Deadline(description, by, isDone);
+                LocalDateTime by = DateFormats.parseDateTime(parts[first + 3]);
+                task = new Deadline(description, by, isDone);
+                break;
             case "E":
-                LocalDateTime from = LocalDateTime.parse(parts[3], dateTimeFormat);
-                LocalDateTime to = LocalDateTime.parse(parts[4], dateTimeFormat);
-                return new Event(description, from, to, isDone);
+                LocalDateTime from = DateFormats.parseDateTime(parts[first + 3]);
+                LocalDateTime to = DateFormats.parseDateTime(parts[first + 4]);
+                task = new Event(description, from, to, isDone);
+                break;
+            case "R":
+                // The description may contain " | ", so the fields are split again from the end.
+                task = Recurring.fromFileFields(line.split(" \\| ", first + 3)[first + 2]);
+                break;
             default:
                 throw new EddieException(ErrorMessages.TASK_TYPE_UNKNOWN + type);
             }
+            if (first == 1) {
+                task.setId(Long.parseLong(parts[0]));
+            }
+            return task;
         } catch (Exception e) {
             throw new EddieException(ErrorMessages.TASK_PARSING_ERROR + line);
         }
@@ -0,0 +1,9 @@
+package storage;
+
+/**
+ * Encodings supported for the task file.
+ */
+public enum TaskFileFormat {
+    TEXT,
+    BINARY
+}
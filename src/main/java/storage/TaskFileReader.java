@@ -0,0 +1,388 @@
+package storage;
+
+import command.EddieException;
+import task.Deadline;
+import task.Event;
+import task.Recurring;
+import task.Task;
+import task.Todo;
+import ui.ErrorMessages;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+
+/**
+ * Reads the text task file region by region through one reused direct buffer.
+ *
+ * Each line is an optional task ID followed by the {@link task.Task#toFileFormat()} fields.
+ * Fields are located by scanning for the fixed ` | ` separators by hand, and the
+ * fixed-width {@code yyyy-MM-dd HHmm} timestamps are decoded straight from the bytes.
+ * Timestamps are read from the end of the line, so a description may itself contain ` | `.
+ *
+ * A complete file ends with a {@link #TRAILER_PREFIX} line holding the number of task lines
+ * before it, the CRC-32 of every byte before it and the next ID to give out, which stays above
+ * the IDs of deleted tasks so they are never reused. Files written before that omit the ID. Lines that cannot be parsed are skipped and
+ * reported, so a damaged file still yields every task that survived.
+ *
+ * The file is read with {@link FileChannel#read(ByteBuffer, long)} rather than mapped, because a
+ * mapping stays open until it is garbage collected, and on Windows an open mapping stops the
+ * next save from replacing the file.
+ */
+class TaskFileReader {
+    static final String TRAILER_PREFIX = "#end ";
+
+    private static final int MAX_REGION_SIZE = 1 << 24;
+    private static final int MIN_CHUNK_SIZE = 1 << 18;
+    private static final int CHUNKS_PER_THREAD = 4;
+    private static final int DATE_LENGTH = "yyyy-MM-dd HHmm".length();
+    private static final int SEPARATOR_LENGTH = " | ".length();
+    private static final int DESCRIPTION_START = "T | 0 | ".length();
+
+    private final ByteBuffer buffer;
+    private final ArrayList<Task> tasks = new ArrayList<>();
+    private final List<Integer> skippedLines = new ArrayList<>();
+    private final List<String> skippedTexts = new ArrayList<>();
+    private byte[] scratch = new byte[256];
+    private int lineCount;
+    private long recordCount;
+    private String trailer;
+    private int trailerStart;
+    private long recordsBeforeTrailer;
+
+    private TaskFileReader(ByteBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    /**
+     * Reads every task in the file that can be parsed.
+     *
+     * Each region read is cut into newline-aligned chunks that are parsed in parallel, then
+     * joined in file order, so skipped lines are still reported with their exact line number.
+     *
+     * @param path        The task file.
+     * @param checksum    Updated with the file's bytes, or null if not needed.
+     * @param problems    Receives a message for each skipped line, and one if the trailer does not match.
+     * @param parallelism The number of threads to parse with; 1 parses on the calling thread.
+     * @param nextId      A one-element array that receives the stored next ID, or 0 if there is none.
+     * @return The tasks in file order.
+     * @throws EddieException If the file cannot be read.
+     */
+    static ArrayList<Task> read(Path path, CRC32 checksum, List<String> problems, int parallelism,
+            long[] nextId) throws EddieException {
+        ArrayList<Task> tasks = new ArrayList<>();
+        CRC32 contentChecksum = new CRC32();
+        long lineOffset = 0;
+        long recordOffset = 0;
+        String trailer = null;
+        boolean isTrailerValid = false;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long position = 0;
+            ByteBuffer region = ByteBuffer.allocateDirect((int) Math.min(size, MAX_REGION_SIZE));
+            while (position < size) {
+                long regionSize = Math.min(size - position, MAX_REGION_SIZE);
+                readRegion(channel, region, position, (int) regionSize);
+                int consumed = (position + regionSize == size) ? (int) regionSize : completeLinesLength(region);
+
+                for (TaskFileReader chunk : parseChunks(region, consumed, parallelism)) {
+                    tasks.addAll(chunk.tasks);
+                    for (int i = 0; i < chunk.skippedLines.size(); i++) {
+                        problems.add(ErrorMessages.TASK_LINE_SKIPPED + (lineOffset + chunk.skippedLines.get(i))
+                                + ": " + chunk.skippedTexts.get(i));
+                    }
+                    if (chunk.trailer != null) {
+                        contentChecksum.update(chunk.buffer.slice(0, chunk.trailerStart));
+                        trailer = chunk.trailer;
+                        isTrailerValid = isValidTrailer(trailer, recordOffset + chunk.recordsBeforeTrailer,
+                                contentChecksum.getValue());
+                        contentChecksum.update(chunk.buffer.slice(chunk.trailerStart,
+                                chunk.buffer.limit() - chunk.trailerStart));
+                    } else {
+                        contentChecksum.update(chunk.buffer.slice(0, chunk.buffer.limit()));
+                    }
+                    lineOffset += chunk.lineCount;
+                    recordOffset += chunk.recordCount;
+                }
+                if (checksum != null) {
+                    checksum.update(region.slice(0, consumed));
+                }
+                position += consumed;
+            }
+        } catch (IOException e) {
+            throw new EddieException(ErrorMessages.TASK_LOAD_FAILED + e.getMessage());
+        }
+        if (trailer != null && !isTrailerValid) {
+            problems.add(ErrorMessages.TASK_FILE_INCOMPLETE);
+        }
+        nextId[0] = isTrailerValid ? nextIdOf(trailer) : 0;
+        return tasks;
+    }
+
+    /**
+     * Fills the buffer with {@code length} bytes of the file from {@code position}.
+     */
+    static void readRegion(FileChannel channel, ByteBuffer region, long position, int length)
+            throws IOException {
+        region.clear().limit(length);
+        while (region.hasRemaining()) {
+            if (channel.read(region, position + region.position()) < 0) {
+                throw new IOException("file shrank while being read");
+            }
+        }
+        region.flip();
+    }
+
+    /**
+     * Returns the length of the region up to and including its last newline.
+     */
+    private static int completeLinesLength(ByteBuffer region) throws EddieException {
+        for (int i = region.limit() - 1; i >= 0; i--) {
+            if (region.get(i) == '\n') {
+                return i + 1;
+            }
+        }
+        throw new EddieException(ErrorMessages.TASK_LOAD_FAILED + "line too long");
+    }
+
+    /**
+     * Splits the first {@code limit} bytes of the region at line boundaries and parses each piece.
+     *
+     * @return The parsed chunks in file order.
+     */
+    private static List<TaskFileReader> parseChunks(ByteBuffer region, int limit, int parallelism)
+            throws EddieException {
+        int chunkCount = (int) Math.max(1, Math.min((long) parallelism * CHUNKS_PER_THREAD, limit / MIN_CHUNK_SIZE));
+        List<TaskFileReader> chunks = new ArrayList<>();
+        int start = 0;
+        for (int i = 1; i <= chunkCount && start < limit; i++) {
+            int end = (i == chunkCount) ? limit : nextLineStart(region, (int) ((long) limit * i / chunkCount), limit);
+            if (end > start) {
+                chunks.add(new TaskFileReader(region.slice(start, end - start)));
+            }
+            start = end;
+        }
+
+        if (chunks.size() == 1 || parallelism <= 1) {
+            for (TaskFileReader chunk : chunks) {
+                chunk.readLines();
+            }
+            return chunks;
+        }
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            List<Callable<TaskFileReader>> jobs = new ArrayList<>();
+            for (TaskFileReader chunk : chunks) {
+                jobs.add(chunk::readLines);
+            }
+            for (Future<TaskFileReader> job : pool.invokeAll(jobs)) {
+                job.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new EddieException(ErrorMessages.TASK_LOAD_FAILED + "interrupted");
+        } catch (ExecutionException e) {
+            throw new EddieException(ErrorMessages.TASK_LOAD_FAILED + e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+        return chunks;
+    }
+
+    private static int nextLineStart(ByteBuffer region, int from, int limit) {
+        for (int i = from; i < limit; i++) {
+            if (region.get(i) == '\n') {
+                return i + 1;
+            }
+        }
+        return limit;
+    }
+
+    /**
+     * Parses every line of this chunk, collecting tasks and the chunk-relative numbers of skipped lines.
+     */
+    private TaskFileReader readLines() {
+        int limit = buffer.limit();
+        int start = 0;
+        while (start < limit) {
+            int end = indexOfNewline(start, limit);
+            int lineEnd = (end > start && buffer.get(end - 1) == '\r') ? end - 1 : end;
+            lineCount++;
+            if (lineEnd > start && buffer.get(start) == '#') {
+                trailer = decodeString(start, lineEnd);
+                trailerStart = start;
+                recordsBeforeTrailer = recordCount;
+            } else if (lineEnd > start) {
+                recordCount++;
+                try {
+                    tasks.add(parseLine(start, lineEnd));
+                } catch (EddieException e) {
+                    skippedLines.add(lineCount);
+                    skippedTexts.add(decodeString(start, lineEnd));
+                }
+            }
+            start = end + 1;
+        }
+        return this;
+    }
+
+    /**
+     * Parses a single line, given without its line break.
+     *
+     * @param line The bytes of the line.
+     * @return The task on the line.
+     * @throws EddieException If the line cannot be parsed.
+     */
+    static Task parseRecord(ByteBuffer line) throws EddieException {
+        return new TaskFileReader(line).parseLine(0, line.limit());
+    }
+
+    /**
+     * Compares a {@code #end <count> <crc32> [<next id>]} trailer with the task lines and bytes before it.
+     */
+    static boolean isValidTrailer(String trailer, long recordCount, long checksum) {
+        if (!trailer.startsWith(TRAILER_PREFIX)) {
+            return false;
+        }
+        String[] fields = trailer.substring(TRAILER_PREFIX.length()).split(" ");
+        try {
+            return (fields.length == 2 || (fields.length == 3 && Long.parseLong(fields[2]) > 0))
+                    && Long.parseLong(fields[0]) == recordCount
+                    && Long.parseLong(fields[1], 16) == checksum;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Returns the next ID stored in a valid trailer, or 0 if the trailer predates it.
+     */
+    static long nextIdOf(String trailer) {
+        String[] fields = trailer.substring(TRAILER_PREFIX.length()).split(" ");
+        return (fields.length == 3) ? Long.parseLong(fields[2]) : 0;
+    }
+
+    private int indexOfNewline(int from, int limit) {
+        for (int i = from; i < limit; i++) {
+            if (buffer.get(i) == '\n') {
+                return i;
+            }
+        }
+        return limit;
+    }
+
+    private Task parseLine(int lineStart, int end) throws EddieException {
+        int start = lineStart;
+        try {
+            long id = 0;
+            if (isDigit(start)) {
+                while (start < end && isDigit(start)) {
+                    id = id * 10 + (buffer.get(start) - '0');
+                    start++;
+                }
+                requireSeparator(start, lineStart);
+                start += SEPARATOR_LENGTH;
+            }
+            Task task = parseFields(start, end);
+            task.setId(id);
+            return task;
+        } catch (EddieException | DateTimeException | IllegalArgumentException | IndexOutOfBoundsException e) {
+            throw new EddieException(ErrorMessages.TASK_PARSING_ERROR + decodeString(lineStart, end));
+        }
+    }
+
+    private Task parseFields(int start, int end) throws EddieException {
+        if (end - start < DESCRIPTION_START || !isSeparator(start + 1) || !isSeparator(start + 5)) {
+            throw new EddieException(ErrorMessages.TASK_PARSING_ERROR);
+        }
+        byte type = buffer.get(start);
+        boolean isDone = buffer.get(start + 4) == '1';
+        int descriptionStart = start + DESCRIPTION_START;
+
+        switch (type) {
+        case 'T':
+            return new Todo(decodeString(descriptionStart, end), isDone);
+        case 'D': {
+            int byStart = end - DATE_LENGTH;
+            requireSeparator(byStart - SEPARATOR_LENGTH, descriptionStart);
+            return new Deadline(decodeString(descriptionStart, byStart - SEPARATOR_LENGTH),
+                    decodeDate(byStart), isDone);
+        }
+        case 'E': {
+            int toStart = end - DATE_LENGTH;
+            int fromStart = toStart - SEPARATOR_LENGTH - DATE_LENGTH;
+            requireSeparator(toStart - SEPARATOR_LENGTH, descriptionStart);
+            requireSeparator(fromStart - SEPARATOR_LENGTH, descriptionStart);
+            return new Event(decodeString(descriptionStart, fromStart - SEPARATOR_LENGTH),
+                    decodeDate(fromStart), decodeDate(toStart), isDone);
+        }
+        case 'R':
+            return Recurring.fromFileFields(decodeString(descriptionStart, end));
+        default:
+            throw new EddieException(ErrorMessages.TASK_TYPE_UNKNOWN + (char) type);
+        }
+    }
+
+    private boolean isDigit(int position) {
+        byte b = buffer.get(position);
+        return b >= '0' && b <= '9';
+    }
+
+    private boolean isSeparator(int position) {
+        return buffer.get(position) == ' ' && buffer.get(position + 1) == '|' && buffer.get(position + 2) == ' ';
+    }
+
+    private void requireSeparator(int position, int descriptionStart) throws EddieException {
+        if (position < descriptionStart || !isSeparator(position)) {
+            throw new EddieException(ErrorMessages.TASK_PARSING_ERROR);
+        }
+    }
+
+    private String decodeString(int start, int end) {
+        int length = end - start;
+        if (length > scratch.length) {
+            scratch = new byte[Math.max(length, scratch.length * 2)];
+        }
+        buffer.get(start, scratch, 0, length);
+        return new String(scratch, 0, length, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Decodes a {@code yyyy-MM-dd HHmm} timestamp starting at the given position.
+     */
+    private LocalDateTime decodeDate(int start) throws EddieException {
+        if (buffer.get(start + 4) != '-' || buffer.get(start + 7) != '-' || buffer.get(start + 10) != ' ') {
+            throw new EddieException(ErrorMessages.TASK_PARSING_ERROR);
+        }
+        int year = decodeDigits(start, 4);
+        int month = decodeDigits(start + 5, 2);
+        int day = decodeDigits(start + 8, 2);
+        int hour = decodeDigits(start + 11, 2);
+        int minute = decodeDigits(start + 13, 2);
+        return LocalDateTime.of(year, month, day, hour, minute);
+    }
+
+    private int decodeDigits(int start, int count) throws EddieException {
+        int value = 0;
+        for (int i = start; i < start + count; i++) {
+            int digit = buffer.get(i) - '0';
+            if (digit < 0 || digit > 9) {
+                throw new EddieException(ErrorMessages.TASK_PARSING_ERROR);
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+}
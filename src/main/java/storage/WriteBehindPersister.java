@@ -0,0 +1,119 @@
+package storage;
+
+import tasklist.TaskList;
+import ui.ErrorMessages;
+
+import java.io.IOException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * Persists the task list on a background thread, coalescing every change made within
+ * {@code maxDelayMillis} of the first one into a single fsync'd snapshot write.
+ *
+ * A change is therefore durable at most {@code maxDelayMillis} plus one write after it was made,
+ * or as soon as {@link #flush(long)} returns successfully.
+ */
+class WriteBehindPersister {
+    private final Storage storage;
+    private final long maxDelayMillis;
+    private final ScheduledExecutorService executor;
+    private final Object writeLock = new Object();
+
+    private TaskList dirtyTasks;
+    private long dirtyVersion;
+    private boolean isScheduled;
+    private long writtenVersion;
+
+    WriteBehindPersister(Storage storage, long maxDelayMillis) {
+        this.storage = storage;
+        this.maxDelayMillis = maxDelayMillis;
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "eddie-write-behind");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Records that the task list changed. Must be called while holding the list's write lock.
+     *
+     * @param tasks The changed task list.
+     */
+    synchronized void markDirty(TaskList tasks) {
+        dirtyTasks = tasks;
+        dirtyVersion++;
+        if (!isScheduled) {
+            isScheduled = true;
+            executor.schedule(this::flushInBackground, maxDelayMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Writes the latest changes now on the calling thread, if they have not been written yet.
+     *
+     * @param lockTimeoutMillis How long to wait for the task list's read lock.
+     * @return True if every change made so far is on disk.
+     */
+    boolean flush(long lockTimeoutMillis) {
+        TaskList tasks;
+        synchronized (this) {
+            tasks = dirtyTasks;
+        }
+        if (tasks == null) {
+            return true;
+        }
+
+        byte[] snapshot;
+        long version;
+        Lock lock = tasks.readLock();
+        try {
+            if (!lock.tryLock(lockTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                return false;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+        try {
+            synchronized (this) {
+                version = dirtyVersion;
+            }
+            // Encoded under the lock, as a command may change a task while it is being written.
+            snapshot = storage.encodeSnapshot(tasks.getAllTasks());
+        } finally {
+            lock.unlock();
+        }
+
+        synchronized (writeLock) {
+            // A flush that snapshotted later may already have written a newer state.
+            if (version <= writtenVersion) {
+                return true;
+            }
+            try {
+                storage.persistSnapshot(snapshot);
+                writtenVersion = version;
+                return true;
+            } catch (IOException e) {
+                storage.reportFailure(ErrorMessages.SAVE_TASK_FAILED + e.getMessage());
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Stops the background thread. Callers should {@link #flush(long)} first.
+     */
+    void shutdown() {
+        executor.shutdown();
+    }
+
+    private void flushInBackground() {
+        synchronized (this) {
+            isScheduled = false;
+        }
+        flush(Long.MAX_VALUE);
+    }
+}
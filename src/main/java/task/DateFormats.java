@@ -0,0 +1,52 @@
+package task;
+
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Date formats shared by tasks, commands and storage. Formatters are immutable and
+ * thread-safe, so each is built once here rather than per use.
+ */
+public final class DateFormats {
+    /** How dates are shown to the user, e.g. {@code Apr 1 2025, 6:00PM}. */
+    public static final DateTimeFormatter DISPLAY = DateTimeFormatter.ofPattern("MMM d yyyy, h:mma");
+    /** How days without a time are shown to the user, e.g. {@code Apr 1 2025}. */
+    public static final DateTimeFormatter DAY_DISPLAY = DateTimeFormatter.ofPattern("MMM d yyyy");
+    /** How dates are typed and stored, e.g. {@code 2025-04-01 1800}. */
+    public static final DateTimeFormatter DATE_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd HHmm");
+
+    private static final int DATE_TIME_LENGTH = "yyyy-MM-dd HHmm".length();
+
+    private DateFormats() {
+    }
+
+    /**
+     * Parses a {@link #DATE_TIME} timestamp by decoding its fixed-width digits directly,
+     * which avoids the general-purpose formatter machinery.
+     *
+     * @param text The timestamp, with no surrounding spaces.
+     * @return The parsed date and time.
+     * @throws DateTimeException If the text is not a valid timestamp in that format.
+     */
+    public static LocalDateTime parseDateTime(String text) {
+        if (text.length() != DATE_TIME_LENGTH || text.charAt(4) != '-' || text.charAt(7) != '-'
+                || text.charAt(10) != ' ') {
+            throw new DateTimeException("Expected yyyy-MM-dd HHmm: " + text);
+        }
+        return LocalDateTime.of(digits(text, 0, 4), digits(text, 5, 2), digits(text, 8, 2),
+                digits(text, 11, 2), digits(text, 13, 2));
+    }
+
+    private static int digits(String text, int start, int count) {
+        int value = 0;
+        for (int i = start; i < start + count; i++) {
+            int digit = text.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                throw new DateTimeException("Expected yyyy-MM-dd HHmm: " + text);
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+}
@@ -1,12 +1,9 @@
 package task;
 
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 
 public class Deadline extends Task {
     private final LocalDateTime by;
-    private static final DateTimeFormatter displayFormat = DateTimeFormatter.ofPattern("MMM d yyyy, h:mma");
-    private static final DateTimeFormatter saveFormat = DateTimeFormatter.ofPattern("yyyy-MM-dd HHmm");
 
     public Deadline(String description, LocalDateTime by) {
         super(description);
@@ -18,6 +15,20 @@ public class Deadline extends Task {
         this.by = by;
     }
 
+    public LocalDateTime getBy() {
+        return by;
+    }
+
+    @Override
+    public LocalDateTime getStart() {
+        return by;
+    }
+
+    @Override
+    public LocalDateTime getEnd() {
+        return by;
+    }
+
     @Override
     public String getTaskType() {
         return "[D]";
@@ -25,11 +36,11 @@ public class Deadline extends Task {
 
     @Override
     public String toFileFormat() {
-        return "D | " + (isDone ? "1" : "0") + " | " + description + " | " + by.format(saveFormat);
+        return "D | " + (isDone ? "1" : "0") + " | " + description + " | " + by.format(DateFormats.DATE_TIME);
     }
 
     @Override
-    public String toString() {
-        return super.toString() + " (by: " + by.format(displayFormat) + ")";
+    protected String formatDisplay() {
+        return super.formatDisplay() + " (by: " + by.format(DateFormats.DISPLAY) + ")";
     }
 }
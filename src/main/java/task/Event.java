@@ -1,13 +1,10 @@
 package task;
 
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 
 public class Event extends Task {
     private final LocalDateTime from;
     private final LocalDateTime to;
-    private static final DateTimeFormatter displayFormat = DateTimeFormatter.ofPattern("MMM d yyyy, h:mma");
-    private static final DateTimeFormatter saveFormat = DateTimeFormatter.ofPattern("yyyy-MM-dd HHmm");
 
     public Event(String description, LocalDateTime from, LocalDateTime to) {
         super(description);
@@ -21,6 +18,24 @@ public class Event extends Task {
         this.to = to;
     }
 
+    public LocalDateTime getFrom() {
+        return from;
+    }
+
+    public LocalDateTime getTo() {
+        return to;
+    }
+
+    @Override
+    public LocalDateTime getStart() {
+        return from;
+    }
+
+    @Override
+    public LocalDateTime getEnd() {
+        return to;
+    }
+
     @Override
     public String getTaskType() {
         return "[E]";
@@ -28,11 +43,11 @@ public class Event extends Task {
 
     @Override
     public String toFileFormat() {
-        return "E | " + (isDone ? "1" : "0") + " | " + description + " | " + from.format(saveFormat) + " | " + to.format(saveFormat);
+        return "E | " + (isDone ? "1" : "0") + " | " + description + " | " + from.format(DateFormats.DATE_TIME) + " | " + to.format(DateFormats.DATE_TIME);
     }
 
     @Override
-    public String toString() {
-        return super.toString() + " (from: " + from.format(displayFormat) + " to: " + to.format(displayFormat) + ")";
+    protected String formatDisplay() {
+        return super.formatDisplay() + " (from: " + from.format(DateFormats.DISPLAY) + " to: " + to.format(DateFormats.DISPLAY) + ")";
     }
 }
@@ -0,0 +1,77 @@
+package task;
+
+import java.time.LocalDateTime;
+
+/**
+ * One occurrence of a {@link Recurring} task, built on demand for a date range.
+ *
+ * It has the series' ID and description, and its own time and done status. It is a snapshot:
+ * marking the occurrence goes through the series, and saving an occurrence saves its series.
+ */
+public class Occurrence extends Task {
+    private final Recurring series;
+    private final int index;
+    private final LocalDateTime start;
+    private final LocalDateTime end;
+
+    /**
+     * Constructs a view of one occurrence.
+     *
+     * @param series The series.
+     * @param index  The occurrence, counting from 0.
+     */
+    public Occurrence(Recurring series, int index) {
+        super(series.getDescription(), series.isOccurrenceDone(index));
+        this.series = series;
+        this.index = index;
+        this.start = series.startOf(index);
+        this.end = series.endOf(index);
+        setId(series.getId());
+    }
+
+    public Recurring getSeries() {
+        return series;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    @Override
+    public LocalDateTime getStart() {
+        return start;
+    }
+
+    @Override
+    public LocalDateTime getEnd() {
+        return end;
+    }
+
+    @Override
+    public String getTaskType() {
+        return "[R]";
+    }
+
+    /**
+     * Returns the series in the file format, as an occurrence is only stored as part of it.
+     */
+    @Override
+    public String toFileFormat() {
+        return series.toFileFormat();
+    }
+
+    /**
+     * Returns the occurrence's time as shown to the user, e.g. {@code by: Apr 1 2025, 6:00PM}.
+     */
+    String describeTime() {
+        if (series.isDeadline()) {
+            return "by: " + start.format(DateFormats.DISPLAY);
+        }
+        return "from: " + start.format(DateFormats.DISPLAY) + " to: " + end.format(DateFormats.DISPLAY);
+    }
+
+    @Override
+    protected String formatDisplay() {
+        return super.formatDisplay() + " (" + describeTime() + ")";
+    }
+}
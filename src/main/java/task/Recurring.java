@@ -0,0 +1,493 @@
+package task;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.NoSuchElementException;
+
+/**
+ * A deadline or event that repeats on a rule, such as every week until a given day, kept as
+ * one task however many times it repeats.
+ *
+ * Occurrence k starts {@code k * interval} days, weeks or months after the first, and lasts as
+ * long as the first. Occurrences are never stored: they are worked out from the rule when a
+ * date range asks for them, as {@link Occurrence} views. Which ones are done is one bit per
+ * occurrence. The series counts as done once every occurrence is, so a series without an end
+ * is never done.
+ */
+public class Recurring extends Task {
+    private static final String NO_END = "-";
+    private static final String NONE_DONE = "-";
+
+    private final LocalDateTime firstStart;
+    private final Duration length;
+    private final int interval;
+    private final ChronoUnit unit;
+    private final LocalDate until;
+    private final int occurrenceCount;
+    private final BitSet completed;
+
+    /**
+     * Constructs a series with no occurrence done.
+     *
+     * @param description The description shared by every occurrence.
+     * @param firstStart  When the first occurrence starts.
+     * @param firstEnd    When the first occurrence ends; the same as its start for a deadline.
+     * @param interval    How many units apart occurrences are, at least 1.
+     * @param unit        {@link ChronoUnit#DAYS}, {@link ChronoUnit#WEEKS} or {@link ChronoUnit#MONTHS}.
+     * @param until       The last day an occurrence may start on, or null to repeat forever.
+     */
+    public Recurring(String description, LocalDateTime firstStart, LocalDateTime firstEnd,
+            int interval, ChronoUnit unit, LocalDate until) {
+        this(description, firstStart, firstEnd, interval, unit, until, new BitSet());
+    }
+
+    /**
+     * Constructs a series as it was saved.
+     *
+     * @param description The description shared by every occurrence.
+     * @param firstStart  When the first occurrence starts.
+     * @param firstEnd    When the first occurrence ends.
+     * @param interval    How many units apart occurrences are.
+     * @param unit        The unit.
+     * @param until       The last day an occurrence may start on, or null.
+     * @param completed   The occurrences that are done; kept, not copied.
+     */
+    public Recurring(String description, LocalDateTime firstStart, LocalDateTime firstEnd,
+            int interval, ChronoUnit unit, LocalDate until, BitSet completed) {
+        super(description);
+        this.firstStart = firstStart;
+        this.length = Duration.between(firstStart, firstEnd);
+        this.interval = interval;
+        this.unit = unit;
+        this.until = until;
+        this.occurrenceCount = (until == null) ? -1 : lastStartingBy(until.atTime(LocalTime.MAX), Integer.MAX_VALUE) + 1;
+        this.completed = completed;
+        refreshDone();
+    }
+
+    /**
+     * Parses the fields {@link #toFileFormat()} writes after the type and done flag.
+     *
+     * @param fields The description, first start, first end, rule, last day and done occurrences,
+     *               separated by {@code " | "}. The description may itself contain {@code " | "}.
+     * @return The series.
+     * @throws IllegalArgumentException If a field is malformed.
+     */
+    public static Recurring fromFileFields(String fields) {
+        String[] schedule = new String[5];
+        int end = fields.length();
+        for (int i = schedule.length - 1; i >= 0; i--) {
+            int separator = fields.lastIndexOf(" | ", end - 1);
+            if (separator < 0) {
+                throw new IllegalArgumentException("Missing recurrence field: " + fields);
+            }
+            schedule[i] = fields.substring(separator + 3, end);
+            end = separator;
+        }
+        String rule = schedule[2];
+        int interval = Integer.parseInt(rule.substring(0, rule.length() - 1));
+        ChronoUnit unit = unitOf(rule.charAt(rule.length() - 1));
+        LocalDate until = schedule[3].equals(NO_END) ? null : LocalDate.parse(schedule[3]);
+        return new Recurring(fields.substring(0, end), DateFormats.parseDateTime(schedule[0]),
+                DateFormats.parseDateTime(schedule[1]), interval, unit, until, parseRanges(schedule[4]));
+    }
+
+    /**
+     * Returns whether a rule can be used: a positive interval, a supported unit, and a last day
+     * no earlier than the first occurrence.
+     *
+     * @param firstStart When the first occurrence starts.
+     * @param interval   How many units apart occurrences are.
+     * @param unit       The unit.
+     * @param until      The last day, or null.
+     * @return True if the rule is valid.
+     */
+    public static boolean isValidRule(LocalDateTime firstStart, int interval, ChronoUnit unit, LocalDate until) {
+        return interval > 0 && (unit == ChronoUnit.DAYS || unit == ChronoUnit.WEEKS || unit == ChronoUnit.MONTHS)
+                && (until == null || !until.isBefore(firstStart.toLocalDate()));
+    }
+
+    public LocalDateTime getFirstStart() {
+        return firstStart;
+    }
+
+    public LocalDateTime getFirstEnd() {
+        return firstStart.plus(length);
+    }
+
+    public int getInterval() {
+        return interval;
+    }
+
+    public ChronoUnit getUnit() {
+        return unit;
+    }
+
+    public LocalDate getUntil() {
+        return until;
+    }
+
+    /**
+     * Returns the occurrences that are done.
+     *
+     * @return A copy of the bits, one per occurrence.
+     */
+    public BitSet getCompleted() {
+        return (BitSet) completed.clone();
+    }
+
+    /**
+     * Returns when an occurrence starts.
+     *
+     * @param index The occurrence, counting from 0.
+     * @return Its start.
+     */
+    public LocalDateTime startOf(int index) {
+        return firstStart.plus((long) index * interval, unit);
+    }
+
+    /**
+     * Returns when an occurrence ends.
+     *
+     * @param index The occurrence, counting from 0.
+     * @return Its end.
+     */
+    public LocalDateTime endOf(int index) {
+        return startOf(index).plus(length);
+    }
+
+    /**
+     * Returns whether the occurrences are points in time, like a deadline, rather than spans.
+     *
+     * @return True if an occurrence ends when it starts.
+     */
+    public boolean isDeadline() {
+        return length.isZero();
+    }
+
+    /**
+     * Returns the number of occurrences.
+     *
+     * @return The count, or -1 if the series repeats forever.
+     */
+    public int getOccurrenceCount() {
+        return occurrenceCount;
+    }
+
+    /**
+     * Returns whether an occurrence is done.
+     *
+     * @param index The occurrence.
+     * @return True if it is marked as done.
+     */
+    public boolean isOccurrenceDone(int index) {
+        return completed.get(index);
+    }
+
+    /**
+     * Marks one occurrence as done or not done.
+     *
+     * @param index  The occurrence, which must exist.
+     * @param isDone The new status.
+     */
+    public void setOccurrenceDone(int index, boolean isDone) {
+        completed.set(index, isDone);
+        refreshDone();
+    }
+
+    /**
+     * Returns the first occurrence that is not done.
+     *
+     * @return The occurrence, or -1 if every occurrence is done.
+     */
+    public int nextPendingOccurrence() {
+        int index = completed.nextClearBit(0);
+        return (occurrenceCount >= 0 && index >= occurrenceCount) ? -1 : index;
+    }
+
+    /**
+     * Returns the last occurrence that is done.
+     *
+     * @return The occurrence, or -1 if none is.
+     */
+    public int lastCompletedOccurrence() {
+        return completed.length() - 1;
+    }
+
+    /**
+     * Returns the occurrence that starts on a day.
+     *
+     * @param day The day.
+     * @return The occurrence, or -1 if none starts that day.
+     */
+    public int occurrenceOn(LocalDate day) {
+        int index = lastStartingBy(day.atTime(LocalTime.MAX), occurrenceCount);
+        return (index >= 0 && startOf(index).toLocalDate().equals(day)) ? index : -1;
+    }
+
+    /**
+     * Returns a view of one occurrence.
+     *
+     * @param index The occurrence.
+     * @return The occurrence as a task.
+     */
+    public Occurrence getOccurrence(int index) {
+        return new Occurrence(this, index);
+    }
+
+    /**
+     * Returns the occurrences whose time overlaps {@code [from, to]}, each built only when the
+     * iteration reaches it, so a range of any length costs nothing until it is walked.
+     *
+     * @param from The start of the range, inclusive.
+     * @param to   The end of the range, inclusive.
+     * @return The occurrences, ordered by start.
+     */
+    public Iterator<Task> occurrencesBetween(LocalDateTime from, LocalDateTime to) {
+        int first = firstEndingFrom(from);
+        int last = lastStartingBy(to, occurrenceCount);
+        return new Iterator<>() {
+            private int next = first;
+
+            @Override
+            public boolean hasNext() {
+                return next <= last;
+            }
+
+            @Override
+            public Task next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return new Occurrence(Recurring.this, next++);
+            }
+        };
+    }
+
+    /**
+     * Counts the occurrences whose time overlaps {@code [from, to]} without building them.
+     *
+     * @param from The start of the range, inclusive.
+     * @param to   The end of the range, inclusive.
+     * @return The number of occurrences.
+     */
+    public int countOccurrencesBetween(LocalDateTime from, LocalDateTime to) {
+        return Math.max(0, lastStartingBy(to, occurrenceCount) - firstEndingFrom(from) + 1);
+    }
+
+    /**
+     * Returns the first occurrences not yet done that start at or after a time.
+     *
+     * @param now   The time to look forward from.
+     * @param count The maximum number of occurrences to return.
+     * @return Up to count occurrences, ordered by start.
+     */
+    public List<Task> getPendingOccurrencesFrom(LocalDateTime now, int count) {
+        List<Task> pending = new ArrayList<>();
+        Iterator<Task> occurrences = pendingOccurrencesFrom(now);
+        while (pending.size() < count && occurrences.hasNext()) {
+            pending.add(occurrences.next());
+        }
+        return pending;
+    }
+
+    /**
+     * Returns the occurrences not yet done that start at or after a time, each built only when
+     * the iteration reaches it. A series without an end never runs out of them.
+     *
+     * @param now The time to look forward from.
+     * @return The occurrences, ordered by start.
+     */
+    public Iterator<Task> pendingOccurrencesFrom(LocalDateTime now) {
+        return new Iterator<>() {
+            private int next = skipToPending(firstEndingFrom(now));
+
+            @Override
+            public boolean hasNext() {
+                return occurrenceCount < 0 || next < occurrenceCount;
+            }
+
+            @Override
+            public Task next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                Task occurrence = new Occurrence(Recurring.this, next);
+                next = skipToPending(next + 1);
+                return occurrence;
+            }
+
+            private int skipToPending(int index) {
+                index = completed.nextClearBit(index);
+                while ((occurrenceCount < 0 || index < occurrenceCount) && startOf(index).isBefore(now)) {
+                    index = completed.nextClearBit(index + 1);
+                }
+                return index;
+            }
+        };
+    }
+
+    /**
+     * Marks the first occurrence that is not done yet as done.
+     */
+    @Override
+    public void markDone() {
+        int index = nextPendingOccurrence();
+        if (index >= 0) {
+            setOccurrenceDone(index, true);
+        }
+    }
+
+    /**
+     * Marks the last occurrence that is done as not done.
+     */
+    @Override
+    public void markNotDone() {
+        int index = lastCompletedOccurrence();
+        if (index >= 0) {
+            setOccurrenceDone(index, false);
+        }
+    }
+
+    @Override
+    public boolean overlaps(LocalDateTime from, LocalDateTime to) {
+        return countOccurrencesBetween(from, to) > 0;
+    }
+
+    @Override
+    public String getTaskType() {
+        return "[R]";
+    }
+
+    @Override
+    public String toFileFormat() {
+        return "R | " + (isDone ? "1" : "0") + " | " + description
+                + " | " + firstStart.format(DateFormats.DATE_TIME)
+                + " | " + firstStart.plus(length).format(DateFormats.DATE_TIME)
+                + " | " + interval + Character.toUpperCase(unit.name().charAt(0))
+                + " | " + ((until == null) ? NO_END : until.toString())
+                + " | " + formatRanges(completed);
+    }
+
+    @Override
+    protected String formatDisplay() {
+        String unitName = unit.name().toLowerCase(Locale.ROOT).substring(0, unit.name().length() - 1);
+        StringBuilder display = new StringBuilder(super.formatDisplay()).append(" (every ");
+        display.append((interval == 1) ? unitName : interval + " " + unitName + "s");
+        if (until != null) {
+            display.append(" until ").append(until.format(DateFormats.DAY_DISPLAY));
+        }
+        int doneCount = completed.cardinality();
+        int next = nextPendingOccurrence();
+        if (next < 0) {
+            display.append(", all ").append(doneCount).append(" done");
+        } else {
+            if (doneCount > 0) {
+                display.append(", ").append(doneCount).append(" done");
+            }
+            display.append(", next ").append(getOccurrence(next).describeTime());
+        }
+        return display.append(")").toString();
+    }
+
+    private void refreshDone() {
+        if (occurrenceCount >= 0 && completed.cardinality() == occurrenceCount) {
+            super.markDone();
+        } else {
+            super.markNotDone();
+        }
+    }
+
+    /**
+     * Returns the first occurrence that ends at or after a time.
+     */
+    private int firstEndingFrom(LocalDateTime from) {
+        LocalDateTime firstEnd = firstStart.plus(length);
+        int index = (int) Math.max(0, Math.min(Integer.MAX_VALUE - 1, unit.between(firstEnd, from) / interval));
+        while (index > 0 && !endOf(index - 1).isBefore(from)) {
+            index--;
+        }
+        while (endOf(index).isBefore(from)) {
+            index++;
+        }
+        return index;
+    }
+
+    /**
+     * Returns the last occurrence below {@code limit} that starts at or before a time, or -1.
+     */
+    private int lastStartingBy(LocalDateTime to, int limit) {
+        if (to.isBefore(firstStart) || limit == 0) {
+            return -1;
+        }
+        int bound = (limit < 0) ? Integer.MAX_VALUE : limit;
+        int index = (int) Math.min(bound - 1, unit.between(firstStart, to) / interval);
+        while (index + 1 < bound && !startOf(index + 1).isAfter(to)) {
+            index++;
+        }
+        while (index > 0 && startOf(index).isAfter(to)) {
+            index--;
+        }
+        return index;
+    }
+
+    private static ChronoUnit unitOf(char letter) {
+        switch (letter) {
+        case 'D':
+            return ChronoUnit.DAYS;
+        case 'W':
+            return ChronoUnit.WEEKS;
+        case 'M':
+            return ChronoUnit.MONTHS;
+        default:
+            throw new IllegalArgumentException("Unknown recurrence unit: " + letter);
+        }
+    }
+
+    /**
+     * Writes the set bits as ranges, e.g. {@code 0-11,14}, which stays short for the usual
+     * run of occurrences done in order.
+     */
+    private static String formatRanges(BitSet bits) {
+        if (bits.isEmpty()) {
+            return NONE_DONE;
+        }
+        StringBuilder ranges = new StringBuilder();
+        for (int start = bits.nextSetBit(0); start >= 0; start = bits.nextSetBit(start)) {
+            int end = bits.nextClearBit(start);
+            if (ranges.length() > 0) {
+                ranges.append(',');
+            }
+            ranges.append(start);
+            if (end - 1 > start) {
+                ranges.append('-').append(end - 1);
+            }
+            start = end;
+        }
+        return ranges.toString();
+    }
+
+    private static BitSet parseRanges(String text) {
+        BitSet bits = new BitSet();
+        if (text.equals(NONE_DONE)) {
+            return bits;
+        }
+        for (String range : text.split(",")) {
+            int dash = range.indexOf('-');
+            if (dash < 0) {
+                bits.set(Integer.parseInt(range));
+            } else {
+                bits.set(Integer.parseInt(range.substring(0, dash)), Integer.parseInt(range.substring(dash + 1)) + 1);
+            }
+        }
+        return bits;
+    }
+}
@@ -1,11 +1,25 @@
 package task;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
 /**
  * Task class that can be marked as done or not done.
+ *
+ * Words in the description starting with {@code #}, such as {@code #work}, are the task's tags.
+ * They are part of the description, so they are saved and shown along with it.
  */
 public abstract class Task {
+    private static final Pattern TAG = Pattern.compile("(?<![\\p{L}\\p{N}_#-])#([\\p{L}\\p{N}_-]+)");
+
     protected String description;
     protected boolean isDone;
+    private long id;
+    private String displayString;
 
     /**
      * Constructs a new Task with description.
@@ -22,11 +36,30 @@ public abstract class Task {
         this.isDone = isDone;
     }
 
+    /**
+     * Returns the task's stable ID.
+     *
+     * @return The ID, or 0 if the task has not been added to a list yet.
+     */
+    public long getId() {
+        return id;
+    }
+
+    /**
+     * Sets the task's stable ID. IDs are assigned once, when the task is first added to a list.
+     *
+     * @param id The ID.
+     */
+    public void setId(long id) {
+        this.id = id;
+    }
+
     /**
      * Marks the task as done.
      */
     public void markDone() {
         this.isDone = true;
+        this.displayString = null;
     }
 
     /**
@@ -34,6 +67,16 @@ public abstract class Task {
      */
     public void markNotDone() {
         this.isDone = false;
+        this.displayString = null;
+    }
+
+    /**
+     * Returns whether the task is done.
+     *
+     * @return True if the task is marked as done.
+     */
+    public boolean isDone() {
+        return isDone;
     }
 
     /**
@@ -54,6 +97,57 @@ public abstract class Task {
         return description;
     }
 
+    /**
+     * Returns the task's tags: the {@code #} words in its description, in lowercase and
+     * without the {@code #}.
+     *
+     * @return The tags in the order they first appear, each once.
+     */
+    public List<String> getTags() {
+        List<String> tags = new ArrayList<>();
+        if (description.indexOf('#') < 0) {
+            return tags;
+        }
+        Matcher matcher = TAG.matcher(description);
+        while (matcher.find()) {
+            String tag = matcher.group(1).toLowerCase(Locale.ROOT);
+            if (!tags.contains(tag)) {
+                tags.add(tag);
+            }
+        }
+        return tags;
+    }
+
+    /**
+     * Returns when the task starts: the deadline itself, or the start of an event.
+     *
+     * @return The start time, or null if the task has no time.
+     */
+    public LocalDateTime getStart() {
+        return null;
+    }
+
+    /**
+     * Returns when the task ends: the deadline itself, or the end of an event.
+     *
+     * @return The end time, or null if the task has no time.
+     */
+    public LocalDateTime getEnd() {
+        return null;
+    }
+
+    /**
+     * Returns whether the task's time overlaps a range. A task without a time never does.
+     *
+     * @param from The start of the range, inclusive.
+     * @param to   The end of the range, inclusive.
+     * @return True if the task happens at some point in the range.
+     */
+    public boolean overlaps(LocalDateTime from, LocalDateTime to) {
+        LocalDateTime start = getStart();
+        return start != null && !start.isAfter(to) && !getEnd().isBefore(from);
+    }
+
     /**
      * Returns the task type icon.
      *
@@ -68,8 +162,25 @@ public abstract class Task {
      */
     public abstract String toFileFormat();
 
+    /**
+     * Builds the string shown to the user for this task.
+     *
+     * @return The display string.
+     */
+    protected String formatDisplay() {
+        return getTaskType() + getIcon() + " " + getDescription();
+    }
+
+    /**
+     * Returns the display string, formatting it only after the task has changed.
+     */
     @Override
     public String toString() {
-        return getTaskType() + getIcon() + " " + getDescription();
+        String display = displayString;
+        if (display == null) {
+            display = formatDisplay();
+            displayString = display;
+        }
+        return display;
     }
 }
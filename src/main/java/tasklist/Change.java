@@ -0,0 +1,164 @@
+package tasklist;
+
+import command.EddieException;
+import task.Recurring;
+import task.Task;
+
+/**
+ * One reversible change to a task list: a task added or deleted at a position, a task's
+ * done status changed, or one occurrence of a recurring task marked or unmarked. Mutating
+ * commands make their changes by applying one of these, and record it in the list's
+ * {@link UndoHistory}.
+ *
+ * A change only refers to the task it touched, so keeping it costs the same however long the
+ * list is. Its {@link #inverse()} is the change that undoes it. Applying a change also notes
+ * the slot the task went into or came out of, so that undoing a deletion puts the task back
+ * into exactly the empty slot it left.
+ */
+public final class Change {
+    /**
+     * The kinds of change.
+     */
+    public enum Kind {
+        ADD, DELETE, MARK, MARK_OCCURRENCE
+    }
+
+    private final Kind kind;
+    private final Task task;
+    private final int position;
+    private final boolean wasDone;
+    private final boolean isDone;
+    private final int occurrence;
+    private int slot;
+
+    private Change(Kind kind, Task task, int position, boolean wasDone, boolean isDone, int slot) {
+        this(kind, task, position, wasDone, isDone, slot, -1);
+    }
+
+    private Change(Kind kind, Task task, int position, boolean wasDone, boolean isDone, int slot, int occurrence) {
+        this.kind = kind;
+        this.task = task;
+        this.position = position;
+        this.wasDone = wasDone;
+        this.isDone = isDone;
+        this.slot = slot;
+        this.occurrence = occurrence;
+    }
+
+    /**
+     * Returns the change that adds a task at a position.
+     *
+     * @param task     The added task.
+     * @param position The 0-based list position it was added at.
+     * @return The change.
+     */
+    public static Change added(Task task, int position) {
+        return new Change(Kind.ADD, task, position, task.isDone(), task.isDone(), -1);
+    }
+
+    /**
+     * Returns the change that deletes a task from a position.
+     *
+     * @param task     The deleted task.
+     * @param position The 0-based list position it was deleted from.
+     * @return The change.
+     */
+    public static Change deleted(Task task, int position) {
+        return new Change(Kind.DELETE, task, position, task.isDone(), task.isDone(), -1);
+    }
+
+    /**
+     * Returns the change that sets a task's done status.
+     *
+     * @param task    The task.
+     * @param wasDone The done status before the change.
+     * @param isDone  The new done status.
+     * @return The change.
+     */
+    public static Change marked(Task task, boolean wasDone, boolean isDone) {
+        return new Change(Kind.MARK, task, -1, wasDone, isDone, -1);
+    }
+
+    /**
+     * Returns the change that marks one occurrence of a recurring task as done or not done.
+     *
+     * @param task       The recurring task.
+     * @param occurrence The occurrence, counting from 0.
+     * @param isDone     The new done status of the occurrence.
+     * @return The change.
+     */
+    public static Change occurrenceMarked(Recurring task, int occurrence, boolean isDone) {
+        return new Change(Kind.MARK_OCCURRENCE, task, -1, task.isOccurrenceDone(occurrence), isDone, -1, occurrence);
+    }
+
+    /**
+     * Returns the change that undoes this one.
+     *
+     * @return The inverse change.
+     */
+    public Change inverse() {
+        switch (kind) {
+        case ADD:
+            return new Change(Kind.DELETE, task, position, wasDone, isDone, slot);
+        case DELETE:
+            return new Change(Kind.ADD, task, position, wasDone, isDone, slot);
+        case MARK_OCCURRENCE:
+            return new Change(Kind.MARK_OCCURRENCE, task, -1, isDone, wasDone, -1, occurrence);
+        default:
+            return new Change(Kind.MARK, task, -1, isDone, wasDone, -1);
+        }
+    }
+
+    /**
+     * Applies the change to a task list.
+     *
+     * @param tasks The task list, which must be in the state the change was made from.
+     * @throws EddieException If the task is no longer where the change expects it.
+     */
+    public void applyTo(TaskList tasks) throws EddieException {
+        switch (kind) {
+        case ADD:
+            slot = tasks.insertTask(position, task, slot);
+            break;
+        case DELETE:
+            slot = tasks.removeSlotById(task.getId());
+            break;
+        case MARK_OCCURRENCE:
+            tasks.markOccurrenceById(task.getId(), occurrence, isDone);
+            break;
+        default:
+            tasks.markTaskById(task.getId(), isDone);
+            break;
+        }
+    }
+
+    /**
+     * Notes the slot the change's task went into when the list placed it directly.
+     */
+    void setSlot(int slot) {
+        this.slot = slot;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public Task getTask() {
+        return task;
+    }
+
+    public int getPosition() {
+        return position;
+    }
+
+    public boolean isDone() {
+        return isDone;
+    }
+
+    /**
+     * Returns the occurrence a {@link Kind#MARK_OCCURRENCE} change marks, counting from 0.
+     */
+    public int getOccurrence() {
+        return occurrence;
+    }
+}
@@ -0,0 +1,162 @@
+package tasklist;
+
+import task.Deadline;
+import task.Event;
+import task.Recurring;
+import task.Task;
+import task.Todo;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Primitive-backed, column-oriented storage for a fixed set of tasks.
+ *
+ * Instead of one object per task with its own String and LocalDateTime fields, every field is
+ * a column indexed by record: the type letter in a byte array, the done flags in a bit set, the
+ * times as epoch minutes (UTC) in long arrays, and the descriptions as UTF-8 in one shared
+ * arena where repeated descriptions are stored once. A Task is only built when a record is read,
+ * so a {@link TaskList} built on this store keeps its memory close to the raw data. Recurring
+ * tasks are rare and their rules do not fit the columns, so they are kept aside by record.
+ */
+public class ColumnarTaskStore implements TaskSource {
+    private final byte[] types;
+    private final BitSet doneFlags = new BitSet();
+    private final long[] starts;
+    private final long[] ends;
+    private final long[] ids;
+    private final int[] descriptionStarts;
+    private final int[] descriptionLengths;
+    private byte[] arena = new byte[1024];
+    private int arenaSize;
+    private int count;
+    private Map<Long, Integer> recordsById;
+    private final Map<Integer, Recurring> recurrences = new HashMap<>();
+
+    private ColumnarTaskStore(int capacity) {
+        types = new byte[capacity];
+        starts = new long[capacity];
+        ends = new long[capacity];
+        ids = new long[capacity];
+        descriptionStarts = new int[capacity];
+        descriptionLengths = new int[capacity];
+    }
+
+    /**
+     * Packs the tasks into columns. The tasks should already have IDs.
+     *
+     * @param tasks The tasks, in list order.
+     * @return The packed store.
+     */
+    public static ColumnarTaskStore of(List<Task> tasks) {
+        ColumnarTaskStore store = new ColumnarTaskStore(tasks.size());
+        Map<String, Integer> pooledDescriptions = new HashMap<>();
+        for (Task task : tasks) {
+            store.append(task, pooledDescriptions);
+        }
+        store.arena = Arrays.copyOf(store.arena, store.arenaSize);
+        return store;
+    }
+
+    private void append(Task task, Map<String, Integer> pooledDescriptions) {
+        int record = count++;
+        types[record] = (byte) task.getTaskType().charAt(1);
+        doneFlags.set(record, task.isDone());
+        if (task instanceof Recurring) {
+            recurrences.put(record, (Recurring) task);
+        }
+        if (task.getStart() != null) {
+            starts[record] = toEpochMinute(task.getStart());
+            ends[record] = toEpochMinute(task.getEnd());
+        }
+        ids[record] = task.getId();
+        if (recordsById == null && record > 0 && ids[record] <= ids[record - 1]) {
+            recordsById = new HashMap<>();
+            for (int i = 0; i < record; i++) {
+                recordsById.put(ids[i], i);
+            }
+        }
+        if (recordsById != null) {
+            recordsById.put(ids[record], record);
+        }
+
+        byte[] description = task.getDescription().getBytes(StandardCharsets.UTF_8);
+        Integer pooled = pooledDescriptions.get(task.getDescription());
+        if (pooled == null) {
+            if (arenaSize + description.length > arena.length) {
+                arena = Arrays.copyOf(arena, Math.max(arena.length * 2, arenaSize + description.length));
+            }
+            System.arraycopy(description, 0, arena, arenaSize, description.length);
+            pooled = arenaSize;
+            pooledDescriptions.put(task.getDescription(), pooled);
+            arenaSize += description.length;
+        }
+        descriptionStarts[record] = pooled;
+        descriptionLengths[record] = description.length;
+    }
+
+    @Override
+    public int size() {
+        return count;
+    }
+
+    @Override
+    public int recordOf(long id) {
+        if (recordsById != null) {
+            return recordsById.getOrDefault(id, -1);
+        }
+        return Math.max(Arrays.binarySearch(ids, 0, count, id), -1);
+    }
+
+    @Override
+    public long maxId() {
+        long max = 0;
+        if (recordsById != null) {
+            for (int i = 0; i < count; i++) {
+                max = Math.max(max, ids[i]);
+            }
+            return max;
+        }
+        return (count == 0) ? 0 : ids[count - 1];
+    }
+
+    @Override
+    public Task load(int record) {
+        String description = new String(arena, descriptionStarts[record], descriptionLengths[record],
+                StandardCharsets.UTF_8);
+        boolean isDone = doneFlags.get(record);
+        Task task;
+        switch (types[record]) {
+        case 'D':
+            task = new Deadline(description, fromEpochMinute(starts[record]), isDone);
+            break;
+        case 'E':
+            task = new Event(description, fromEpochMinute(starts[record]), fromEpochMinute(ends[record]), isDone);
+            break;
+        case 'R':
+            Recurring series = recurrences.get(record);
+            task = new Recurring(description, series.getFirstStart(), series.getFirstEnd(), series.getInterval(),
+                    series.getUnit(), series.getUntil(), series.getCompleted());
+            break;
+        default:
+            task = new Todo(description, isDone);
+            break;
+        }
+        task.setId(ids[record]);
+        return task;
+    }
+
+    private static long toEpochMinute(LocalDateTime dateTime) {
+        return dateTime.toEpochSecond(ZoneOffset.UTC) / 60;
+    }
+
+    private static LocalDateTime fromEpochMinute(long epochMinute) {
+        return LocalDateTime.ofEpochSecond(epochMinute * 60, 0, ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,373 @@
+package tasklist;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Compressed set of non-negative ints, laid out like a Roaring bitmap.
+ *
+ * Values are grouped by their high 16 bits into chunks of 65536. A chunk holding at most
+ * 4096 values is a sorted array of their low 16 bits, and a fuller chunk is a
+ * plain 8 KB bitmap, so a sparse set costs about two bytes per value and a dense one about one
+ * bit. Set operations work chunk by chunk, on 64 values at a time where both sides are bitmaps.
+ */
+class CompressedBitmap {
+    private static final int ARRAY_LIMIT = 4096;
+    private static final int WORDS_PER_CHUNK = 1024;
+
+    private char[] keys = new char[0];
+    private Chunk[] chunks = new Chunk[0];
+    private int chunkCount;
+
+    /**
+     * Adds a value.
+     *
+     * @param value The value, which must not be negative.
+     */
+    void add(int value) {
+        char key = (char) (value >>> 16);
+        int index = Arrays.binarySearch(keys, 0, chunkCount, key);
+        if (index < 0) {
+            index = -index - 1;
+            insertChunk(index, key, new Chunk());
+        }
+        chunks[index].add((char) value);
+    }
+
+    /**
+     * Removes a value if it is present.
+     *
+     * @param value The value.
+     */
+    void remove(int value) {
+        int index = Arrays.binarySearch(keys, 0, chunkCount, (char) (value >>> 16));
+        if (index < 0) {
+            return;
+        }
+        chunks[index].remove((char) value);
+        if (chunks[index].cardinality == 0) {
+            System.arraycopy(keys, index + 1, keys, index, chunkCount - index - 1);
+            System.arraycopy(chunks, index + 1, chunks, index, chunkCount - index - 1);
+            chunkCount--;
+        }
+    }
+
+    /**
+     * Returns whether a value is present.
+     *
+     * @param value The value.
+     * @return True if the value is in the set.
+     */
+    boolean contains(int value) {
+        int index = Arrays.binarySearch(keys, 0, chunkCount, (char) (value >>> 16));
+        return index >= 0 && chunks[index].contains((char) value);
+    }
+
+    /**
+     * Returns the number of values.
+     *
+     * @return The cardinality.
+     */
+    int cardinality() {
+        int cardinality = 0;
+        for (int i = 0; i < chunkCount; i++) {
+            cardinality += chunks[i].cardinality;
+        }
+        return cardinality;
+    }
+
+    /**
+     * Returns the values in both sets.
+     *
+     * @param other The other set.
+     * @return A new set.
+     */
+    CompressedBitmap and(CompressedBitmap other) {
+        CompressedBitmap result = new CompressedBitmap();
+        int i = 0;
+        int j = 0;
+        while (i < chunkCount && j < other.chunkCount) {
+            if (keys[i] < other.keys[j]) {
+                i++;
+            } else if (keys[i] > other.keys[j]) {
+                j++;
+            } else {
+                result.appendIfNotEmpty(keys[i], Chunk.combine(chunks[i], other.chunks[j], Operation.AND));
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the values in either set.
+     *
+     * @param other The other set.
+     * @return A new set.
+     */
+    CompressedBitmap or(CompressedBitmap other) {
+        CompressedBitmap result = new CompressedBitmap();
+        int i = 0;
+        int j = 0;
+        while (i < chunkCount || j < other.chunkCount) {
+            if (j == other.chunkCount || (i < chunkCount && keys[i] < other.keys[j])) {
+                result.appendIfNotEmpty(keys[i], chunks[i].copy());
+                i++;
+            } else if (i == chunkCount || keys[i] > other.keys[j]) {
+                result.appendIfNotEmpty(other.keys[j], other.chunks[j].copy());
+                j++;
+            } else {
+                result.appendIfNotEmpty(keys[i], Chunk.combine(chunks[i], other.chunks[j], Operation.OR));
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the values in this set but not the other.
+     *
+     * @param other The other set.
+     * @return A new set.
+     */
+    CompressedBitmap andNot(CompressedBitmap other) {
+        CompressedBitmap result = new CompressedBitmap();
+        int j = 0;
+        for (int i = 0; i < chunkCount; i++) {
+            while (j < other.chunkCount && other.keys[j] < keys[i]) {
+                j++;
+            }
+            if (j < other.chunkCount && other.keys[j] == keys[i]) {
+                result.appendIfNotEmpty(keys[i], Chunk.combine(chunks[i], other.chunks[j], Operation.AND_NOT));
+            } else {
+                result.appendIfNotEmpty(keys[i], chunks[i].copy());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Calls the consumer with every value, in ascending order.
+     *
+     * @param consumer The consumer.
+     */
+    void forEach(IntConsumer consumer) {
+        for (int i = 0; i < chunkCount; i++) {
+            chunks[i].forEach(keys[i] << 16, consumer);
+        }
+    }
+
+    private void appendIfNotEmpty(char key, Chunk chunk) {
+        if (chunk.cardinality > 0) {
+            insertChunk(chunkCount, key, chunk);
+        }
+    }
+
+    private void insertChunk(int index, char key, Chunk chunk) {
+        if (chunkCount == keys.length) {
+            int capacity = Math.max(4, chunkCount * 2);
+            keys = Arrays.copyOf(keys, capacity);
+            chunks = Arrays.copyOf(chunks, capacity);
+        }
+        System.arraycopy(keys, index, keys, index + 1, chunkCount - index);
+        System.arraycopy(chunks, index, chunks, index + 1, chunkCount - index);
+        keys[index] = key;
+        chunks[index] = chunk;
+        chunkCount++;
+    }
+
+    private enum Operation {
+        AND, OR, AND_NOT
+    }
+
+    /**
+     * The values of one chunk: a sorted array while sparse, a bitmap once dense.
+     */
+    private static class Chunk {
+        private char[] values = new char[4];
+        private long[] words;
+        private int cardinality;
+
+        void add(char value) {
+            if (words != null) {
+                long bit = 1L << value;
+                if ((words[value >>> 6] & bit) == 0) {
+                    words[value >>> 6] |= bit;
+                    cardinality++;
+                }
+                return;
+            }
+            // Values usually arrive in ascending order, so check the end first.
+            int index = (cardinality > 0 && values[cardinality - 1] < value)
+                    ? -cardinality - 1 : Arrays.binarySearch(values, 0, cardinality, value);
+            if (index >= 0) {
+                return;
+            }
+            if (cardinality == ARRAY_LIMIT) {
+                toWords();
+                add(value);
+                return;
+            }
+            index = -index - 1;
+            if (cardinality == values.length) {
+                values = Arrays.copyOf(values, Math.min(ARRAY_LIMIT, Math.max(4, cardinality * 2)));
+            }
+            System.arraycopy(values, index, values, index + 1, cardinality - index);
+            values[index] = value;
+            cardinality++;
+        }
+
+        void remove(char value) {
+            if (words != null) {
+                long bit = 1L << value;
+                if ((words[value >>> 6] & bit) != 0) {
+                    words[value >>> 6] &= ~bit;
+                    cardinality--;
+                    // Shrink back well below the limit, so a chunk near it does not keep switching.
+                    if (cardinality <= ARRAY_LIMIT / 2) {
+                        toValues();
+                    }
+                }
+                return;
+            }
+            int index = Arrays.binarySearch(values, 0, cardinality, value);
+            if (index >= 0) {
+                System.arraycopy(values, index + 1, values, index, cardinality - index - 1);
+                cardinality--;
+            }
+        }
+
+        boolean contains(char value) {
+            if (words != null) {
+                return (words[value >>> 6] & (1L << value)) != 0;
+            }
+            return Arrays.binarySearch(values, 0, cardinality, value) >= 0;
+        }
+
+        void forEach(int base, IntConsumer consumer) {
+            if (words == null) {
+                for (int i = 0; i < cardinality; i++) {
+                    consumer.accept(base | values[i]);
+                }
+                return;
+            }
+            for (int i = 0; i < WORDS_PER_CHUNK; i++) {
+                long word = words[i];
+                while (word != 0) {
+                    consumer.accept(base | (i << 6) | Long.numberOfTrailingZeros(word));
+                    word &= word - 1;
+                }
+            }
+        }
+
+        Chunk copy() {
+            Chunk copy = new Chunk();
+            copy.cardinality = cardinality;
+            if (words != null) {
+                copy.words = words.clone();
+                copy.values = null;
+            } else {
+                copy.values = Arrays.copyOf(values, Math.max(1, cardinality));
+            }
+            return copy;
+        }
+
+        static Chunk combine(Chunk a, Chunk b, Operation operation) {
+            if (a.words == null && b.words == null) {
+                return combineValues(a, b, operation);
+            }
+            long[] left = a.asWords();
+            long[] right = b.asWords();
+            Chunk result = new Chunk();
+            result.words = new long[WORDS_PER_CHUNK];
+            result.values = null;
+            for (int i = 0; i < WORDS_PER_CHUNK; i++) {
+                long word;
+                switch (operation) {
+                case AND:
+                    word = left[i] & right[i];
+                    break;
+                case OR:
+                    word = left[i] | right[i];
+                    break;
+                default:
+                    word = left[i] & ~right[i];
+                    break;
+                }
+                result.words[i] = word;
+                result.cardinality += Long.bitCount(word);
+            }
+            if (result.cardinality <= ARRAY_LIMIT) {
+                result.toValues();
+            }
+            return result;
+        }
+
+        private static Chunk combineValues(Chunk a, Chunk b, Operation operation) {
+            Chunk result = new Chunk();
+            char[] merged = new char[(operation == Operation.OR) ? a.cardinality + b.cardinality : a.cardinality];
+            int count = 0;
+            int i = 0;
+            int j = 0;
+            while (i < a.cardinality || j < b.cardinality) {
+                boolean takeLeft = j == b.cardinality || (i < a.cardinality && a.values[i] < b.values[j]);
+                boolean takeRight = i == a.cardinality || (j < b.cardinality && b.values[j] < a.values[i]);
+                if (takeLeft) {
+                    if (operation != Operation.AND) {
+                        merged[count++] = a.values[i];
+                    }
+                    i++;
+                } else if (takeRight) {
+                    if (operation == Operation.OR) {
+                        merged[count++] = b.values[j];
+                    }
+                    j++;
+                } else {
+                    if (operation != Operation.AND_NOT) {
+                        merged[count++] = a.values[i];
+                    }
+                    i++;
+                    j++;
+                }
+            }
+            result.values = merged;
+            result.cardinality = count;
+            if (count > ARRAY_LIMIT) {
+                result.toWords();
+            }
+            return result;
+        }
+
+        private long[] asWords() {
+            if (words != null) {
+                return words;
+            }
+            long[] bits = new long[WORDS_PER_CHUNK];
+            for (int i = 0; i < cardinality; i++) {
+                bits[values[i] >>> 6] |= 1L << values[i];
+            }
+            return bits;
+        }
+
+        private void toWords() {
+            words = asWords();
+            values = null;
+        }
+
+        private void toValues() {
+            char[] array = new char[Math.max(4, cardinality)];
+            int count = 0;
+            for (int i = 0; i < WORDS_PER_CHUNK; i++) {
+                long word = words[i];
+                while (word != 0) {
+                    array[count++] = (char) ((i << 6) | Long.numberOfTrailingZeros(word));
+                    word &= word - 1;
+                }
+            }
+            values = array;
+            words = null;
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package tasklist;
+
+import java.util.Arrays;
+
+/**
+ * Binary indexed tree over 0/1 slot weights, used to translate between list positions and
+ * slots in O(log n) while deleted slots are still present.
+ */
+class FenwickTree {
+    private int[] tree = new int[16];
+    private int size;
+
+    /**
+     * Appends a slot with the given weight.
+     *
+     * @param weight The weight of the new slot.
+     */
+    void append(int weight) {
+        size++;
+        if (size == tree.length) {
+            tree = Arrays.copyOf(tree, tree.length * 2);
+        }
+        int lowBit = size & -size;
+        tree[size] = weight + prefixSum(size - 1) - prefixSum(size - lowBit);
+    }
+
+    /**
+     * Adds delta to the weight of a slot.
+     *
+     * @param slot  The zero-based slot.
+     * @param delta The change in weight.
+     */
+    void add(int slot, int delta) {
+        for (int i = slot + 1; i <= size; i += i & -i) {
+            tree[i] += delta;
+        }
+    }
+
+    /**
+     * Returns the total weight of slots {@code [0, count)}.
+     *
+     * @param count The number of leading slots to sum.
+     * @return The sum of their weights.
+     */
+    int prefixSum(int count) {
+        int sum = 0;
+        for (int i = count; i > 0; i -= i & -i) {
+            sum += tree[i];
+        }
+        return sum;
+    }
+
+    /**
+     * Returns the slot holding the k-th unit of weight.
+     *
+     * @param rank The 1-based rank; must be between 1 and the total weight.
+     * @return The zero-based slot.
+     */
+    int select(int rank) {
+        int position = 0;
+        for (int step = Integer.highestOneBit(Math.max(size, 1)); step > 0; step >>= 1) {
+            int next = position + step;
+            if (next <= size && tree[next] < rank) {
+                position = next;
+                rank -= tree[next];
+            }
+        }
+        return position;
+    }
+
+    /**
+     * Removes every slot.
+     */
+    void clear() {
+        tree = new int[16];
+        size = 0;
+    }
+}
@@ -0,0 +1,240 @@
+package tasklist;
+
+import task.Task;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Trigram index over lowercase task descriptions.
+ *
+ * Every indexed task gets a sequence number in the order it was added, and each trigram maps
+ * to a sorted array of the sequence numbers whose description contains it. Removed tasks leave
+ * a gap that queries skip until the index is rebuilt, and a removed task that is added back
+ * before then fills its old gap again, so it keeps its place in the results.
+ *
+ * A {@link WordIndex} over the same sequence numbers serves ranked searches.
+ */
+class KeywordIndex {
+    private static final int GRAM_LENGTH = 3;
+    private static final int MIN_REBUILD_SIZE = 1024;
+
+    private final Map<String, Posting> postings = new HashMap<>();
+    private final Map<Task, Integer> sequences = new IdentityHashMap<>();
+    private final Map<Task, Integer> vacatedSequences = new IdentityHashMap<>();
+    private final WordIndex words = new WordIndex();
+    private ArrayList<Task> tasksBySequence = new ArrayList<>();
+    private int removedCount;
+
+    /**
+     * Adds a task to the index. Tasks must be added in list order.
+     *
+     * @param task The task to index.
+     */
+    void add(Task task) {
+        vacatedSequences.remove(task);
+        int sequence = tasksBySequence.size();
+        tasksBySequence.add(task);
+        sequences.put(task, sequence);
+        String text = task.getDescription().toLowerCase();
+        words.add(sequence, text);
+        for (int i = 0; i + GRAM_LENGTH <= text.length(); i++) {
+            postings.computeIfAbsent(text.substring(i, i + GRAM_LENGTH), key -> new Posting()).add(sequence);
+        }
+    }
+
+    /**
+     * Puts a removed task back into the gap it left.
+     *
+     * @param task The task to restore.
+     * @return False if the index has been rebuilt since the task was removed, so there is no gap.
+     */
+    boolean restore(Task task) {
+        Integer vacated = vacatedSequences.remove(task);
+        if (vacated == null) {
+            return false;
+        }
+        // Its postings were never removed, so only the gap needs filling.
+        tasksBySequence.set(vacated, task);
+        sequences.put(task, vacated);
+        words.restore(vacated);
+        removedCount--;
+        return true;
+    }
+
+    /**
+     * Removes a task from the index.
+     *
+     * @param task The task to remove.
+     */
+    void remove(Task task) {
+        Integer sequence = sequences.remove(task);
+        if (sequence == null) {
+            return;
+        }
+        tasksBySequence.set(sequence, null);
+        vacatedSequences.put(task, sequence);
+        words.remove(sequence);
+        removedCount++;
+        if (removedCount > MIN_REBUILD_SIZE && removedCount > sequences.size()) {
+            rebuild();
+        }
+    }
+
+    /**
+     * Returns the indexed tasks whose description contains the query, in the order they were added.
+     *
+     * @param query The lowercase text to search for.
+     * @return The matching tasks.
+     */
+    List<Task> find(String query) {
+        if (query.length() < GRAM_LENGTH) {
+            return confirm(tasksBySequence, query);
+        }
+
+        List<Posting> queryPostings = new ArrayList<>();
+        for (int i = 0; i + GRAM_LENGTH <= query.length(); i++) {
+            Posting posting = postings.get(query.substring(i, i + GRAM_LENGTH));
+            if (posting == null) {
+                return new ArrayList<>();
+            }
+            queryPostings.add(posting);
+        }
+        queryPostings.sort((a, b) -> Integer.compare(a.size, b.size));
+
+        int[] candidates = Arrays.copyOf(queryPostings.get(0).sequences, queryPostings.get(0).size);
+        int candidateCount = candidates.length;
+        for (int i = 1; i < queryPostings.size() && candidateCount > 0; i++) {
+            candidateCount = queryPostings.get(i).retainAll(candidates, candidateCount);
+        }
+
+        List<Task> candidateTasks = new ArrayList<>(candidateCount);
+        for (int i = 0; i < candidateCount; i++) {
+            candidateTasks.add(tasksBySequence.get(candidates[i]));
+        }
+        // Sharing every trigram does not guarantee they are contiguous, so confirm the match.
+        return confirm(candidateTasks, query);
+    }
+
+    /**
+     * Returns an upper bound on the number of tasks {@link #find} would return, read off the
+     * shortest posting of the query's trigrams without intersecting them.
+     *
+     * @param query The lowercase text to search for, at least three characters long.
+     * @return The bound.
+     */
+    int estimate(String query) {
+        int bound = Integer.MAX_VALUE;
+        for (int i = 0; i + GRAM_LENGTH <= query.length() && bound > 0; i++) {
+            Posting posting = postings.get(query.substring(i, i + GRAM_LENGTH));
+            bound = Math.min(bound, (posting != null) ? posting.size : 0);
+        }
+        return Math.min(bound, sequences.size());
+    }
+
+    /**
+     * Returns whether {@link #find} can use the trigrams of a query rather than check every task.
+     *
+     * @param query The lowercase text to search for.
+     * @return True if the query is long enough to have a trigram.
+     */
+    static boolean canLookUp(String query) {
+        return query.length() >= GRAM_LENGTH;
+    }
+
+    /**
+     * Returns the indexed tasks that best match the words of a query, best first.
+     *
+     * @param query The words to search for.
+     * @param limit The maximum number of tasks to return.
+     * @return The matching tasks.
+     */
+    List<Task> rank(String query, int limit) {
+        int[] ranked = words.rank(query, limit, sequence -> tasksBySequence.get(sequence) != null);
+        List<Task> rankedTasks = new ArrayList<>(ranked.length);
+        for (int sequence : ranked) {
+            rankedTasks.add(tasksBySequence.get(sequence));
+        }
+        return rankedTasks;
+    }
+
+    private static List<Task> confirm(List<Task> candidates, String query) {
+        List<Task> matchedTasks = new ArrayList<>();
+        for (Task task : candidates) {
+            if (task != null && task.getDescription().toLowerCase().contains(query)) {
+                matchedTasks.add(task);
+            }
+        }
+        return matchedTasks;
+    }
+
+    private void rebuild() {
+        ArrayList<Task> liveTasks = new ArrayList<>(sequences.size());
+        for (Task task : tasksBySequence) {
+            if (task != null) {
+                liveTasks.add(task);
+            }
+        }
+        rebuild(liveTasks);
+    }
+
+    /**
+     * Indexes the given tasks from scratch.
+     *
+     * @param liveTasks Every task, in list order.
+     */
+    void rebuild(List<Task> liveTasks) {
+        postings.clear();
+        words.clear();
+        sequences.clear();
+        vacatedSequences.clear();
+        tasksBySequence = new ArrayList<>(liveTasks.size());
+        removedCount = 0;
+        for (Task task : liveTasks) {
+            add(task);
+        }
+    }
+
+    /**
+     * Sorted, growable array of sequence numbers.
+     */
+    private static class Posting {
+        private int[] sequences = new int[2];
+        private int size;
+
+        void add(int sequence) {
+            // A trigram repeated within one description is only recorded once.
+            if (size > 0 && sequences[size - 1] == sequence) {
+                return;
+            }
+            if (size == sequences.length) {
+                sequences = Arrays.copyOf(sequences, size * 2);
+            }
+            sequences[size++] = sequence;
+        }
+
+        /**
+         * Keeps only the candidates that also appear in this posting.
+         *
+         * @return The number of candidates kept at the front of the array.
+         */
+        int retainAll(int[] candidates, int count) {
+            int kept = 0;
+            int from = 0;
+            for (int i = 0; i < count; i++) {
+                int found = Arrays.binarySearch(sequences, from, size, candidates[i]);
+                if (found >= 0) {
+                    candidates[kept++] = candidates[i];
+                    from = found + 1;
+                } else {
+                    from = -found - 1;
+                }
+            }
+            return kept;
+        }
+    }
+}
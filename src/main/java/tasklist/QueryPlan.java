@@ -0,0 +1,349 @@
+package tasklist;
+
+import task.Task;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * How a {@link TaskQuery} will be answered on one task list: a tree of steps chosen by
+ * {@link QueryPlanner}, each with the number of tasks it is expected to produce.
+ *
+ * Iterating the plan runs it. Tasks come out in list order one at a time as the caller asks
+ * for them, so a full scan under a limit stops as soon as it has found enough. Index lookups
+ * gather their candidates up front, and only those candidates are then checked and returned
+ * lazily. Each step counts the tasks it actually produced, which {@link #explain()} shows next
+ * to its estimate. A plan is only valid while the list's read lock is held, and runs once.
+ */
+public final class QueryPlan implements Iterable<Task> {
+    private final Node root;
+    private final double cost;
+
+    QueryPlan(Node root, double cost) {
+        this.root = root;
+        this.cost = cost;
+    }
+
+    /**
+     * Runs the plan.
+     *
+     * @return The matching tasks, in list order.
+     */
+    @Override
+    public Iterator<Task> iterator() {
+        return root.open();
+    }
+
+    /**
+     * Returns one line per step of the plan, indented under the step that consumes it, with its
+     * estimated rows and the rows it has produced so far.
+     *
+     * @return The lines, starting with the estimated cost of the whole plan.
+     */
+    public List<String> explain() {
+        List<String> lines = new ArrayList<>();
+        lines.add(String.format("Estimated cost %.0f", cost));
+        root.describe(0, lines);
+        return lines;
+    }
+
+    /**
+     * One step of a plan.
+     */
+    abstract static class Node {
+        private final String label;
+        private final double estimatedRows;
+        private final List<Node> children;
+        long actualRows;
+
+        Node(String label, double estimatedRows, Node... children) {
+            this.label = label;
+            this.estimatedRows = estimatedRows;
+            this.children = Arrays.asList(children);
+        }
+
+        double getEstimatedRows() {
+            return estimatedRows;
+        }
+
+        /**
+         * Starts producing this step's tasks.
+         */
+        abstract Iterator<Task> open();
+
+        private void describe(int depth, List<String> lines) {
+            lines.add(String.format("%s%s  (est %.0f rows, actual %d)",
+                    "  ".repeat(depth), label, estimatedRows, actualRows));
+            for (Node child : children) {
+                child.describe(depth + 1, lines);
+            }
+        }
+    }
+
+    /**
+     * A step that picks candidate slots from an index, all at once and in ascending order.
+     */
+    abstract static class Source extends Node {
+        Source(String label, double estimatedRows, Node... children) {
+            super(label, estimatedRows, children);
+        }
+
+        abstract int[] selectSlots();
+
+        @Override
+        Iterator<Task> open() {
+            throw new UnsupportedOperationException("A source is read through a Filter.");
+        }
+    }
+
+    /**
+     * Reads every slot of the list and keeps the tasks that match the expression.
+     */
+    static final class FullScan extends Node {
+        private final TaskList tasks;
+        private final TaskQuery.Expr expr;
+
+        FullScan(TaskList tasks, TaskQuery.Expr expr, double estimatedRows) {
+            super("Scan all " + tasks.size() + " tasks for " + expr, estimatedRows);
+            this.tasks = tasks;
+            this.expr = expr;
+        }
+
+        @Override
+        Iterator<Task> open() {
+            return new LookaheadIterator() {
+                private int slot;
+
+                @Override
+                Task computeNext() {
+                    while (slot < tasks.slotCount()) {
+                        Task task = tasks.taskInSlot(slot++);
+                        if (task != null && expr.matches(task)) {
+                            actualRows++;
+                            return task;
+                        }
+                    }
+                    return null;
+                }
+            };
+        }
+    }
+
+    /**
+     * Fetches the tasks in a source's slots and keeps those that match the rest of the query.
+     */
+    static final class Filter extends Node {
+        private final TaskList tasks;
+        private final Source source;
+        private final TaskQuery.Expr residual;
+
+        /**
+         * @param residual What the candidates must still match, or null if they all match.
+         */
+        Filter(TaskList tasks, Source source, TaskQuery.Expr residual, double estimatedRows) {
+            super((residual == null) ? "Fetch" : "Filter " + residual, estimatedRows, source);
+            this.tasks = tasks;
+            this.source = source;
+            this.residual = residual;
+        }
+
+        @Override
+        Iterator<Task> open() {
+            int[] candidates = source.selectSlots();
+            return new LookaheadIterator() {
+                private int next;
+
+                @Override
+                Task computeNext() {
+                    while (next < candidates.length) {
+                        Task task = tasks.taskInSlot(candidates[next++]);
+                        if (residual == null || residual.matches(task)) {
+                            actualRows++;
+                            return task;
+                        }
+                    }
+                    return null;
+                }
+            };
+        }
+    }
+
+    /**
+     * Stops after the first {@code limit} tasks.
+     */
+    static final class Limit extends Node {
+        private final Node child;
+        private final int limit;
+
+        Limit(Node child, int limit) {
+            super("Limit " + limit, Math.min(limit, child.getEstimatedRows()), child);
+            this.child = child;
+            this.limit = limit;
+        }
+
+        @Override
+        Iterator<Task> open() {
+            Iterator<Task> childTasks = child.open();
+            return new LookaheadIterator() {
+                @Override
+                Task computeNext() {
+                    if (actualRows == limit || !childTasks.hasNext()) {
+                        return null;
+                    }
+                    actualRows++;
+                    return childTasks.next();
+                }
+            };
+        }
+    }
+
+    /**
+     * The slots of the tasks that match a set of tag, type and done terms.
+     */
+    static final class BitmapScan extends Source {
+        private final CompressedBitmap slots;
+
+        BitmapScan(TaskQuery.Expr expr, CompressedBitmap slots) {
+            super("Bitmap scan " + expr, slots.cardinality());
+            this.slots = slots;
+        }
+
+        @Override
+        int[] selectSlots() {
+            int[] selected = new int[slots.cardinality()];
+            int[] count = new int[1];
+            slots.forEach(slot -> selected[count[0]++] = slot);
+            actualRows = selected.length;
+            return selected;
+        }
+    }
+
+    /**
+     * The slots of the tasks whose description contains a keyword, found by trigram.
+     */
+    static final class KeywordLookup extends Source {
+        private final TaskList tasks;
+        private final KeywordIndex index;
+        private final String keyword;
+
+        KeywordLookup(TaskList tasks, KeywordIndex index, TaskQuery.Keyword keyword, double estimatedRows) {
+            super("Keyword index lookup " + keyword, estimatedRows);
+            this.tasks = tasks;
+            this.index = index;
+            this.keyword = keyword.getText();
+        }
+
+        @Override
+        int[] selectSlots() {
+            return toSortedSlots(tasks, index.find(keyword), this);
+        }
+    }
+
+    /**
+     * The slots of the deadlines and events whose time overlaps a range.
+     */
+    static final class TimeLookup extends Source {
+        private final TaskList tasks;
+        private final TimeIndex index;
+        private final TaskQuery.TimeRange range;
+
+        TimeLookup(TaskList tasks, TimeIndex index, TaskQuery.TimeRange range, double estimatedRows) {
+            super("Time index lookup " + range, estimatedRows);
+            this.tasks = tasks;
+            this.index = index;
+            this.range = range;
+        }
+
+        @Override
+        int[] selectSlots() {
+            return toSortedSlots(tasks, index.findOverlappingTasks(range.getFrom(), range.getTo()), this);
+        }
+    }
+
+    /**
+     * The slots picked by any of several sources, each once.
+     */
+    static final class Union extends Source {
+        private final Source[] sources;
+
+        Union(Source[] sources, double estimatedRows) {
+            super("Union", estimatedRows, sources);
+            this.sources = sources;
+        }
+
+        @Override
+        int[] selectSlots() {
+            int[] merged = new int[0];
+            for (Source source : sources) {
+                merged = mergeDistinct(merged, source.selectSlots());
+            }
+            actualRows = merged.length;
+            return merged;
+        }
+
+        private static int[] mergeDistinct(int[] a, int[] b) {
+            int[] merged = new int[a.length + b.length];
+            int count = 0;
+            int i = 0;
+            int j = 0;
+            while (i < a.length || j < b.length) {
+                int next;
+                if (j == b.length || (i < a.length && a[i] < b[j])) {
+                    next = a[i++];
+                } else if (i == a.length || b[j] < a[i]) {
+                    next = b[j++];
+                } else {
+                    next = a[i++];
+                    j++;
+                }
+                merged[count++] = next;
+            }
+            return Arrays.copyOf(merged, count);
+        }
+    }
+
+    private static int[] toSortedSlots(TaskList tasks, List<Task> found, Node node) {
+        int[] slots = new int[found.size()];
+        for (int i = 0; i < slots.length; i++) {
+            slots[i] = tasks.slotOfTask(found.get(i));
+        }
+        Arrays.sort(slots);
+        node.actualRows = slots.length;
+        return slots;
+    }
+
+    /**
+     * Iterator that works out each element only when it is asked for.
+     */
+    private abstract static class LookaheadIterator implements Iterator<Task> {
+        private Task next;
+        private boolean isFinished;
+
+        /**
+         * Returns the next element, or null once there are no more.
+         */
+        abstract Task computeNext();
+
+        @Override
+        public boolean hasNext() {
+            if (next == null && !isFinished) {
+                next = computeNext();
+                isFinished = next == null;
+            }
+            return next != null;
+        }
+
+        @Override
+        public Task next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Task task = next;
+            next = null;
+            return task;
+        }
+    }
+}
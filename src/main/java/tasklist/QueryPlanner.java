@@ -0,0 +1,292 @@
+package tasklist;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Chooses how to answer a {@link TaskQuery} on one task list, by comparing the estimated cost
+ * of a full scan with that of starting from an index.
+ *
+ * Each predicate that an index can answer has an access path: tag, type and done terms (and
+ * any and/or/not of them) read the {@link TagIndex} bitmaps, whose result size is exact; a
+ * keyword of three or more letters reads the {@link KeywordIndex}, bounded by its shortest
+ * trigram posting; a date range reads the {@link TimeIndex}, estimated as if starts were spread
+ * evenly. For an AND the planner tries each operand with an access path as the driver and
+ * checks the others on its candidates, keeping the cheapest. An OR can only use indexes if every
+ * operand can, in which case their candidates are merged. Selectivities of different operands
+ * are assumed independent. A limit favours the full scan, which can stop early, while an index
+ * must gather all its candidates first. Lazily loaded lists keep no indexes, so they are
+ * always scanned.
+ */
+class QueryPlanner {
+    /** Cost of visiting one slot in a full scan. */
+    private static final double SCAN_ROW_COST = 1.0;
+    /** Extra cost per slot of decoding a task that is not kept in memory. */
+    private static final double DECODE_ROW_COST = 4.0;
+    /** Cost of checking one predicate against one task. */
+    private static final double PREDICATE_COST = 0.25;
+    /** Cost of turning one index candidate into a slot and fetching its task. */
+    private static final double FETCH_ROW_COST = 1.5;
+    /** Fixed cost of one index lookup. */
+    private static final double LOOKUP_COST = 20;
+    /** Cost per slot of one bitmap operation, which handles 64 slots a word. */
+    private static final double BITMAP_SLOT_COST = 1.0 / 64;
+
+    /** Fractions of the list assumed to match when there is no index to ask. */
+    private static final double DEFAULT_KEYWORD_SELECTIVITY = 0.1;
+    private static final double DEFAULT_TIME_SELECTIVITY = 0.2;
+    private static final double DEFAULT_TAG_SELECTIVITY = 0.05;
+
+    private final TaskList tasks;
+    private final KeywordIndex keywordIndex;
+    private final TimeIndex timeIndex;
+    private final TagIndex tagIndex;
+    private final int size;
+    private final Map<TaskQuery.Expr, CompressedBitmap> selectedSlots = new IdentityHashMap<>();
+
+    /**
+     * Constructs a planner for one list.
+     *
+     * @param tasks        The list.
+     * @param keywordIndex Its keyword index, or null if it has no indexes.
+     * @param timeIndex    Its time index, or null if it has no indexes.
+     * @param tagIndex     Its tag index, or null if it has no indexes.
+     */
+    QueryPlanner(TaskList tasks, KeywordIndex keywordIndex, TimeIndex timeIndex, TagIndex tagIndex) {
+        this.tasks = tasks;
+        this.keywordIndex = keywordIndex;
+        this.timeIndex = timeIndex;
+        this.tagIndex = tagIndex;
+        this.size = tasks.size();
+    }
+
+    /**
+     * Plans a query.
+     *
+     * @param query The query.
+     * @return The cheapest plan found.
+     */
+    QueryPlan plan(TaskQuery query) {
+        TaskQuery.Expr root = query.getRoot();
+        int limit = query.getLimit();
+        double matchingRows = estimateRows(root);
+
+        double rowCost = SCAN_ROW_COST + ((tagIndex == null) ? DECODE_ROW_COST : 0)
+                + PREDICATE_COST * root.predicateCount();
+        double scanCost = rowsRead(tasks.slotCount(), matchingRows, limit) * rowCost;
+        QueryPlan.Node best = new QueryPlan.FullScan(tasks, root, matchingRows);
+        double bestCost = scanCost;
+
+        Access access = (tagIndex == null) ? null : accessPath(root);
+        if (access != null) {
+            double sourceRows = access.source.getEstimatedRows();
+            double accessCost = access.sourceCost
+                    + rowsRead(sourceRows, matchingRows, limit) * fetchRowCost(access.residual);
+            if (accessCost < bestCost) {
+                best = new QueryPlan.Filter(tasks, access.source, access.residual, matchingRows);
+                bestCost = accessCost;
+            }
+        }
+
+        if (limit > 0) {
+            best = new QueryPlan.Limit(best, limit);
+        }
+        return new QueryPlan(best, bestCost);
+    }
+
+    /**
+     * Returns how many of {@code rows} candidates must be read to find {@code limit} matches,
+     * if a fraction {@code matchingRows / rows} of them match.
+     */
+    private static double rowsRead(double rows, double matchingRows, int limit) {
+        if (limit <= 0 || matchingRows <= limit) {
+            return rows;
+        }
+        return Math.min(rows, rows * limit / matchingRows);
+    }
+
+    private static double fetchRowCost(TaskQuery.Expr residual) {
+        return FETCH_ROW_COST + ((residual == null) ? 0 : PREDICATE_COST * residual.predicateCount());
+    }
+
+    /**
+     * Returns the cheapest way to answer an expression from the indexes, or null if some part of
+     * it can only be answered by looking at every task.
+     */
+    private Access accessPath(TaskQuery.Expr expr) {
+        if (TagIndex.canSelect(expr)) {
+            CompressedBitmap slots = select(expr);
+            QueryPlan.Source source = new QueryPlan.BitmapScan(expr, slots);
+            return new Access(source, null, expr.predicateCount() * tasks.slotCount() * BITMAP_SLOT_COST);
+        }
+        if (expr instanceof TaskQuery.Keyword) {
+            TaskQuery.Keyword keyword = (TaskQuery.Keyword) expr;
+            if (!KeywordIndex.canLookUp(keyword.getText())) {
+                return null;
+            }
+            double rows = keywordIndex.estimate(keyword.getText());
+            QueryPlan.Source source = new QueryPlan.KeywordLookup(tasks, keywordIndex, keyword, rows);
+            return new Access(source, null, LOOKUP_COST + rows * (FETCH_ROW_COST + PREDICATE_COST));
+        }
+        if (expr instanceof TaskQuery.TimeRange) {
+            TaskQuery.TimeRange range = (TaskQuery.TimeRange) expr;
+            double rows = timeIndex.estimateOverlapping(range.getFrom(), range.getTo());
+            QueryPlan.Source source = new QueryPlan.TimeLookup(tasks, timeIndex, range, rows);
+            return new Access(source, null, LOOKUP_COST + rows * FETCH_ROW_COST);
+        }
+        if (expr instanceof TaskQuery.And) {
+            return andAccessPath(((TaskQuery.And) expr).getOperands());
+        }
+        if (expr instanceof TaskQuery.Or) {
+            return orAccessPath((TaskQuery.Or) expr);
+        }
+        return null;
+    }
+
+    /**
+     * Drives an AND from the operand whose candidates are cheapest to gather and check, with
+     * all the tag, type and done operands answered together as one bitmap scan.
+     */
+    private Access andAccessPath(List<TaskQuery.Expr> operands) {
+        List<TaskQuery.Expr> bitmapOperands = new ArrayList<>();
+        List<TaskQuery.Expr> otherOperands = new ArrayList<>();
+        for (TaskQuery.Expr operand : operands) {
+            (TagIndex.canSelect(operand) ? bitmapOperands : otherOperands).add(operand);
+        }
+
+        List<TaskQuery.Expr> drivers = new ArrayList<>(otherOperands);
+        if (!bitmapOperands.isEmpty()) {
+            drivers.add(combine(bitmapOperands));
+        }
+
+        Access best = null;
+        double bestCost = Double.MAX_VALUE;
+        for (TaskQuery.Expr driver : drivers) {
+            Access access = accessPath(driver);
+            if (access == null) {
+                continue;
+            }
+            List<TaskQuery.Expr> rest = new ArrayList<>();
+            if (access.residual != null) {
+                rest.add(access.residual);
+            }
+            for (TaskQuery.Expr other : drivers) {
+                if (other != driver) {
+                    rest.add(other);
+                }
+            }
+            TaskQuery.Expr residual = rest.isEmpty() ? null : combine(rest);
+            double cost = access.sourceCost + access.source.getEstimatedRows() * fetchRowCost(residual);
+            if (cost < bestCost) {
+                best = new Access(access.source, residual, access.sourceCost);
+                bestCost = cost;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Answers an OR by merging the candidates of every operand, or returns null if one of them
+     * has no access path. Candidates that an operand's own driver let through are checked
+     * against the whole OR again.
+     */
+    private Access orAccessPath(TaskQuery.Or or) {
+        List<TaskQuery.Expr> operands = or.getOperands();
+        QueryPlan.Source[] sources = new QueryPlan.Source[operands.size()];
+        double cost = 0;
+        double rows = 0;
+        boolean hasResidual = false;
+        for (int i = 0; i < sources.length; i++) {
+            Access access = accessPath(operands.get(i));
+            if (access == null) {
+                return null;
+            }
+            sources[i] = access.source;
+            cost += access.sourceCost + access.source.getEstimatedRows();
+            rows += access.source.getEstimatedRows();
+            hasResidual |= access.residual != null;
+        }
+        QueryPlan.Source union = new QueryPlan.Union(sources, Math.min(size, rows));
+        return new Access(union, hasResidual ? or : null, cost);
+    }
+
+    private static TaskQuery.Expr combine(List<TaskQuery.Expr> operands) {
+        return (operands.size() == 1) ? operands.get(0) : new TaskQuery.And(operands);
+    }
+
+    private CompressedBitmap select(TaskQuery.Expr expr) {
+        return selectedSlots.computeIfAbsent(expr, tagIndex::select);
+    }
+
+    /**
+     * Estimates how many tasks match an expression.
+     */
+    private double estimateRows(TaskQuery.Expr expr) {
+        if (size == 0) {
+            return 0;
+        }
+        if (tagIndex != null && TagIndex.canSelect(expr)) {
+            return select(expr).cardinality();
+        }
+        if (expr instanceof TaskQuery.And) {
+            double rows = size;
+            for (TaskQuery.Expr operand : ((TaskQuery.And) expr).getOperands()) {
+                rows *= estimateRows(operand) / size;
+            }
+            return rows;
+        }
+        if (expr instanceof TaskQuery.Or) {
+            double missed = 1;
+            for (TaskQuery.Expr operand : ((TaskQuery.Or) expr).getOperands()) {
+                missed *= 1 - estimateRows(operand) / size;
+            }
+            return size * (1 - missed);
+        }
+        if (expr instanceof TaskQuery.Not) {
+            return size - estimateRows(((TaskQuery.Not) expr).getOperand());
+        }
+        if (expr instanceof TaskQuery.Keyword) {
+            String text = ((TaskQuery.Keyword) expr).getText();
+            return (keywordIndex != null && KeywordIndex.canLookUp(text))
+                    ? keywordIndex.estimate(text) : size * DEFAULT_KEYWORD_SELECTIVITY;
+        }
+        if (expr instanceof TaskQuery.TimeRange) {
+            TaskQuery.TimeRange range = (TaskQuery.TimeRange) expr;
+            return (timeIndex != null)
+                    ? Math.min(size, timeIndex.estimateOverlapping(range.getFrom(), range.getTo()))
+                    : size * DEFAULT_TIME_SELECTIVITY;
+        }
+        TaskFilter.Term term = ((TaskQuery.FilterTerm) expr).getTerm();
+        double rows;
+        switch (term.getKind()) {
+        case TAG:
+            rows = size * DEFAULT_TAG_SELECTIVITY;
+            break;
+        case TYPE:
+            rows = size / 3.0;
+            break;
+        default:
+            rows = size / 2.0;
+            break;
+        }
+        return term.isNegated() ? size - rows : rows;
+    }
+
+    /**
+     * An index that gives candidates for an expression, what the candidates must still be
+     * checked against, and what gathering them costs.
+     */
+    private static final class Access {
+        private final QueryPlan.Source source;
+        private final TaskQuery.Expr residual;
+        private final double sourceCost;
+
+        Access(QueryPlan.Source source, TaskQuery.Expr residual, double sourceCost) {
+            this.source = source;
+            this.residual = residual;
+            this.sourceCost = sourceCost;
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package tasklist;
+
+import task.Task;
+
+import java.time.Duration;
+
+/**
+ * A reminder that a deadline is due or an event starts soon.
+ */
+public final class Reminder {
+    private final Task task;
+    private final Duration timeLeft;
+
+    Reminder(Task task, Duration timeLeft) {
+        this.task = task;
+        this.timeLeft = timeLeft;
+    }
+
+    /**
+     * Returns the task, or for a recurring task the occurrence, that the reminder is about.
+     *
+     * @return The task.
+     */
+    public Task getTask() {
+        return task;
+    }
+
+    /**
+     * Returns how long there was until the task started when the reminder fired.
+     *
+     * @return The time left, never negative.
+     */
+    public Duration getTimeLeft() {
+        return timeLeft;
+    }
+}
@@ -0,0 +1,166 @@
+package tasklist;
+
+import command.EddieException;
+import task.Occurrence;
+import task.Recurring;
+import task.Task;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The reminders of one task list: one per lead time ahead of each deadline and event that is
+ * not done, kept on a {@link TimingWheel}.
+ *
+ * A reminder whose time has already passed when its task is scheduled is dropped, unless it is
+ * the one with the shortest lead, which then fires straight away as long as the task has not
+ * started. So a deadline added half an hour before it is due with a one-hour lead is still
+ * reminded of once. A recurring task is scheduled for its next occurrence that is not done, and
+ * moves on to the one after when the reminder with its shortest lead fires; marking one of its
+ * occurrences never brings back a reminder that has already fired. Time comes from a
+ * {@link Clock}, so a fixed or offset clock can step through reminders deterministically.
+ * Reminders are not saved; they are rebuilt from the tasks whenever a list is loaded.
+ */
+class ReminderSchedule {
+    private final Clock clock;
+    private final long[] leadMinutes;
+    private final TimingWheel wheel;
+
+    /**
+     * Constructs an empty schedule.
+     *
+     * @param clock     Where the current time comes from.
+     * @param leadTimes How long before a task starts to remind of it, at least one.
+     */
+    ReminderSchedule(Clock clock, List<Duration> leadTimes) {
+        this.clock = clock;
+        long[] shortestFirst = leadTimes.stream().mapToLong(lead -> Math.max(0, lead.toMinutes()))
+                .distinct().sorted().toArray();
+        this.leadMinutes = new long[shortestFirst.length];
+        for (int i = 0; i < shortestFirst.length; i++) {
+            leadMinutes[i] = shortestFirst[shortestFirst.length - 1 - i];
+        }
+        this.wheel = new TimingWheel(toEpochMinute(LocalDateTime.now(clock)));
+    }
+
+    /**
+     * Schedules the reminders of a task, if it has a time and is not done.
+     *
+     * @param task The task.
+     */
+    void add(Task task) {
+        if (task instanceof Recurring) {
+            scheduleNextOccurrence((Recurring) task, LocalDateTime.now(clock));
+        } else if (task.getStart() != null && !task.isDone()) {
+            schedule(task.getId(), task.getStart(), -1);
+        }
+    }
+
+    /**
+     * Cancels the reminders of a task.
+     *
+     * @param task The task.
+     */
+    void remove(Task task) {
+        wheel.cancel(task.getId());
+    }
+
+    /**
+     * Reschedules a task whose done status changed.
+     *
+     * @param task The task.
+     */
+    void update(Task task) {
+        if (!(task instanceof Recurring)) {
+            remove(task);
+            add(task);
+            return;
+        }
+        // An occurrence whose last reminder was due before the minute the wheel has reached has
+        // had it already, unless that reminder is still waiting to be taken, so only later ones
+        // are rescheduled. Otherwise marking one occurrence would remind of another all over again.
+        Recurring series = (Recurring) task;
+        long firstUnreminded = wheel.getNextMinute() + leadMinutes[leadMinutes.length - 1];
+        LocalDateTime from = LocalDateTime.ofEpochSecond(firstUnreminded * 60, 0, ZoneOffset.UTC);
+        int waiting = wheel.occurrenceOf(series.getId());
+        if (waiting >= 0 && series.startOf(waiting).isBefore(from)) {
+            from = series.startOf(waiting);
+        }
+        LocalDateTime now = LocalDateTime.now(clock);
+        remove(series);
+        scheduleNextOccurrence(series, from.isAfter(now) ? from : now);
+    }
+
+    /**
+     * Returns the reminders that have come due since the last call, each task once. Reminders
+     * whose task has started by now, because no one asked while they were due, are dropped.
+     *
+     * @param tasks The list the reminders are for.
+     * @return The reminders, ordered by when their tasks start.
+     */
+    List<Reminder> takeDue(TaskList tasks) {
+        LocalDateTime now = LocalDateTime.now(clock);
+        long nowMinute = toEpochMinute(now);
+        List<Reminder> due = new ArrayList<>();
+        Set<String> reminded = new HashSet<>();
+        for (TimingWheel.Timer timer : wheel.advanceTo(nowMinute)) {
+            int occurrence = timer.getOccurrence();
+            boolean hasStarted = timer.getMinute() + leadMinutes[timer.getLead()] < nowMinute;
+            if (hasStarted && occurrence < 0) {
+                continue;
+            }
+            Task task;
+            try {
+                task = tasks.getTaskById(timer.getTaskId());
+            } catch (EddieException e) {
+                continue;
+            }
+            if (occurrence >= 0) {
+                Recurring series = (Recurring) task;
+                if (timer.getLead() == leadMinutes.length - 1) {
+                    LocalDateTime after = series.startOf(occurrence).plusMinutes(1);
+                    scheduleNextOccurrence(series, after.isAfter(now) ? after : now);
+                }
+                task = series.getOccurrence(occurrence);
+            }
+            if (!task.isDone() && !hasStarted && reminded.add(timer.getTaskId() + "/" + occurrence)) {
+                Duration timeLeft = Duration.between(now, task.getStart());
+                due.add(new Reminder(task, timeLeft.isNegative() ? Duration.ZERO : timeLeft));
+            }
+        }
+        due.sort(Comparator.comparing(Reminder::getTask, TimeIndex.BY_START));
+        return due;
+    }
+
+    private void scheduleNextOccurrence(Recurring series, LocalDateTime from) {
+        List<Task> next = series.getPendingOccurrencesFrom(from, 1);
+        if (!next.isEmpty()) {
+            schedule(series.getId(), next.get(0).getStart(), ((Occurrence) next.get(0)).getIndex());
+        }
+    }
+
+    private void schedule(long id, LocalDateTime start, int occurrence) {
+        long now = toEpochMinute(LocalDateTime.now(clock));
+        long startMinute = toEpochMinute(start);
+        if (startMinute < now) {
+            return;
+        }
+        for (int lead = 0; lead < leadMinutes.length; lead++) {
+            long minute = startMinute - leadMinutes[lead];
+            if (minute >= now || lead == leadMinutes.length - 1) {
+                wheel.add(id, minute, lead, occurrence);
+            }
+        }
+    }
+
+    private static long toEpochMinute(LocalDateTime dateTime) {
+        return dateTime.toEpochSecond(ZoneOffset.UTC) / 60;
+    }
+}
@@ -0,0 +1,195 @@
+package tasklist;
+
+import task.Task;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compressed bitmaps of the slots holding each tag, each task type and the done tasks, for
+ * answering a {@link TaskFilter} with set operations instead of looking at every task.
+ *
+ * Bitmaps are keyed by slot rather than list position, so deleting a task only clears its own
+ * bits, and the set bits come out in list order. They are rebuilt whenever slots move.
+ */
+class TagIndex {
+    private final Map<String, CompressedBitmap> tagSlots = new HashMap<>();
+    private final Map<String, CompressedBitmap> typeSlots = new HashMap<>();
+    private CompressedBitmap doneSlots = new CompressedBitmap();
+    private CompressedBitmap liveSlots = new CompressedBitmap();
+
+    /**
+     * Indexes a task.
+     *
+     * @param slot The task's slot.
+     * @param task The task.
+     */
+    void add(int slot, Task task) {
+        for (String tag : task.getTags()) {
+            tagSlots.computeIfAbsent(tag, key -> new CompressedBitmap()).add(slot);
+        }
+        typeSlots.computeIfAbsent(TaskFilter.typeOf(task), key -> new CompressedBitmap()).add(slot);
+        if (task.isDone()) {
+            doneSlots.add(slot);
+        }
+        liveSlots.add(slot);
+    }
+
+    /**
+     * Removes a task from every bitmap.
+     *
+     * @param slot The slot the task was in.
+     * @param task The task.
+     */
+    void remove(int slot, Task task) {
+        for (String tag : task.getTags()) {
+            CompressedBitmap slots = tagSlots.get(tag);
+            if (slots != null) {
+                slots.remove(slot);
+                if (slots.cardinality() == 0) {
+                    tagSlots.remove(tag);
+                }
+            }
+        }
+        CompressedBitmap slots = typeSlots.get(TaskFilter.typeOf(task));
+        if (slots != null) {
+            slots.remove(slot);
+        }
+        doneSlots.remove(slot);
+        liveSlots.remove(slot);
+    }
+
+    /**
+     * Records a change to a task's done status.
+     *
+     * @param slot   The task's slot.
+     * @param isDone The new status.
+     */
+    void setDone(int slot, boolean isDone) {
+        if (isDone) {
+            doneSlots.add(slot);
+        } else {
+            doneSlots.remove(slot);
+        }
+    }
+
+    /**
+     * Removes every task.
+     */
+    void clear() {
+        tagSlots.clear();
+        typeSlots.clear();
+        doneSlots = new CompressedBitmap();
+        liveSlots = new CompressedBitmap();
+    }
+
+    /**
+     * Returns the slots of the tasks that pass a filter. Each clause becomes the OR of its
+     * terms' bitmaps, with a negated term taken away from the live slots, and the clauses are
+     * ANDed together smallest first so the intermediate results shrink as fast as possible.
+     *
+     * @param filter The filter.
+     * @return The matching slots, in ascending order.
+     */
+    CompressedBitmap select(TaskFilter filter) {
+        List<CompressedBitmap> clauseSlots = new ArrayList<>();
+        for (List<TaskFilter.Term> clause : filter.getClauses()) {
+            CompressedBitmap union = new CompressedBitmap();
+            for (TaskFilter.Term term : clause) {
+                CompressedBitmap slots = slotsOf(term);
+                union = union.or(term.isNegated() ? liveSlots.andNot(slots) : slots);
+            }
+            clauseSlots.add(union);
+        }
+        clauseSlots.sort((a, b) -> Integer.compare(a.cardinality(), b.cardinality()));
+
+        CompressedBitmap result = clauseSlots.get(0);
+        for (int i = 1; i < clauseSlots.size() && result.cardinality() > 0; i++) {
+            result = result.and(clauseSlots.get(i));
+        }
+        return result;
+    }
+
+    /**
+     * Returns the slots of the tasks that match a query expression made only of tag, type and
+     * done terms; see {@link #canSelect(TaskQuery.Expr)}. Operands of an AND are intersected
+     * smallest first, as in {@link #select(TaskFilter)}.
+     *
+     * @param expr The expression.
+     * @return The matching slots, in ascending order.
+     */
+    CompressedBitmap select(TaskQuery.Expr expr) {
+        if (expr instanceof TaskQuery.FilterTerm) {
+            TaskFilter.Term term = ((TaskQuery.FilterTerm) expr).getTerm();
+            return term.isNegated() ? liveSlots.andNot(slotsOf(term)) : slotsOf(term);
+        }
+        if (expr instanceof TaskQuery.Not) {
+            return liveSlots.andNot(select(((TaskQuery.Not) expr).getOperand()));
+        }
+        if (expr instanceof TaskQuery.Or) {
+            CompressedBitmap union = new CompressedBitmap();
+            for (TaskQuery.Expr operand : ((TaskQuery.Or) expr).getOperands()) {
+                union = union.or(select(operand));
+            }
+            return union;
+        }
+        List<CompressedBitmap> operandSlots = new ArrayList<>();
+        for (TaskQuery.Expr operand : ((TaskQuery.And) expr).getOperands()) {
+            operandSlots.add(select(operand));
+        }
+        operandSlots.sort((a, b) -> Integer.compare(a.cardinality(), b.cardinality()));
+        CompressedBitmap result = operandSlots.get(0);
+        for (int i = 1; i < operandSlots.size() && result.cardinality() > 0; i++) {
+            result = result.and(operandSlots.get(i));
+        }
+        return result;
+    }
+
+    /**
+     * Returns whether an expression can be answered from the bitmaps alone, that is whether
+     * it only combines tag, type and done terms.
+     *
+     * @param expr The expression.
+     * @return True if {@link #select(TaskQuery.Expr)} can answer it.
+     */
+    static boolean canSelect(TaskQuery.Expr expr) {
+        if (expr instanceof TaskQuery.FilterTerm) {
+            return true;
+        }
+        if (expr instanceof TaskQuery.Not) {
+            return canSelect(((TaskQuery.Not) expr).getOperand());
+        }
+        List<TaskQuery.Expr> operands;
+        if (expr instanceof TaskQuery.And) {
+            operands = ((TaskQuery.And) expr).getOperands();
+        } else if (expr instanceof TaskQuery.Or) {
+            operands = ((TaskQuery.Or) expr).getOperands();
+        } else {
+            return false;
+        }
+        for (TaskQuery.Expr operand : operands) {
+            if (!canSelect(operand)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private CompressedBitmap slotsOf(TaskFilter.Term term) {
+        CompressedBitmap slots;
+        switch (term.getKind()) {
+        case TAG:
+            slots = tagSlots.get(term.getValue());
+            break;
+        case TYPE:
+            slots = typeSlots.get(term.getValue());
+            break;
+        default:
+            slots = doneSlots;
+            break;
+        }
+        return (slots != null) ? slots : new CompressedBitmap();
+    }
+}
@@ -0,0 +1,187 @@
+package tasklist;
+
+import command.EddieException;
+import task.Task;
+import ui.ErrorMessages;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * A filter on tags, task type and done status, such as {@code #work #urgent type:D not-done}.
+ *
+ * The filter is a list of clauses separated by spaces, and a task must match every clause.
+ * A clause is one or more terms joined by {@code |}, and matches a task that matches any of
+ * them. A term is {@code #tag}, {@code type:T}, {@code type:D}, {@code type:E} or {@code type:R} (or the type
+ * spelt out, e.g. {@code type:deadline}), {@code done} or {@code not-done}, and a leading
+ * {@code -} matches the tasks the rest of the term does not.
+ */
+public final class TaskFilter {
+    private static final String TYPE_PREFIX = "type:";
+
+    private final List<List<Term>> clauses;
+
+    private TaskFilter(List<List<Term>> clauses) {
+        this.clauses = clauses;
+    }
+
+    /**
+     * Parses a filter.
+     *
+     * @param text The filter as typed by the user.
+     * @return The filter.
+     * @throws EddieException If the filter is empty or has a term that is not understood.
+     */
+    public static TaskFilter parse(String text) throws EddieException {
+        List<List<Term>> clauses = new ArrayList<>();
+        for (String clause : text.trim().toLowerCase(Locale.ROOT).split("\\s+")) {
+            if (clause.isEmpty()) {
+                continue;
+            }
+            List<Term> terms = new ArrayList<>();
+            for (String term : clause.split("\\|", -1)) {
+                terms.add(Term.parse(term));
+            }
+            clauses.add(terms);
+        }
+        if (clauses.isEmpty()) {
+            throw new EddieException(ErrorMessages.INVALID_FILTER);
+        }
+        return new TaskFilter(clauses);
+    }
+
+    /**
+     * Returns whether a task passes the filter.
+     *
+     * @param task The task.
+     * @return True if the task matches every clause.
+     */
+    public boolean matches(Task task) {
+        List<String> tags = task.getTags();
+        for (List<Term> clause : clauses) {
+            boolean isClauseMatched = false;
+            for (Term term : clause) {
+                isClauseMatched |= term.matches(task, tags);
+            }
+            if (!isClauseMatched) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    List<List<Term>> getClauses() {
+        return Collections.unmodifiableList(clauses);
+    }
+
+    /**
+     * The kinds of term.
+     */
+    enum Kind {
+        TAG, TYPE, DONE
+    }
+
+    /**
+     * One term of a clause.
+     */
+    static final class Term {
+        private final Kind kind;
+        private final String value;
+        private final boolean isNegated;
+
+        private Term(Kind kind, String value, boolean isNegated) {
+            this.kind = kind;
+            this.value = value;
+            this.isNegated = isNegated;
+        }
+
+        static Term parse(String term) throws EddieException {
+            boolean isNegated = term.startsWith("-");
+            String body = isNegated ? term.substring(1) : term;
+            if (body.equals("not-done")) {
+                return new Term(Kind.DONE, "", !isNegated);
+            }
+            if (body.equals("done")) {
+                return new Term(Kind.DONE, "", isNegated);
+            }
+            if (body.length() > 1 && body.startsWith("#")) {
+                return new Term(Kind.TAG, body.substring(1), isNegated);
+            }
+            if (body.startsWith(TYPE_PREFIX)) {
+                switch (body.substring(TYPE_PREFIX.length())) {
+                case "t":
+                case "todo":
+                    return new Term(Kind.TYPE, "T", isNegated);
+                case "d":
+                case "deadline":
+                    return new Term(Kind.TYPE, "D", isNegated);
+                case "e":
+                case "event":
+                    return new Term(Kind.TYPE, "E", isNegated);
+                case "r":
+                case "recurring":
+                    return new Term(Kind.TYPE, "R", isNegated);
+                default:
+                    break;
+                }
+            }
+            throw new EddieException(ErrorMessages.INVALID_FILTER);
+        }
+
+        Kind getKind() {
+            return kind;
+        }
+
+        /**
+         * Returns the tag without its {@code #}, or the type letter. Empty for a done term.
+         */
+        String getValue() {
+            return value;
+        }
+
+        boolean isNegated() {
+            return isNegated;
+        }
+
+        boolean matches(Task task) {
+            return matches(task, task.getTags());
+        }
+
+        private boolean matches(Task task, List<String> tags) {
+            boolean isMatched;
+            switch (kind) {
+            case TAG:
+                isMatched = tags.contains(value);
+                break;
+            case TYPE:
+                isMatched = typeOf(task).equals(value);
+                break;
+            default:
+                isMatched = task.isDone();
+                break;
+            }
+            return isMatched != isNegated;
+        }
+
+        @Override
+        public String toString() {
+            switch (kind) {
+            case TAG:
+                return (isNegated ? "-#" : "#") + value;
+            case TYPE:
+                return (isNegated ? "-type:" : "type:") + value;
+            default:
+                return isNegated ? "not-done" : "done";
+            }
+        }
+    }
+
+    /**
+     * Returns a task's type letter, e.g. "T" for a Todo.
+     */
+    static String typeOf(Task task) {
+        return task.getTaskType().substring(1, 2);
+    }
+}
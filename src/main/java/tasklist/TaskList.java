@@ -1,22 +1,90 @@
 package tasklist;
 
+import task.Recurring;
 import task.Task;
 import command.EddieException;
+import ui.ErrorMessages;
 
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 /**
  * Manages a list of tasks.
+ *
+ * Every task has a stable ID. Tasks sit in slots in list order, and a deleted task leaves an
+ * empty slot behind, so deleting or marking by ID is O(1) through the ID index. The empty slots
+ * are compacted away once they outnumber the tasks. 1-based list numbers are translated to
+ * slots with a Fenwick tree in O(log n).
+ *
+ * A TaskList built on a {@link TaskSource}, such as an index of the task file or a
+ * {@link ColumnarTaskStore}, is lazy: the first slots stand for the source's records and each
+ * task is only decoded when it is used. Decoded tasks sit in a small LRU cache, and a task is
+ * kept for good once it is changed. Lazy lists keep no search indexes, so find, filter and the
+ * time queries scan every task instead, but memory stays flat as the list grows.
+ *
+ * A TaskList shared between threads must be accessed while holding {@link #readLock()} for
+ * queries or {@link #writeLock()} for changes. Readers never block each other.
  */
 public class TaskList {
-    private ArrayList<Task> tasks;
+    private static final int MIN_COMPACT_SIZE = 1024;
+    private static final int LAZY_CACHE_SIZE = 4096;
+
+    private ArrayList<Task> slots = new ArrayList<>();
+    private final Map<Long, Integer> slotsById = new HashMap<>();
+    private final FenwickTree liveSlots = new FenwickTree();
+    private int size;
+    private long nextId = 1;
+    private boolean isCompactionDeferred;
+    private final KeywordIndex keywordIndex = new KeywordIndex();
+    private final TimeIndex timeIndex = new TimeIndex();
+    private final TagIndex tagIndex = new TagIndex();
+    private ReminderSchedule reminders;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final UndoHistory history = new UndoHistory(UndoHistory.DEFAULT_CAPACITY);
+    private final TaskSource source;
+    private final BitSet unloadedSlots = new BitSet();
+    private final Map<Integer, Task> loadedTasks = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, Task> eldest) {
+            return size() > LAZY_CACHE_SIZE;
+        }
+    };
 
     /**
      * Constructs an empty TaskList.
      */
     public TaskList() {
-        this.tasks = new ArrayList<>();
+        source = null;
+    }
+
+    /**
+     * Constructs a lazy TaskList whose first tasks are decoded from the source on demand.
+     * Tasks added later are held as objects as usual.
+     *
+     * @param source The stored tasks.
+     */
+    public TaskList(TaskSource source) {
+        this.source = source;
+        int count = source.size();
+        slots = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            slots.add(null);
+            liveSlots.append(1);
+        }
+        unloadedSlots.set(0, count);
+        size = count;
+        nextId = source.maxId() + 1;
     }
 
     /**
@@ -25,16 +93,226 @@ public class TaskList {
      * @param tasks The initial list of tasks.
      */
     public TaskList(ArrayList<Task> tasks) {
-        this.tasks = tasks;
+        source = null;
+        for (Task task : tasks) {
+            addTask(task);
+        }
+    }
+
+    /**
+     * Returns the lock to hold while only reading the list.
+     *
+     * @return The shared read lock.
+     */
+    public Lock readLock() {
+        return lock.readLock();
+    }
+
+    /**
+     * Returns the lock to hold while changing the list.
+     *
+     * @return The exclusive write lock.
+     */
+    public Lock writeLock() {
+        return lock.writeLock();
     }
 
     /**
-     * Adds a new task to the list.
+     * Returns the ID the next new task will get. It stays above the IDs of deleted tasks, so
+     * saving it keeps those IDs from being given out again after a restart.
+     *
+     * @return The next ID.
+     */
+    public long getNextId() {
+        return nextId;
+    }
+
+    /**
+     * Makes new tasks get IDs of at least the given one, such as the next ID stored with the list.
+     *
+     * @param nextId The lowest ID a new task may get.
+     */
+    public void reserveIds(long nextId) {
+        this.nextId = Math.max(this.nextId, nextId);
+    }
+
+    /**
+     * Adds a new task to the end of the list, giving it the next ID if it has none.
      *
      * @param task The task to add.
      */
     public void addTask(Task task) {
-        tasks.add(task);
+        if (task.getId() == 0) {
+            task.setId(nextId);
+        }
+        nextId = Math.max(nextId, task.getId() + 1);
+
+        slotsById.put(task.getId(), slots.size());
+        slots.add(task);
+        liveSlots.append(1);
+        size++;
+        if (source == null) {
+            keywordIndex.add(task);
+            timeIndex.add(task);
+            tagIndex.add(slots.size() - 1, task);
+        }
+        if (reminders != null) {
+            reminders.add(task);
+        }
+    }
+
+    /**
+     * Puts a task at a position in the list, keeping its ID. Used to restore a deleted task.
+     *
+     * If an empty slot is left between the neighbouring tasks, as there is right after the
+     * task was deleted, the task goes back into it in O(log n). Otherwise the later slots are
+     * shifted along, except in a lazy list, whose slots are tied to its records, where the
+     * task is added at the end instead.
+     *
+     * @param index The 0-based position, from 0 to {@link #size()}.
+     * @param task  The task to insert.
+     */
+    public void insertTask(int index, Task task) {
+        insertTask(index, task, -1);
+    }
+
+    /**
+     * Puts a task at a position in the list, preferring the given empty slot.
+     *
+     * @param index    The 0-based position, from 0 to {@link #size()}.
+     * @param task     The task to insert.
+     * @param slotHint The slot the task was removed from, or -1 if unknown.
+     * @return The slot the task went into.
+     */
+    int insertTask(int index, Task task, int slotHint) {
+        if (index < 0 || index > size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + size);
+        }
+        int nextSlot = (index < size) ? liveSlots.select(index + 1) : slots.size();
+        int previousSlot = (index > 0) ? liveSlots.select(index) : -1;
+        if (nextSlot - 1 <= previousSlot && (index == size || source != null)) {
+            addTask(task);
+            return slots.size() - 1;
+        }
+        if (task.getId() == 0) {
+            task.setId(nextId);
+        }
+        nextId = Math.max(nextId, task.getId() + 1);
+
+        // Any slot strictly between the neighbours is empty, but the one the task left keeps
+        // the other empty slots free for the tasks that left them.
+        int slot = (slotHint > previousSlot && slotHint < nextSlot) ? slotHint : nextSlot - 1;
+        if (slot > previousSlot) {
+            slots.set(slot, task);
+            slotsById.put(task.getId(), slot);
+            liveSlots.add(slot, 1);
+            if (source == null) {
+                tagIndex.add(slot, task);
+            }
+        } else {
+            slot = nextSlot;
+            slots.add(slot, task);
+            reindexSlots();
+        }
+        size++;
+        if (source == null) {
+            if (index == size - 1) {
+                keywordIndex.add(task);
+            } else if (!keywordIndex.restore(task)) {
+                // The index no longer has the task's place, so rebuild it to keep list order.
+                keywordIndex.rebuild(getAllTasks());
+            }
+            timeIndex.add(task);
+        }
+        if (reminders != null) {
+            reminders.add(task);
+        }
+        return slot;
+    }
+
+    /**
+     * Applies the changes made by one command, in order.
+     *
+     * Empty slots are compacted at most once, after the last change. If a compaction has
+     * already taken away the empty slots that a run of tasks put back in ascending positions
+     * would go into, the run is merged into the list in a single pass instead of shifting the
+     * list once per task. If a change no longer fits, the ones already applied are undone, so
+     * the list is left as it was.
+     *
+     * @param changes The changes, in the order to apply them.
+     * @throws EddieException If a change no longer fits the list.
+     */
+    public void applyChanges(List<Change> changes) throws EddieException {
+        isCompactionDeferred = true;
+        int i = 0;
+        try {
+            while (i < changes.size()) {
+                int runEnd = i;
+                while (runEnd < changes.size() && changes.get(runEnd).getKind() == Change.Kind.ADD
+                        && (runEnd == i || changes.get(runEnd).getPosition() > changes.get(runEnd - 1).getPosition())) {
+                    runEnd++;
+                }
+                if (runEnd - i > 1 && source == null && slots.size() - size < runEnd - i) {
+                    mergeTasks(changes.subList(i, runEnd));
+                    i = runEnd;
+                } else {
+                    for (int end = Math.max(runEnd, i + 1); i < end; i++) {
+                        changes.get(i).applyTo(this);
+                    }
+                }
+            }
+        } catch (EddieException e) {
+            rollBack(changes, i);
+            throw e;
+        } finally {
+            isCompactionDeferred = false;
+            compactIfSparse();
+        }
+    }
+
+    /**
+     * Undoes the first {@code count} of the changes, last first.
+     */
+    private void rollBack(List<Change> changes, int count) throws EddieException {
+        for (int i = count - 1; i >= 0; i--) {
+            changes.get(i).inverse().applyTo(this);
+        }
+    }
+
+    /**
+     * Starts keeping reminders for the deadlines and events in the list, scheduling every task
+     * already in it. From then on adding, deleting and marking tasks updates them in O(1).
+     *
+     * @param clock     Where the current time comes from.
+     * @param leadTimes How long before each task starts to remind of it, at least one.
+     */
+    public void enableReminders(Clock clock, List<Duration> leadTimes) {
+        reminders = new ReminderSchedule(clock, leadTimes);
+        for (int slot = 0; slot < slots.size(); slot++) {
+            Task task = peekTask(slot);
+            if (task != null) {
+                reminders.add(task);
+            }
+        }
+    }
+
+    /**
+     * Returns the reminders that have come due since the last call. Call it while holding the
+     * write lock, as taking reminders moves them on.
+     *
+     * @return The reminders, ordered by when their tasks start, or none if reminders are off.
+     */
+    public List<Reminder> takeDueReminders() {
+        return (reminders == null) ? new ArrayList<>() : reminders.takeDue(this);
+    }
+
+    /**
+     * Returns the changes that can be undone and redone.
+     *
+     * @return The task list's history.
+     */
+    public UndoHistory getHistory() {
+        return history;
     }
 
     /**
@@ -44,7 +322,32 @@ public class TaskList {
      * @return The task at the given index.
      */
     public Task getTask(int index) {
-        return tasks.get(index);
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + size);
+        }
+        return taskAt(liveSlots.select(index + 1));
+    }
+
+    /**
+     * Retrieves a task by its ID.
+     *
+     * @param id The ID of the task.
+     * @return The task with the given ID.
+     * @throws EddieException If no task has the ID.
+     */
+    public Task getTaskById(long id) throws EddieException {
+        return taskAt(slotOf(id));
+    }
+
+    /**
+     * Returns the position of a task in the list.
+     *
+     * @param id The ID of the task.
+     * @return The 0-based position of the task.
+     * @throws EddieException If no task has the ID.
+     */
+    public int indexOfId(long id) throws EddieException {
+        return liveSlots.prefixSum(slotOf(id));
     }
 
     /**
@@ -54,10 +357,34 @@ public class TaskList {
      * @return The removed task.
      */
     public Task removeTask(int index) throws EddieException {
-        if (index < 0 || index >= tasks.size()) {
+        if (index < 0 || index >= size) {
             throw new EddieException("Invalid task number.");
         }
-        return tasks.remove(index);
+        return removeSlot(liveSlots.select(index + 1));
+    }
+
+    /**
+     * Removes a task by its ID.
+     *
+     * @param id The ID of the task to remove.
+     * @return The removed task.
+     * @throws EddieException If no task has the ID.
+     */
+    public Task removeTaskById(long id) throws EddieException {
+        return removeSlot(slotOf(id));
+    }
+
+    /**
+     * Removes a task by its ID.
+     *
+     * @param id The ID of the task to remove.
+     * @return The slot the task was in, until the list is next compacted.
+     * @throws EddieException If no task has the ID.
+     */
+    int removeSlotById(long id) throws EddieException {
+        int slot = slotOf(id);
+        removeSlot(slot);
+        return slot;
     }
 
     /**
@@ -67,14 +394,48 @@ public class TaskList {
      * @param isDone  True to mark as done, false to unmark.
      */
     public void markTask(int index, boolean isDone) throws EddieException {
-        if (index < 0 || index >= tasks.size()) {
+        if (index < 0 || index >= size) {
             throw new EddieException("Invalid task number.");
         }
-        Task task = tasks.get(index);
-        if (isDone) {
-            task.markDone();
-        } else {
-            task.markNotDone();
+        setDone(liveSlots.select(index + 1), isDone);
+    }
+
+    /**
+     * Marks or unmarks a task as done by its ID.
+     *
+     * @param id     The ID of the task.
+     * @param isDone True to mark as done, false to unmark.
+     * @throws EddieException If no task has the ID.
+     */
+    public void markTaskById(long id, boolean isDone) throws EddieException {
+        setDone(slotOf(id), isDone);
+    }
+
+    /**
+     * Marks or unmarks one occurrence of a recurring task by the task's ID.
+     *
+     * @param id         The ID of the recurring task.
+     * @param occurrence The occurrence, counting from 0.
+     * @param isDone     True to mark as done, false to unmark.
+     * @throws EddieException If no recurring task has the ID, or it has no such occurrence.
+     */
+    public void markOccurrenceById(long id, int occurrence, boolean isDone) throws EddieException {
+        int slot = slotOf(id);
+        Task task = keep(slot);
+        if (!(task instanceof Recurring)) {
+            throw new EddieException(ErrorMessages.NO_OCCURRENCE);
+        }
+        Recurring series = (Recurring) task;
+        int count = series.getOccurrenceCount();
+        if (occurrence < 0 || (count >= 0 && occurrence >= count)) {
+            throw new EddieException(ErrorMessages.NO_OCCURRENCE);
+        }
+        series.setOccurrenceDone(occurrence, isDone);
+        if (source == null) {
+            tagIndex.setDone(slot, series.isDone());
+        }
+        if (reminders != null) {
+            reminders.update(series);
         }
     }
 
@@ -84,7 +445,7 @@ public class TaskList {
      * @return The size of the task list.
      */
     public int size() {
-        return tasks.size();
+        return size;
     }
 
     /**
@@ -93,16 +454,53 @@ public class TaskList {
      * @return The most recent task.
      */
     public Task getLastTask() {
-        return tasks.get(tasks.size() - 1);
+        return getTask(size - 1);
     }
 
     /**
      * Returns all tasks as a list.
      *
-     * @return The list of tasks.
+     * @return A new list of the tasks, in list order.
      */
     public ArrayList<Task> getAllTasks() {
-        return tasks;
+        return getTasks(0, size);
+    }
+
+    /**
+     * Returns a range of tasks.
+     *
+     * @param from The index of the first task.
+     * @param to   The index after the last task.
+     * @return A new list of the tasks in the range, in list order.
+     */
+    public ArrayList<Task> getTasks(int from, int to) {
+        ArrayList<Task> range = new ArrayList<>(Math.max(0, to - from));
+        if (from >= to) {
+            return range;
+        }
+        for (int slot = liveSlots.select(from + 1); range.size() < to - from; slot++) {
+            Task task = taskAt(slot);
+            if (task != null) {
+                range.add(task);
+            }
+        }
+        return range;
+    }
+
+    /**
+     * Counts the tasks of each type. A lazy list decodes every task, without caching them.
+     *
+     * @return The number of tasks keyed by type name, such as "Todo", in name order.
+     */
+    public Map<String, Integer> countTasksByType() {
+        Map<String, Integer> counts = new TreeMap<>();
+        for (int slot = 0; slot < slots.size(); slot++) {
+            Task task = peekTask(slot);
+            if (task != null) {
+                counts.merge(task.getClass().getSimpleName(), 1, Integer::sum);
+            }
+        }
+        return counts;
     }
 
     /**
@@ -112,19 +510,374 @@ public class TaskList {
      */
     public String getTaskListString() {
         StringBuilder list = new StringBuilder();
-        for (int i = 0; i < tasks.size(); i++) {
-            list.append((i + 1)).append(". ").append(tasks.get(i)).append("\n");
+        int number = 1;
+        for (int slot = 0; slot < slots.size(); slot++) {
+            Task task = taskAt(slot);
+            if (task != null) {
+                list.append(number++).append(". ").append(task).append("\n");
+            }
         }
         return list.toString();
     }
 
-    public List<Task> findTasks(String Keyword){
-        List<Task> tasks = new ArrayList<>();
-        for (Task task : tasks) {
-            if (task.getDescription().toLowerCase().contains(Keyword.toLowerCase())) {
-                tasks.add(task);
+    /**
+     * Returns the tasks whose description contains the keyword, ignoring case, in list order.
+     *
+     * @param keyword The text to search for.
+     * @return The matching tasks.
+     */
+    public List<Task> findTasks(String keyword) {
+        if (source == null) {
+            return keywordIndex.find(keyword.toLowerCase());
+        }
+        String query = keyword.toLowerCase();
+        List<Task> matchedTasks = new ArrayList<>();
+        for (int slot = 0; slot < slots.size(); slot++) {
+            Task task = peekTask(slot);
+            if (task != null && task.getDescription().toLowerCase().contains(query)) {
+                matchedTasks.add(task);
+            }
+        }
+        return matchedTasks;
+    }
+
+    /**
+     * Returns the tasks that best match the words of a query, best first.
+     *
+     * Tasks score higher the rarer the matched words are across the list and the more of the
+     * description they make up. Misspelt words and the start of a word also match, with a lower score.
+     *
+     * @param query The words to search for.
+     * @param limit The maximum number of tasks to return.
+     * @return The matching tasks.
+     */
+    public List<Task> rankTasks(String query, int limit) {
+        if (source == null) {
+            return keywordIndex.rank(query, limit);
+        }
+        List<Task> allTasks = new ArrayList<>(size);
+        WordIndex words = new WordIndex();
+        for (int slot = 0; slot < slots.size(); slot++) {
+            Task task = peekTask(slot);
+            if (task != null) {
+                words.add(allTasks.size(), task.getDescription().toLowerCase());
+                allTasks.add(task);
+            }
+        }
+        List<Task> rankedTasks = new ArrayList<>();
+        for (int sequence : words.rank(query, limit, sequence -> true)) {
+            rankedTasks.add(allTasks.get(sequence));
+        }
+        return rankedTasks;
+    }
+
+    /**
+     * Returns the tasks that pass a filter on tags, type and done status, in list order.
+     *
+     * @param filter The filter.
+     * @return The matching tasks.
+     */
+    public List<Task> filterTasks(TaskFilter filter) {
+        List<Task> matchedTasks = new ArrayList<>();
+        if (source == null) {
+            tagIndex.select(filter).forEach(slot -> matchedTasks.add(slots.get(slot)));
+            return matchedTasks;
+        }
+        for (int slot = 0; slot < slots.size(); slot++) {
+            Task task = peekTask(slot);
+            if (task != null && filter.matches(task)) {
+                matchedTasks.add(task);
+            }
+        }
+        return matchedTasks;
+    }
+
+    /**
+     * Plans a query, choosing between a full scan and the list's indexes by estimated cost.
+     * Iterating the plan runs it, and must happen while the read lock is held.
+     *
+     * @param query The query.
+     * @return The plan.
+     */
+    public QueryPlan planQuery(TaskQuery query) {
+        QueryPlanner planner = (source == null)
+                ? new QueryPlanner(this, keywordIndex, timeIndex, tagIndex)
+                : new QueryPlanner(this, null, null, null);
+        return planner.plan(query);
+    }
+
+    /**
+     * Returns the first deadlines and events whose time overlaps the range, ordered by start.
+     * Recurring tasks contribute each of their occurrences in the range, built only as far as
+     * the count needs.
+     *
+     * @param from  The start of the range, inclusive.
+     * @param to    The end of the range, inclusive.
+     * @param count The maximum number of tasks to return.
+     * @return The matching tasks.
+     */
+    public List<Task> findTasksBetween(LocalDateTime from, LocalDateTime to, int count) {
+        if (source == null) {
+            return timeIndex.findOverlapping(from, to, count);
+        }
+        List<Task> overlapping = new ArrayList<>();
+        List<Iterator<Task>> occurrences = new ArrayList<>();
+        for (int slot = 0; slot < slots.size(); slot++) {
+            Task task = peekTask(slot);
+            if (task instanceof Recurring) {
+                occurrences.add(((Recurring) task).occurrencesBetween(from, to));
+            } else if (task != null && task.overlaps(from, to)) {
+                overlapping.add(task);
+            }
+        }
+        return TimeIndex.mergeByStart(overlapping, occurrences, count);
+    }
+
+    /**
+     * Counts the deadlines and events whose time overlaps the range, counting each occurrence
+     * of a recurring task without building it.
+     *
+     * @param from The start of the range, inclusive.
+     * @param to   The end of the range, inclusive.
+     * @return The number of matching tasks.
+     */
+    public long countTasksBetween(LocalDateTime from, LocalDateTime to) {
+        if (source == null) {
+            return timeIndex.countOverlapping(from, to);
+        }
+        long count = 0;
+        for (int slot = 0; slot < slots.size(); slot++) {
+            Task task = peekTask(slot);
+            if (task instanceof Recurring) {
+                count += ((Recurring) task).countOccurrencesBetween(from, to);
+            } else if (task != null && task.overlaps(from, to)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns the next deadlines and events that are not done, ordered by start.
+     *
+     * @param now   The time to look forward from.
+     * @param count The maximum number of tasks to return.
+     * @return The upcoming tasks.
+     */
+    public List<Task> findUpcomingTasks(LocalDateTime now, int count) {
+        if (source == null) {
+            return timeIndex.findUpcoming(now, count);
+        }
+        List<Task> upcoming = new ArrayList<>();
+        List<Iterator<Task>> occurrences = new ArrayList<>();
+        for (int slot = 0; slot < slots.size(); slot++) {
+            Task task = peekTask(slot);
+            if (task instanceof Recurring) {
+                occurrences.add(((Recurring) task).pendingOccurrencesFrom(now));
+            } else if (task != null && task.getStart() != null && !task.getStart().isBefore(now) && !task.isDone()) {
+                upcoming.add(task);
+            }
+        }
+        return TimeIndex.mergeByStart(upcoming, occurrences, count);
+    }
+
+    /**
+     * Returns the number of slots, including empty ones, for a scan in list order.
+     */
+    int slotCount() {
+        return slots.size();
+    }
+
+    /**
+     * Returns the task in a slot for a scan, or null if the slot is empty.
+     */
+    Task taskInSlot(int slot) {
+        return peekTask(slot);
+    }
+
+    /**
+     * Returns the slot of a task found through an index.
+     */
+    int slotOfTask(Task task) {
+        return slotsById.get(task.getId());
+    }
+
+    private int slotOf(long id) throws EddieException {
+        Integer slot = slotsById.get(id);
+        if (slot == null && source != null) {
+            int record = source.recordOf(id);
+            if (record >= 0 && (unloadedSlots.get(record) || slots.get(record) != null)) {
+                return record;
+            }
+        }
+        if (slot == null) {
+            throw new EddieException("Invalid task ID.");
+        }
+        return slot;
+    }
+
+    /**
+     * Returns the task in a slot, decoding it through the LRU cache if it has not been used
+     * recently, or null if the slot is empty.
+     */
+    private Task taskAt(int slot) {
+        Task task = slots.get(slot);
+        if (task != null || !unloadedSlots.get(slot)) {
+            return task;
+        }
+        // Readers share the cache, and an access-ordered map changes on every get.
+        synchronized (loadedTasks) {
+            task = loadedTasks.get(slot);
+            if (task == null) {
+                task = source.load(slot);
+                loadedTasks.put(slot, task);
+            }
+        }
+        return task;
+    }
+
+    /**
+     * Returns the task in a slot for a scan, decoding it without filling the cache.
+     */
+    private Task peekTask(int slot) {
+        Task task = slots.get(slot);
+        if (task != null || !unloadedSlots.get(slot)) {
+            return task;
+        }
+        synchronized (loadedTasks) {
+            task = loadedTasks.get(slot);
+        }
+        return (task != null) ? task : source.load(slot);
+    }
+
+    /**
+     * Returns the task in a slot after moving it out of the cache for good, so a change
+     * made to it is never lost to eviction.
+     */
+    private Task keep(int slot) {
+        Task task = taskAt(slot);
+        if (unloadedSlots.get(slot)) {
+            slots.set(slot, task);
+            unloadedSlots.clear(slot);
+            synchronized (loadedTasks) {
+                loadedTasks.remove(slot);
+            }
+        }
+        return task;
+    }
+
+    private void setDone(int slot, boolean isDone) {
+        Task task = keep(slot);
+        if (isDone) {
+            task.markDone();
+        } else {
+            task.markNotDone();
+        }
+        if (source == null) {
+            // A recurring task is only done once all its occurrences are, whichever was marked.
+            tagIndex.setDone(slot, task.isDone());
+        }
+        if (reminders != null) {
+            reminders.update(task);
+        }
+    }
+
+    private Task removeSlot(int slot) {
+        Task removedTask = keep(slot);
+        slots.set(slot, null);
+        slotsById.remove(removedTask.getId());
+        liveSlots.add(slot, -1);
+        size--;
+        if (source == null) {
+            keywordIndex.remove(removedTask);
+            timeIndex.remove(removedTask);
+            tagIndex.remove(slot, removedTask);
+        }
+        if (reminders != null) {
+            reminders.remove(removedTask);
+        }
+
+        compactIfSparse();
+        return removedTask;
+    }
+
+    private void compactIfSparse() {
+        // Lazy slots are tied to their record numbers, so a lazy list is never compacted.
+        int emptySlots = slots.size() - size;
+        if (!isCompactionDeferred && source == null && emptySlots > MIN_COMPACT_SIZE && emptySlots > size) {
+            compact();
+        }
+    }
+
+    /**
+     * Puts tasks back at ascending positions in one pass over the list.
+     *
+     * @param run Add changes whose positions are strictly ascending.
+     */
+    private void mergeTasks(List<Change> run) {
+        ArrayList<Task> merged = new ArrayList<>(size + run.size());
+        int next = 0;
+        for (Task task : slots) {
+            if (task == null) {
+                continue;
+            }
+            while (next < run.size() && run.get(next).getPosition() <= merged.size()) {
+                merged.add(run.get(next++).getTask());
+            }
+            merged.add(task);
+        }
+        while (next < run.size()) {
+            merged.add(run.get(next++).getTask());
+        }
+        slots = merged;
+        size = merged.size();
+
+        boolean isIndexStale = false;
+        for (Change change : run) {
+            Task task = change.getTask();
+            if (task.getId() == 0) {
+                task.setId(nextId);
+            }
+            nextId = Math.max(nextId, task.getId() + 1);
+            isIndexStale |= !keywordIndex.restore(task);
+            timeIndex.add(task);
+            if (reminders != null) {
+                reminders.add(task);
+            }
+        }
+        reindexSlots();
+        for (Change change : run) {
+            change.setSlot(slotsById.get(change.getTask().getId()));
+        }
+        if (isIndexStale) {
+            keywordIndex.rebuild(merged);
+        }
+    }
+
+    /**
+     * Drops the empty slots left behind by removed tasks.
+     */
+    private void compact() {
+        slots = getAllTasks();
+        reindexSlots();
+    }
+
+    /**
+     * Rebuilds the ID index, the Fenwick tree and the tag bitmaps after slots have moved.
+     */
+    private void reindexSlots() {
+        slotsById.clear();
+        liveSlots.clear();
+        tagIndex.clear();
+        for (int slot = 0; slot < slots.size(); slot++) {
+            Task task = slots.get(slot);
+            if (task != null) {
+                slotsById.put(task.getId(), slot);
+                if (source == null) {
+                    tagIndex.add(slot, task);
+                }
             }
+            liveSlots.append(task != null ? 1 : 0);
         }
-        return tasks;
     }
 }
@@ -0,0 +1,490 @@
+package tasklist;
+
+import command.EddieException;
+import task.Task;
+import ui.ErrorMessages;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * A query over a task list, such as {@code report and (#work or type:D) and not done limit 10}.
+ *
+ * A query is an expression optionally followed by {@code limit {number}}. Its predicates are:
+ * <ul>
+ *   <li>a word or {@code "quoted text"}, matching descriptions that contain it, ignoring case;</li>
+ *   <li>{@code #tag}, {@code type:T}, {@code type:D}, {@code type:E} or {@code type:R}, {@code done} and
+ *       {@code not-done}, as in a {@link TaskFilter};</li>
+ *   <li>{@code on:{date}}, {@code before:{date}}, {@code after:{date}} and
+ *       {@code between:{date}..{date}}, matching deadlines and events whose time overlaps
+ *       that range, with dates written {@code yyyy-MM-dd}.</li>
+ * </ul>
+ * Predicates combine with {@code and}, {@code or}, {@code not} (or a leading {@code -}) and
+ * parentheses. {@code and} binds tighter than {@code or} and may be left out, so
+ * {@code a b or c} means {@code (a and b) or c}. Run a query with {@link TaskList#planQuery(TaskQuery)}.
+ */
+public final class TaskQuery {
+    private static final String LIMIT = "limit";
+    private static final LocalDateTime EARLIEST = LocalDateTime.of(0, 1, 1, 0, 0);
+    private static final LocalDateTime LATEST = LocalDateTime.of(9999, 12, 31, 23, 59);
+
+    private final Expr root;
+    private final int limit;
+
+    private TaskQuery(Expr root, int limit) {
+        this.root = root;
+        this.limit = limit;
+    }
+
+    /**
+     * Parses a query.
+     *
+     * @param text The query as typed by the user.
+     * @return The query.
+     * @throws EddieException If the query is empty or malformed.
+     */
+    public static TaskQuery parse(String text) throws EddieException {
+        List<Token> tokens = tokenize(text);
+        int limit = -1;
+        int end = tokens.size();
+        if (end >= 2 && tokens.get(end - 2).is(LIMIT)) {
+            try {
+                limit = Integer.parseInt(tokens.get(end - 1).text);
+            } catch (NumberFormatException e) {
+                throw new EddieException(ErrorMessages.INVALID_QUERY);
+            }
+            if (limit < 1) {
+                throw new EddieException(ErrorMessages.INVALID_QUERY);
+            }
+            end -= 2;
+        }
+
+        ExpressionParser parser = new ExpressionParser(tokens.subList(0, end));
+        Expr root = parser.parseOr();
+        if (!parser.isAtEnd()) {
+            throw new EddieException(ErrorMessages.INVALID_QUERY);
+        }
+        return new TaskQuery(root, limit);
+    }
+
+    /**
+     * Returns whether a task matches the query, ignoring its limit.
+     *
+     * @param task The task.
+     * @return True if the task matches.
+     */
+    public boolean matches(Task task) {
+        return root.matches(task);
+    }
+
+    /**
+     * Returns the most tasks the query may return.
+     *
+     * @return The limit, or -1 if there is none.
+     */
+    public int getLimit() {
+        return limit;
+    }
+
+    Expr getRoot() {
+        return root;
+    }
+
+    private static List<Token> tokenize(String text) throws EddieException {
+        List<Token> tokens = new ArrayList<>();
+        int i = 0;
+        while (i < text.length()) {
+            char c = text.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if (c == '(' || c == ')') {
+                tokens.add(new Token(String.valueOf(c), false));
+                i++;
+            } else if (c == '"') {
+                int close = text.indexOf('"', i + 1);
+                if (close < 0) {
+                    throw new EddieException(ErrorMessages.INVALID_QUERY);
+                }
+                tokens.add(new Token(text.substring(i + 1, close), true));
+                i = close + 1;
+            } else if (c == '-' && i + 1 < text.length() && !Character.isWhitespace(text.charAt(i + 1))) {
+                tokens.add(new Token("not", false));
+                i++;
+            } else {
+                int start = i;
+                while (i < text.length() && !Character.isWhitespace(text.charAt(i))
+                        && text.charAt(i) != '(' && text.charAt(i) != ')' && text.charAt(i) != '"') {
+                    i++;
+                }
+                tokens.add(new Token(text.substring(start, i), false));
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * A word of the query. Quoted text is always a keyword, even if it reads like an operator.
+     */
+    private static final class Token {
+        private final String text;
+        private final boolean isQuoted;
+
+        Token(String text, boolean isQuoted) {
+            this.text = text;
+            this.isQuoted = isQuoted;
+        }
+
+        boolean is(String word) {
+            return !isQuoted && text.equalsIgnoreCase(word);
+        }
+    }
+
+    /**
+     * Recursive descent parser over the tokens, lowest precedence first.
+     */
+    private static final class ExpressionParser {
+        private final List<Token> tokens;
+        private int position;
+
+        ExpressionParser(List<Token> tokens) {
+            this.tokens = tokens;
+        }
+
+        boolean isAtEnd() {
+            return position == tokens.size();
+        }
+
+        Expr parseOr() throws EddieException {
+            List<Expr> operands = new ArrayList<>();
+            operands.add(parseAnd());
+            while (!isAtEnd() && tokens.get(position).is("or")) {
+                position++;
+                operands.add(parseAnd());
+            }
+            return (operands.size() == 1) ? operands.get(0) : new Or(operands);
+        }
+
+        private Expr parseAnd() throws EddieException {
+            List<Expr> operands = new ArrayList<>();
+            operands.add(parseUnary());
+            while (!isAtEnd() && !tokens.get(position).is("or") && !tokens.get(position).is(")")) {
+                if (tokens.get(position).is("and")) {
+                    position++;
+                }
+                operands.add(parseUnary());
+            }
+            return (operands.size() == 1) ? operands.get(0) : new And(operands);
+        }
+
+        private Expr parseUnary() throws EddieException {
+            if (isAtEnd()) {
+                throw new EddieException(ErrorMessages.INVALID_QUERY);
+            }
+            Token token = tokens.get(position++);
+            if (token.is("not")) {
+                return new Not(parseUnary());
+            }
+            if (token.is("(")) {
+                Expr inner = parseOr();
+                if (isAtEnd() || !tokens.get(position).is(")")) {
+                    throw new EddieException(ErrorMessages.INVALID_QUERY);
+                }
+                position++;
+                return inner;
+            }
+            if (token.is(")") || token.is("and") || token.is("or")) {
+                throw new EddieException(ErrorMessages.INVALID_QUERY);
+            }
+            return parsePredicate(token);
+        }
+
+        private static Expr parsePredicate(Token token) throws EddieException {
+            String word = token.text.toLowerCase(Locale.ROOT);
+            if (token.isQuoted) {
+                if (word.isEmpty()) {
+                    throw new EddieException(ErrorMessages.INVALID_QUERY);
+                }
+                return new Keyword(word);
+            }
+            if (word.equals("done") || word.equals("not-done") || word.startsWith("#") || word.startsWith("type:")) {
+                try {
+                    return new FilterTerm(TaskFilter.Term.parse(word));
+                } catch (EddieException e) {
+                    throw new EddieException(ErrorMessages.INVALID_QUERY);
+                }
+            }
+            int colon = word.indexOf(':');
+            if (colon > 0) {
+                String value = word.substring(colon + 1);
+                switch (word.substring(0, colon)) {
+                case "on":
+                    LocalDate day = parseDate(value);
+                    return new TimeRange(word, day.atStartOfDay(), endOf(day));
+                case "before":
+                    return new TimeRange(word, EARLIEST, endOf(parseDate(value).minusDays(1)));
+                case "after":
+                    return new TimeRange(word, parseDate(value).plusDays(1).atStartOfDay(), LATEST);
+                case "between":
+                    String[] dates = value.split("\\.\\.", -1);
+                    if (dates.length != 2) {
+                        throw new EddieException(ErrorMessages.INVALID_QUERY);
+                    }
+                    return new TimeRange(word, parseDate(dates[0]).atStartOfDay(), endOf(parseDate(dates[1])));
+                default:
+                    break;
+                }
+            }
+            return new Keyword(word);
+        }
+
+        private static LocalDate parseDate(String text) throws EddieException {
+            try {
+                return LocalDate.parse(text);
+            } catch (DateTimeParseException e) {
+                throw new EddieException(ErrorMessages.INVALID_QUERY);
+            }
+        }
+
+        private static LocalDateTime endOf(LocalDate day) {
+            return day.atTime(LocalTime.of(23, 59));
+        }
+    }
+
+    /**
+     * A node of a parsed query.
+     */
+    abstract static class Expr {
+        abstract boolean matches(Task task);
+
+        /**
+         * Returns the number of predicates under this node, which is what checking it costs.
+         */
+        abstract int predicateCount();
+    }
+
+    /**
+     * Matches tasks that match every operand.
+     */
+    static final class And extends Expr {
+        private final List<Expr> operands;
+
+        And(List<Expr> operands) {
+            this.operands = operands;
+        }
+
+        List<Expr> getOperands() {
+            return Collections.unmodifiableList(operands);
+        }
+
+        @Override
+        boolean matches(Task task) {
+            for (Expr operand : operands) {
+                if (!operand.matches(task)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        int predicateCount() {
+            int count = 0;
+            for (Expr operand : operands) {
+                count += operand.predicateCount();
+            }
+            return count;
+        }
+
+        @Override
+        public String toString() {
+            return join(operands, " and ");
+        }
+    }
+
+    /**
+     * Matches tasks that match any operand.
+     */
+    static final class Or extends Expr {
+        private final List<Expr> operands;
+
+        Or(List<Expr> operands) {
+            this.operands = operands;
+        }
+
+        List<Expr> getOperands() {
+            return Collections.unmodifiableList(operands);
+        }
+
+        @Override
+        boolean matches(Task task) {
+            for (Expr operand : operands) {
+                if (operand.matches(task)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        int predicateCount() {
+            int count = 0;
+            for (Expr operand : operands) {
+                count += operand.predicateCount();
+            }
+            return count;
+        }
+
+        @Override
+        public String toString() {
+            return "(" + join(operands, " or ") + ")";
+        }
+    }
+
+    /**
+     * Matches tasks that do not match the operand.
+     */
+    static final class Not extends Expr {
+        private final Expr operand;
+
+        Not(Expr operand) {
+            this.operand = operand;
+        }
+
+        Expr getOperand() {
+            return operand;
+        }
+
+        @Override
+        boolean matches(Task task) {
+            return !operand.matches(task);
+        }
+
+        @Override
+        int predicateCount() {
+            return operand.predicateCount();
+        }
+
+        @Override
+        public String toString() {
+            return "not " + operand;
+        }
+    }
+
+    /**
+     * Matches descriptions that contain some text, ignoring case.
+     */
+    static final class Keyword extends Expr {
+        private final String text;
+
+        Keyword(String text) {
+            this.text = text;
+        }
+
+        /**
+         * Returns the lowercase text.
+         */
+        String getText() {
+            return text;
+        }
+
+        @Override
+        boolean matches(Task task) {
+            return task.getDescription().toLowerCase().contains(text);
+        }
+
+        @Override
+        int predicateCount() {
+            return 1;
+        }
+
+        @Override
+        public String toString() {
+            return text.contains(" ") ? "\"" + text + "\"" : text;
+        }
+    }
+
+    /**
+     * A tag, type or done term, as in a {@link TaskFilter}.
+     */
+    static final class FilterTerm extends Expr {
+        private final TaskFilter.Term term;
+
+        FilterTerm(TaskFilter.Term term) {
+            this.term = term;
+        }
+
+        TaskFilter.Term getTerm() {
+            return term;
+        }
+
+        @Override
+        boolean matches(Task task) {
+            return term.matches(task);
+        }
+
+        @Override
+        int predicateCount() {
+            return 1;
+        }
+
+        @Override
+        public String toString() {
+            return term.toString();
+        }
+    }
+
+    /**
+     * Matches deadlines and events whose time overlaps {@code [from, to]}.
+     */
+    static final class TimeRange extends Expr {
+        private final String text;
+        private final LocalDateTime from;
+        private final LocalDateTime to;
+
+        TimeRange(String text, LocalDateTime from, LocalDateTime to) {
+            this.text = text;
+            this.from = from;
+            this.to = to;
+        }
+
+        LocalDateTime getFrom() {
+            return from;
+        }
+
+        LocalDateTime getTo() {
+            return to;
+        }
+
+        @Override
+        boolean matches(Task task) {
+            return task.overlaps(from, to);
+        }
+
+        @Override
+        int predicateCount() {
+            return 1;
+        }
+
+        @Override
+        public String toString() {
+            return text;
+        }
+    }
+
+    private static String join(List<Expr> operands, String separator) {
+        StringBuilder joined = new StringBuilder();
+        for (Expr operand : operands) {
+            if (joined.length() > 0) {
+                joined.append(separator);
+            }
+            joined.append(operand);
+        }
+        return joined.toString();
+    }
+}
@@ -0,0 +1,40 @@
+package tasklist;
+
+import task.Task;
+
+/**
+ * Stored tasks that a {@link TaskList} decodes one at a time, only when they are used.
+ *
+ * Records are numbered from 0 in list order and their IDs must be ascending.
+ */
+public interface TaskSource {
+    /**
+     * Returns the number of stored tasks.
+     *
+     * @return The record count.
+     */
+    int size();
+
+    /**
+     * Returns the record holding the task with the given ID.
+     *
+     * @param id The task ID.
+     * @return The record number, or -1 if no record has the ID.
+     */
+    int recordOf(long id);
+
+    /**
+     * Returns the highest stored task ID.
+     *
+     * @return The largest ID, or 0 if there are no records.
+     */
+    long maxId();
+
+    /**
+     * Decodes one stored task. Every call returns a new Task.
+     *
+     * @param record The record number.
+     * @return The decoded task.
+     */
+    Task load(int record);
+}
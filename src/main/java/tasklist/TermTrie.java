@@ -0,0 +1,161 @@
+package tasklist;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Trie of search terms, each carrying a value, that finds the terms within a small edit
+ * distance of a word or starting with a prefix.
+ *
+ * The fuzzy search walks the trie once, computing one row of the edit distance table per node
+ * from its parent's row, and gives up on a branch as soon as every entry of its row is over
+ * the limit. Shared prefixes are therefore only compared once, and with a limit of 1 or 2 only
+ * a small part of the trie is visited. Swapping two adjacent letters counts as one edit.
+ *
+ * @param <V> The type of value stored with each term.
+ */
+class TermTrie<V> {
+    private final Node<V> root = new Node<>();
+
+    /**
+     * Stores a value for a term, replacing any previous one.
+     *
+     * @param term  The term.
+     * @param value The value.
+     */
+    void put(String term, V value) {
+        Node<V> node = root;
+        for (int i = 0; i < term.length(); i++) {
+            node = node.childOrCreate(term.charAt(i));
+        }
+        node.value = value;
+    }
+
+    /**
+     * Removes every term.
+     */
+    void clear() {
+        root.labels = new char[0];
+        root.children = newChildren(0);
+        root.value = null;
+    }
+
+    /**
+     * Returns the values of the terms within an edit distance of the word.
+     *
+     * @param word        The word to compare with.
+     * @param maxDistance The largest number of insertions, deletions, substitutions and adjacent
+     *                    swaps allowed.
+     * @return The distance of each matching term, keyed by its value.
+     */
+    Map<V, Integer> findWithin(String word, int maxDistance) {
+        Map<V, Integer> found = new HashMap<>();
+        int[] firstRow = new int[word.length() + 1];
+        for (int i = 0; i < firstRow.length; i++) {
+            firstRow[i] = i;
+        }
+        for (int i = 0; i < root.labels.length; i++) {
+            searchWithin(root.children[i], root.labels[i], (char) 0, firstRow, null, word, maxDistance, found);
+        }
+        return found;
+    }
+
+    /**
+     * Returns the values of the terms that start with the prefix, shortest terms first.
+     *
+     * @param prefix The prefix.
+     * @param limit  The maximum number of values to return.
+     * @return The values.
+     */
+    List<V> findWithPrefix(String prefix, int limit) {
+        List<V> found = new ArrayList<>();
+        Node<V> node = root;
+        for (int i = 0; i < prefix.length() && node != null; i++) {
+            node = node.child(prefix.charAt(i));
+        }
+        if (node == null) {
+            return found;
+        }
+        ArrayDeque<Node<V>> queue = new ArrayDeque<>();
+        queue.add(node);
+        while (!queue.isEmpty() && found.size() < limit) {
+            Node<V> next = queue.poll();
+            if (next.value != null) {
+                found.add(next.value);
+            }
+            queue.addAll(Arrays.asList(next.children));
+        }
+        return found;
+    }
+
+    private void searchWithin(Node<V> node, char letter, char previousLetter, int[] parentRow, int[] grandparentRow,
+            String word, int maxDistance, Map<V, Integer> found) {
+        int[] row = new int[parentRow.length];
+        row[0] = parentRow[0] + 1;
+        int rowMin = row[0];
+        for (int i = 1; i < row.length; i++) {
+            int cost = (word.charAt(i - 1) == letter) ? 0 : 1;
+            int distance = Math.min(Math.min(row[i - 1] + 1, parentRow[i] + 1), parentRow[i - 1] + cost);
+            if (grandparentRow != null && i > 1 && word.charAt(i - 1) == previousLetter
+                    && word.charAt(i - 2) == letter) {
+                distance = Math.min(distance, grandparentRow[i - 2] + 1);
+            }
+            row[i] = distance;
+            rowMin = Math.min(rowMin, distance);
+        }
+
+        int distance = row[row.length - 1];
+        if (node.value != null && distance <= maxDistance) {
+            found.merge(node.value, distance, Math::min);
+        }
+        if (rowMin > maxDistance) {
+            return;
+        }
+        for (int i = 0; i < node.labels.length; i++) {
+            searchWithin(node.children[i], node.labels[i], letter, row, parentRow, word, maxDistance, found);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <V> Node<V>[] newChildren(int length) {
+        return (Node<V>[]) new Node<?>[length];
+    }
+
+    /**
+     * A trie node, with its children in a small array sorted by letter.
+     */
+    private static class Node<V> {
+        private char[] labels = new char[0];
+        private Node<V>[] children = newChildren(0);
+        private V value;
+
+        Node<V> child(char letter) {
+            int index = Arrays.binarySearch(labels, letter);
+            return (index >= 0) ? children[index] : null;
+        }
+
+        Node<V> childOrCreate(char letter) {
+            int index = Arrays.binarySearch(labels, letter);
+            if (index >= 0) {
+                return children[index];
+            }
+            int insertAt = -index - 1;
+            char[] newLabels = new char[labels.length + 1];
+            Node<V>[] newNodes = newChildren(labels.length + 1);
+            System.arraycopy(labels, 0, newLabels, 0, insertAt);
+            System.arraycopy(children, 0, newNodes, 0, insertAt);
+            System.arraycopy(labels, insertAt, newLabels, insertAt + 1, labels.length - insertAt);
+            System.arraycopy(children, insertAt, newNodes, insertAt + 1, labels.length - insertAt);
+            Node<V> created = new Node<>();
+            newLabels[insertAt] = letter;
+            newNodes[insertAt] = created;
+            labels = newLabels;
+            children = newNodes;
+            return created;
+        }
+    }
+}
@@ -0,0 +1,254 @@
+package tasklist;
+
+import task.Recurring;
+import task.Task;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+
+/**
+ * Sorted index of timed tasks by start minute.
+ *
+ * A deadline is treated as an interval that starts and ends at its due time. Overlap queries
+ * only need to look back as far as the longest interval seen, so they cost O(log n + k) where
+ * k is the number of tasks starting in the widened window.
+ *
+ * Recurring tasks are kept apart, since a series would widen that window to its whole span.
+ * There are few of them however often they repeat, so each query walks every series through
+ * its occurrences in the range, merged by start and built only up to the number asked for.
+ */
+class TimeIndex {
+    /** Orders tasks by start, and tasks starting together by ID, however they were found. */
+    static final Comparator<Task> BY_START = Comparator.comparing(Task::getStart).thenComparingLong(Task::getId);
+
+    private final NavigableMap<Long, Map<Long, Task>> tasksByStart = new TreeMap<>();
+    private final Map<Long, Recurring> recurringTasks = new LinkedHashMap<>();
+    private long longestMinutes;
+    private int size;
+
+    /**
+     * Adds a task if it has a time.
+     *
+     * @param task The task to index.
+     */
+    void add(Task task) {
+        if (task instanceof Recurring) {
+            recurringTasks.put(task.getId(), (Recurring) task);
+            return;
+        }
+        if (task.getStart() == null) {
+            return;
+        }
+        long start = toEpochMinute(task.getStart());
+        longestMinutes = Math.max(longestMinutes, toEpochMinute(task.getEnd()) - start);
+        if (tasksByStart.computeIfAbsent(start, key -> new LinkedHashMap<>()).put(task.getId(), task) == null) {
+            size++;
+        }
+    }
+
+    /**
+     * Removes a task if it has a time.
+     *
+     * @param task The task to remove.
+     */
+    void remove(Task task) {
+        if (task instanceof Recurring) {
+            recurringTasks.remove(task.getId());
+            return;
+        }
+        if (task.getStart() == null) {
+            return;
+        }
+        long start = toEpochMinute(task.getStart());
+        Map<Long, Task> bucket = tasksByStart.get(start);
+        if (bucket != null) {
+            if (bucket.remove(task.getId()) != null) {
+                size--;
+            }
+            if (bucket.isEmpty()) {
+                tasksByStart.remove(start);
+            }
+        }
+    }
+
+    /**
+     * Returns the first tasks whose time overlaps {@code [from, to]}, ordered by start. A
+     * recurring task contributes its occurrences in the range, built only as far as needed.
+     *
+     * @param from  The start of the range, inclusive.
+     * @param to    The end of the range, inclusive.
+     * @param count The maximum number of tasks to return.
+     * @return Up to count overlapping tasks and occurrences.
+     */
+    List<Task> findOverlapping(LocalDateTime from, LocalDateTime to, int count) {
+        long rangeStart = toEpochMinute(from);
+        List<Task> overlapping = new ArrayList<>();
+        for (Map<Long, Task> bucket : tasksByStart.subMap(rangeStart - longestMinutes, true, toEpochMinute(to), true).values()) {
+            if (overlapping.size() >= count) {
+                break;
+            }
+            for (Task task : bucket.values()) {
+                if (toEpochMinute(task.getEnd()) >= rangeStart) {
+                    overlapping.add(task);
+                }
+            }
+        }
+        List<Iterator<Task>> occurrences = new ArrayList<>();
+        for (Recurring series : recurringTasks.values()) {
+            occurrences.add(series.occurrencesBetween(from, to));
+        }
+        return mergeByStart(overlapping, occurrences, count);
+    }
+
+    /**
+     * Counts the tasks whose time overlaps {@code [from, to]}, each occurrence of a recurring
+     * task counted apart, without building the occurrences.
+     *
+     * @param from The start of the range, inclusive.
+     * @param to   The end of the range, inclusive.
+     * @return The number of overlapping tasks and occurrences.
+     */
+    long countOverlapping(LocalDateTime from, LocalDateTime to) {
+        long count = findOverlappingTimedTasks(from, to).size();
+        for (Recurring series : recurringTasks.values()) {
+            count += series.countOccurrencesBetween(from, to);
+        }
+        return count;
+    }
+
+    /**
+     * Returns the tasks whose time overlaps {@code [from, to]}, with each recurring task that
+     * has an occurrence in the range included once, as itself. The order is unspecified.
+     *
+     * @param from The start of the range, inclusive.
+     * @param to   The end of the range, inclusive.
+     * @return The overlapping tasks.
+     */
+    List<Task> findOverlappingTasks(LocalDateTime from, LocalDateTime to) {
+        List<Task> overlapping = findOverlappingTimedTasks(from, to);
+        for (Recurring series : recurringTasks.values()) {
+            if (series.overlaps(from, to)) {
+                overlapping.add(series);
+            }
+        }
+        return overlapping;
+    }
+
+    private List<Task> findOverlappingTimedTasks(LocalDateTime from, LocalDateTime to) {
+        long rangeStart = toEpochMinute(from);
+        long rangeEnd = toEpochMinute(to);
+        List<Task> overlapping = new ArrayList<>();
+        for (Map<Long, Task> bucket : tasksByStart.subMap(rangeStart - longestMinutes, true, rangeEnd, true).values()) {
+            for (Task task : bucket.values()) {
+                if (toEpochMinute(task.getEnd()) >= rangeStart) {
+                    overlapping.add(task);
+                }
+            }
+        }
+        return overlapping;
+    }
+
+    /**
+     * Estimates how many tasks {@link #findOverlappingTasks} would return without visiting them,
+     * assuming starts are spread evenly between the earliest and the latest.
+     *
+     * @param from The start of the range, inclusive.
+     * @param to   The end of the range, inclusive.
+     * @return The estimated number of overlapping tasks.
+     */
+    double estimateOverlapping(LocalDateTime from, LocalDateTime to) {
+        double estimate = 0;
+        for (Recurring series : recurringTasks.values()) {
+            estimate += series.overlaps(from, to) ? 1 : 0;
+        }
+        if (size == 0) {
+            return estimate;
+        }
+        long first = tasksByStart.firstKey();
+        long last = tasksByStart.lastKey();
+        long windowStart = Math.max(first, toEpochMinute(from) - longestMinutes);
+        long windowEnd = Math.min(last, toEpochMinute(to));
+        if (windowStart > windowEnd) {
+            return estimate;
+        }
+        return estimate + (double) size * (windowEnd - windowStart + 1) / (last - first + 1);
+    }
+
+    /**
+     * Returns the first tasks not yet done that start at or after the given time, including
+     * the pending occurrences of recurring tasks.
+     *
+     * @param now   The time to start from.
+     * @param count The maximum number of tasks to return.
+     * @return Up to count tasks, ordered by start.
+     */
+    List<Task> findUpcoming(LocalDateTime now, int count) {
+        List<Task> upcoming = new ArrayList<>();
+        for (Map<Long, Task> bucket : tasksByStart.tailMap(toEpochMinute(now), true).values()) {
+            if (upcoming.size() >= count) {
+                break;
+            }
+            for (Task task : bucket.values()) {
+                if (!task.isDone()) {
+                    upcoming.add(task);
+                }
+            }
+        }
+        List<Iterator<Task>> occurrences = new ArrayList<>();
+        for (Recurring series : recurringTasks.values()) {
+            occurrences.add(series.pendingOccurrencesFrom(now));
+        }
+        return mergeByStart(upcoming, occurrences, count);
+    }
+
+    /**
+     * Merges tasks with the occurrences of recurring tasks into the first {@code count} of
+     * them by start. Occurrences are taken from each series only as they come up, so a series
+     * that repeats forever costs at most {@code count} occurrences.
+     *
+     * @param tasks       Tasks in any order. Whole minutes of them are expected, so that ties at
+     *                    the last minute taken are broken by ID, as for the rest.
+     * @param occurrences The occurrences of each series, each ordered by start.
+     * @param count       The maximum number of tasks to return.
+     * @return Up to count tasks, ordered by {@link #BY_START}.
+     */
+    static List<Task> mergeByStart(List<Task> tasks, List<Iterator<Task>> occurrences, int count) {
+        tasks.sort(BY_START);
+        PriorityQueue<Map.Entry<Task, Iterator<Task>>> heads =
+                new PriorityQueue<>(Map.Entry.comparingByKey(BY_START));
+        for (Iterator<Task> series : occurrences) {
+            if (series.hasNext()) {
+                heads.add(Map.entry(series.next(), series));
+            }
+        }
+        List<Task> merged = new ArrayList<>(Math.min(count, tasks.size() + heads.size()));
+        int next = 0;
+        while (merged.size() < count && (next < tasks.size() || !heads.isEmpty())) {
+            boolean isTaskFirst = next < tasks.size()
+                    && (heads.isEmpty() || BY_START.compare(tasks.get(next), heads.peek().getKey()) <= 0);
+            if (isTaskFirst) {
+                merged.add(tasks.get(next++));
+                continue;
+            }
+            Map.Entry<Task, Iterator<Task>> head = heads.poll();
+            merged.add(head.getKey());
+            if (head.getValue().hasNext()) {
+                heads.add(Map.entry(head.getValue().next(), head.getValue()));
+            }
+        }
+        return merged;
+    }
+
+    private static long toEpochMinute(LocalDateTime dateTime) {
+        return dateTime.toEpochSecond(ZoneOffset.UTC) / 60;
+    }
+}
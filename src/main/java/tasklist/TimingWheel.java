@@ -0,0 +1,255 @@
+package tasklist;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hierarchical timing wheel of reminder timers keyed by task ID, one tick per minute.
+ *
+ * Level 0 has one slot per minute for the next 64 minutes, level 1 one slot per 64 minutes for
+ * the next 64^2, and so on up to level 5, which spans about 130,000 years. A timer goes on the
+ * lowest level whose span covers its delay, in the slot its minute falls in. Whenever the wheel
+ * reaches a minute that is a multiple of a level's slot width, the timers in that level's
+ * current slot are moved down to finer levels, so each timer moves at most five times before
+ * it fires.
+ *
+ * Each slot is a doubly linked list and the timers of a task are chained from a map by ID, so
+ * adding a timer and cancelling a task's timers are O(1) whatever the number of timers, where a
+ * priority queue would pay O(log n) for each. Advancing costs one step per minute passed plus
+ * the timers moved and fired.
+ */
+class TimingWheel {
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int LEVELS = 6;
+    /** The longest delay that fits on the top level; later timers are placed as if this far. */
+    private static final long MAX_DELAY = (1L << (SLOT_BITS * LEVELS)) - 1;
+
+    private final Timer[][] slots = new Timer[LEVELS][SLOTS];
+    /** Timers whose minute had already passed when they were added. */
+    private final Timer overdue = new Timer(0, 0, 0, -1);
+    private final Map<Long, Timer> timersByTask = new HashMap<>();
+    private final int[] timersInLevel = new int[LEVELS];
+    private long nextMinute;
+    private int size;
+
+    /**
+     * Constructs an empty wheel.
+     *
+     * @param currentMinute The minute the wheel starts at, in epoch minutes.
+     */
+    TimingWheel(long currentMinute) {
+        for (Timer[] level : slots) {
+            for (int i = 0; i < SLOTS; i++) {
+                level[i] = new Timer(0, 0, 0, -1);
+            }
+        }
+        nextMinute = currentMinute;
+    }
+
+    /**
+     * Adds a timer. A timer for a minute the wheel has already passed fires on the next advance.
+     *
+     * @param taskId     The task the timer belongs to.
+     * @param minute     When the timer fires, in epoch minutes.
+     * @param lead       Which of the owner's lead times the timer is for.
+     * @param occurrence The occurrence of a recurring task it is for, or -1.
+     */
+    void add(long taskId, long minute, int lead, int occurrence) {
+        Timer timer = new Timer(taskId, minute, lead, occurrence);
+        timer.nextOfTask = timersByTask.put(taskId, timer);
+        place(timer);
+        size++;
+    }
+
+    /**
+     * Cancels every timer of a task.
+     *
+     * @param taskId The task.
+     */
+    void cancel(long taskId) {
+        for (Timer timer = timersByTask.remove(taskId); timer != null; timer = timer.nextOfTask) {
+            unlink(timer);
+            size--;
+        }
+    }
+
+    /**
+     * Returns the first minute the wheel has not fired timers for yet.
+     */
+    long getNextMinute() {
+        return nextMinute;
+    }
+
+    /**
+     * Returns the occurrence that the task's most recently added timer is for.
+     *
+     * @param taskId The task.
+     * @return The occurrence, or -1 if the task has no timers or they are not for an occurrence.
+     */
+    int occurrenceOf(long taskId) {
+        Timer timer = timersByTask.get(taskId);
+        return (timer == null) ? -1 : timer.occurrence;
+    }
+
+    /**
+     * Fires every timer up to and including a minute, in order of minute. Stretches where the
+     * finer levels are empty are skipped to the next minute a coarser level cascades.
+     *
+     * @param minute The minute to advance to, in epoch minutes.
+     * @return The fired timers, which are no longer in the wheel.
+     */
+    List<Timer> advanceTo(long minute) {
+        List<Timer> fired = new ArrayList<>();
+        takeAll(overdue, fired);
+        if (size == 0) {
+            nextMinute = Math.max(nextMinute, minute + 1);
+            return fired;
+        }
+        while (nextMinute <= minute && size > 0) {
+            for (int level = 1; level < LEVELS && (nextMinute & ((1L << (SLOT_BITS * level)) - 1)) == 0; level++) {
+                cascade(slots[level][slotOf(nextMinute, level)]);
+            }
+            takeAll(slots[0][slotOf(nextMinute, 0)], fired);
+            int lowest = 0;
+            while (lowest < LEVELS - 1 && timersInLevel[lowest] == 0) {
+                lowest++;
+            }
+            long width = 1L << (SLOT_BITS * lowest);
+            nextMinute = Math.min((nextMinute / width + 1) * width, minute + 1);
+        }
+        nextMinute = Math.max(nextMinute, minute + 1);
+        return fired;
+    }
+
+    /**
+     * Returns the number of timers waiting.
+     */
+    int size() {
+        return size;
+    }
+
+    private void place(Timer timer) {
+        long delay = timer.minute - nextMinute;
+        if (delay < 0) {
+            timer.level = -1;
+            timer.linkAfter(overdue);
+            return;
+        }
+        long minute = (delay > MAX_DELAY) ? nextMinute + MAX_DELAY : timer.minute;
+        delay = minute - nextMinute;
+        int level = 0;
+        while (level < LEVELS - 1 && delay >= (1L << (SLOT_BITS * (level + 1)))) {
+            level++;
+        }
+        timer.level = level;
+        timersInLevel[level]++;
+        timer.linkAfter(slots[level][slotOf(minute, level)]);
+    }
+
+    private void unlink(Timer timer) {
+        if (timer.level >= 0) {
+            timersInLevel[timer.level]--;
+        }
+        timer.unlink();
+    }
+
+    private void cascade(Timer head) {
+        Timer timer = head.next;
+        head.next = head;
+        head.previous = head;
+        while (timer != head) {
+            Timer next = timer.next;
+            timersInLevel[timer.level]--;
+            place(timer);
+            timer = next;
+        }
+    }
+
+    private void takeAll(Timer head, List<Timer> fired) {
+        while (head.next != head) {
+            Timer timer = head.next;
+            unlink(timer);
+            unchain(timer);
+            size--;
+            fired.add(timer);
+        }
+    }
+
+    private void unchain(Timer timer) {
+        Timer first = timersByTask.get(timer.taskId);
+        if (first == timer) {
+            if (timer.nextOfTask == null) {
+                timersByTask.remove(timer.taskId);
+            } else {
+                timersByTask.put(timer.taskId, timer.nextOfTask);
+            }
+            return;
+        }
+        for (Timer previous = first; previous != null; previous = previous.nextOfTask) {
+            if (previous.nextOfTask == timer) {
+                previous.nextOfTask = timer.nextOfTask;
+                return;
+            }
+        }
+    }
+
+    private static int slotOf(long minute, int level) {
+        return (int) ((minute >>> (SLOT_BITS * level)) & (SLOTS - 1));
+    }
+
+    /**
+     * One timer, linked into its slot and chained to the other timers of its task. A slot's
+     * list starts from a timer that stands for the slot itself.
+     */
+    static final class Timer {
+        private final long taskId;
+        private final long minute;
+        private final int lead;
+        private final int occurrence;
+        private Timer previous = this;
+        private Timer next = this;
+        private Timer nextOfTask;
+        /** The level the timer is on, or -1 if it is overdue. */
+        private int level = -1;
+
+        private Timer(long taskId, long minute, int lead, int occurrence) {
+            this.taskId = taskId;
+            this.minute = minute;
+            this.lead = lead;
+            this.occurrence = occurrence;
+        }
+
+        long getTaskId() {
+            return taskId;
+        }
+
+        long getMinute() {
+            return minute;
+        }
+
+        int getLead() {
+            return lead;
+        }
+
+        int getOccurrence() {
+            return occurrence;
+        }
+
+        private void linkAfter(Timer head) {
+            previous = head;
+            next = head.next;
+            head.next.previous = this;
+            head.next = this;
+        }
+
+        private void unlink() {
+            previous.next = next;
+            next.previous = previous;
+            previous = this;
+            next = this;
+        }
+    }
+}
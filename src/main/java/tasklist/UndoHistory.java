@@ -0,0 +1,88 @@
+package tasklist;
+
+/**
+ * Bounded history of the changes made by recent commands, for undo and redo.
+ *
+ * Each entry holds the changes one command made, in the order it made them. Entries sit in a
+ * ring buffer, so recording a command overwrites the oldest one once the history is full, and
+ * undo and redo only move the position in the ring, once the changes have been applied.
+ * Recording a new command drops anything that could still be redone.
+ */
+public class UndoHistory {
+    public static final int DEFAULT_CAPACITY = 100;
+
+    private final Change[][] entries;
+    private int next;
+    private int undoCount;
+    private int redoCount;
+
+    /**
+     * Constructs an empty history that remembers the given number of commands.
+     *
+     * @param capacity The number of commands that can be undone.
+     */
+    public UndoHistory(int capacity) {
+        entries = new Change[capacity][];
+    }
+
+    /**
+     * Records the changes made by one command.
+     *
+     * @param changes The changes, in the order they were made.
+     */
+    public void record(Change... changes) {
+        if (changes.length == 0) {
+            return;
+        }
+        // Forget what could still be redone, so it can be collected.
+        for (int i = 0; i < redoCount; i++) {
+            entries[(next + i) % entries.length] = null;
+        }
+        redoCount = 0;
+        entries[next] = changes;
+        next = (next + 1) % entries.length;
+        undoCount = Math.min(undoCount + 1, entries.length);
+    }
+
+    /**
+     * Returns the most recent command that can be undone, without stepping back over it.
+     *
+     * @return The changes it made, in the order it made them, or null if there is nothing to undo.
+     */
+    public Change[] peekUndo() {
+        return (undoCount == 0) ? null : entries[(next - 1 + entries.length) % entries.length];
+    }
+
+    /**
+     * Returns the most recently undone command, without stepping forward over it.
+     *
+     * @return The changes it made, in the order it made them, or null if there is nothing to redo.
+     */
+    public Change[] peekRedo() {
+        return (redoCount == 0) ? null : entries[next];
+    }
+
+    /**
+     * Steps back over the most recent command, once its changes have been undone.
+     */
+    public void stepBack() {
+        if (undoCount == 0) {
+            return;
+        }
+        next = (next - 1 + entries.length) % entries.length;
+        undoCount--;
+        redoCount++;
+    }
+
+    /**
+     * Steps forward over the most recently undone command, once its changes have been redone.
+     */
+    public void stepForward() {
+        if (redoCount == 0) {
+            return;
+        }
+        next = (next + 1) % entries.length;
+        redoCount--;
+        undoCount++;
+    }
+}
@@ -0,0 +1,241 @@
+package tasklist;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.function.IntPredicate;
+
+/**
+ * Inverted index from the words of task descriptions to the sequence numbers of the tasks
+ * containing them, for ranked search.
+ *
+ * Results are scored with BM25, so tasks where a rare query word appears, or appears often in
+ * a short description, come first. Each query word also matches the indexed words it is a
+ * prefix of and those within a small edit distance, found through a {@link TermTrie}, at a
+ * lower weight than an exact match. Only the best {@code limit} results are kept, in a heap,
+ * so the cost of ordering them does not grow with the number of matches.
+ *
+ * Sequence numbers are handed out by the caller. A removed task's postings stay behind until
+ * the caller rebuilds the index, and queries skip them.
+ */
+class WordIndex {
+    private static final float K1 = 1.2f;
+    private static final float B = 0.75f;
+    private static final float PREFIX_WEIGHT = 0.7f;
+    private static final float[] TYPO_WEIGHTS = {1f, 0.5f, 0.3f};
+    private static final int MIN_PREFIX_LENGTH = 2;
+    private static final int MAX_PREFIX_TERMS = 64;
+
+    private final Map<String, Posting> postings = new HashMap<>();
+    private final TermTrie<Posting> terms = new TermTrie<>();
+    private int[] wordCounts = new int[16];
+    private int sequenceCount;
+    private int liveCount;
+    private long liveWordCount;
+
+    /**
+     * Splits text into words of letters and digits.
+     *
+     * @param text The text.
+     * @return The words, in order.
+     */
+    static List<String> tokenize(String text) {
+        List<String> words = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean isWordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (isWordChar && start < 0) {
+                start = i;
+            } else if (!isWordChar && start >= 0) {
+                words.add(text.substring(start, i));
+                start = -1;
+            }
+        }
+        return words;
+    }
+
+    /**
+     * Indexes a description. Sequence numbers must be added in increasing order.
+     *
+     * @param sequence    The task's sequence number.
+     * @param description The task's description in lowercase.
+     */
+    void add(int sequence, String description) {
+        List<String> words = tokenize(description);
+        for (String word : words) {
+            Posting posting = postings.get(word);
+            if (posting == null) {
+                posting = new Posting();
+                postings.put(word, posting);
+                terms.put(word, posting);
+            }
+            posting.add(sequence);
+        }
+        if (sequence >= wordCounts.length) {
+            wordCounts = Arrays.copyOf(wordCounts, Math.max(sequence + 1, wordCounts.length * 2));
+        }
+        wordCounts[sequence] = words.size();
+        sequenceCount = Math.max(sequenceCount, sequence + 1);
+        liveCount++;
+        liveWordCount += words.size();
+    }
+
+    /**
+     * Notes that a task was removed, so it no longer counts towards the average description length.
+     *
+     * @param sequence The task's sequence number.
+     */
+    void remove(int sequence) {
+        liveCount--;
+        liveWordCount -= wordCounts[sequence];
+    }
+
+    /**
+     * Notes that a removed task was put back under its old sequence number, whose postings remain.
+     *
+     * @param sequence The task's sequence number.
+     */
+    void restore(int sequence) {
+        liveCount++;
+        liveWordCount += wordCounts[sequence];
+    }
+
+    /**
+     * Removes every task.
+     */
+    void clear() {
+        postings.clear();
+        terms.clear();
+        wordCounts = new int[16];
+        sequenceCount = 0;
+        liveCount = 0;
+        liveWordCount = 0;
+    }
+
+    /**
+     * Returns the best matches for a query, best first. Equal scores keep sequence order.
+     *
+     * @param query  The words to search for.
+     * @param limit  The maximum number of results.
+     * @param isLive Tells whether a sequence number still belongs to a task.
+     * @return The sequence numbers of the matching tasks.
+     */
+    int[] rank(String query, int limit, IntPredicate isLive) {
+        float averageLength = (liveCount == 0) ? 1 : Math.max(1f, (float) liveWordCount / liveCount);
+        float[] scores = new float[sequenceCount];
+        float[] wordScores = new float[sequenceCount];
+        int[] matched = new int[16];
+        int matchedCount = 0;
+        int[] wordMatched = new int[16];
+
+        for (String word : tokenize(query.toLowerCase(Locale.ROOT))) {
+            int wordMatchedCount = 0;
+            for (Map.Entry<Posting, Float> expansion : expand(word).entrySet()) {
+                Posting posting = expansion.getKey();
+                float idf = (float) Math.log(1 + (liveCount - posting.size + 0.5) / (posting.size + 0.5));
+                float weight = expansion.getValue() * Math.max(idf, 0.01f);
+                for (int i = 0; i < posting.size; i++) {
+                    int sequence = posting.sequences[i];
+                    if (!isLive.test(sequence)) {
+                        continue;
+                    }
+                    int frequency = posting.frequencies[i];
+                    float lengthRatio = wordCounts[sequence] / averageLength;
+                    float score = weight * frequency * (K1 + 1) / (frequency + K1 * (1 - B + B * lengthRatio));
+                    // A task matching several spellings of the word only counts its best one.
+                    if (score > wordScores[sequence]) {
+                        if (wordScores[sequence] == 0) {
+                            wordMatched = append(wordMatched, wordMatchedCount++, sequence);
+                        }
+                        wordScores[sequence] = score;
+                    }
+                }
+            }
+            for (int i = 0; i < wordMatchedCount; i++) {
+                int sequence = wordMatched[i];
+                if (scores[sequence] == 0) {
+                    matched = append(matched, matchedCount++, sequence);
+                }
+                scores[sequence] += wordScores[sequence];
+                wordScores[sequence] = 0;
+            }
+        }
+        return topResults(scores, matched, matchedCount, limit);
+    }
+
+    /**
+     * Returns the postings a query word matches, with the weight of each.
+     */
+    private Map<Posting, Float> expand(String word) {
+        Map<Posting, Float> expansions = new IdentityHashMap<>();
+        if (word.length() >= MIN_PREFIX_LENGTH) {
+            for (Posting posting : terms.findWithPrefix(word, MAX_PREFIX_TERMS)) {
+                expansions.put(posting, PREFIX_WEIGHT);
+            }
+        }
+        for (Map.Entry<Posting, Integer> match : terms.findWithin(word, maxTypos(word)).entrySet()) {
+            expansions.merge(match.getKey(), TYPO_WEIGHTS[match.getValue()], Math::max);
+        }
+        return expansions;
+    }
+
+    private static int maxTypos(String word) {
+        if (word.length() < 3) {
+            return 0;
+        }
+        return (word.length() < 6) ? 1 : 2;
+    }
+
+    private static int[] topResults(float[] scores, int[] matched, int matchedCount, int limit) {
+        // The root of the heap is the worst result kept so far.
+        PriorityQueue<Integer> best = new PriorityQueue<>(Math.min(limit, Math.max(1, matchedCount)) + 1,
+                (a, b) -> (scores[a] != scores[b]) ? Float.compare(scores[a], scores[b]) : Integer.compare(b, a));
+        for (int i = 0; i < matchedCount; i++) {
+            best.add(matched[i]);
+            if (best.size() > limit) {
+                best.poll();
+            }
+        }
+        int[] results = new int[best.size()];
+        for (int i = results.length - 1; i >= 0; i--) {
+            results[i] = best.poll();
+        }
+        return results;
+    }
+
+    private static int[] append(int[] array, int index, int value) {
+        if (index == array.length) {
+            array = Arrays.copyOf(array, index * 2);
+        }
+        array[index] = value;
+        return array;
+    }
+
+    /**
+     * Sorted sequence numbers of the tasks containing one word, with how often it occurs in each.
+     */
+    private static class Posting {
+        private int[] sequences = new int[1];
+        private int[] frequencies = new int[1];
+        private int size;
+
+        void add(int sequence) {
+            if (size > 0 && sequences[size - 1] == sequence) {
+                frequencies[size - 1]++;
+                return;
+            }
+            if (size == sequences.length) {
+                sequences = Arrays.copyOf(sequences, size * 2);
+                frequencies = Arrays.copyOf(frequencies, size * 2);
+            }
+            sequences[size] = sequence;
+            frequencies[size] = 1;
+            size++;
+        }
+    }
+}
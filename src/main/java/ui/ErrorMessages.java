@@ -5,10 +5,36 @@ public class ErrorMessages {
     public static final String INVALID_TODO = "Oh no! empty description. Use: todo {task description}";
     public static final String INVALID_DEADLINE = "Oh no! empty description. Use: deadline {task} /by {date}";
     public static final String INVALID_EVENT = "Oh no! empty description. Use: event {task} /from {start} /to {end}";
+    public static final String INVALID_FORMAT = "Oh no! Unknown file format. Use: convert text, or convert binary";
+    public static final String INVALID_PAGE = "Oh no! Invalid page number. Use: list, or list {page}";
+    public static final String INVALID_DUE = "Oh no! Invalid date. Use: due {yyyy-MM-dd}";
+    public static final String INVALID_BETWEEN = "Oh no! Invalid dates. Use: between {yyyy-MM-dd} {yyyy-MM-dd}";
+    public static final String INVALID_UPCOMING = "Oh no! Invalid count. Use: upcoming {number}";
+    public static final String INVALID_RANKED_FIND = "Oh no! Nothing to search for. Use: find ~{words}, or find ~{words} /top {number}";
+    public static final String INVALID_FILTER = "Oh no! Invalid filter. Use: filter #tag type:T|D|E|R done not-done, with - to exclude, e.g. filter #work -#home not-done";
+    public static final String INVALID_RECURRENCE = "Oh no! Invalid repeat. Use: deadline {task} /by {date} /every [number] day|week|month [until yyyy-MM-dd], or the same after an event";
+    public static final String NO_OCCURRENCE = "Oh no! That task has no occurrence to change there. Use: mark {number} /on yyyy-MM-dd for a recurring task";
+    public static final String INVALID_QUERY = "Oh no! Invalid query. Use e.g.: query report and (#work or type:D) and not done before:2025-05-01 limit 10";
+    public static final String INVALID_LEAD_TIME = "Oh no! Invalid reminder lead time. Use: --remind 1d,2h,15m, or --remind off. Got: ";
+    public static final String INVALID_WRITE_BEHIND = "Oh no! Invalid write-behind delay. Use: --write-behind {milliseconds}, 0 or more. Got: ";
+    public static final String INVALID_FLUSH_EVERY = "Oh no! Invalid flush interval. Use: --flush-every {number of commands}, 0 or more. Got: ";
+    public static final String INVALID_PORT = "Oh no! Invalid port. Use: --server {port}, from 0 to 65535. Got: ";
+    public static final String INVALID_LIST_NAME = "Oh no! Invalid list name. Use: use {list}, with letters, digits, - and _ only";
+    public static final String NOTHING_TO_UNDO = "Oh no! There is nothing to undo.";
+    public static final String NOTHING_TO_REDO = "Oh no! There is nothing to redo.";
+    public static final String INVALID_SELECTION = "Oh no! Invalid selection. Use: a number, 3-9, 1,4,9, done, find {keyword}, or filter {filter}";
     public static final String INVALID_TASK_NUMBER = "Oh no! Invalid task number.";
     public static final String MKDIR_FAILED = "Oh no! Unable to create directory for saving task.";
     public static final String SAVE_TASK_FAILED = "Oh no! Unable to save task: ";
     public static final String TASK_LOAD_FAILED = "Oh no! Unable to load task: ";
+    public static final String LIST_LOAD_FAILED = "Oh no! Unable to load saved tasks, starting with an empty list: ";
     public static final String TASK_TYPE_UNKNOWN = "Oh no! Unknown task type: ";
+    public static final String BATCH_READ_FAILED = "Oh no! Unable to read batch commands: ";
+    public static final String METRICS_WRITE_FAILED = "Oh no! Unable to write metrics: ";
+    public static final String SEARCH_FAILED = "Oh no! Unable to search every list: ";
+    public static final String SERVER_FAILED = "Oh no! Unable to start the server: ";
+    public static final String TASK_LINE_SKIPPED = "Oh no! Skipped a corrupted task on line ";
+    public static final String TASK_RECORD_SKIPPED = "Oh no! Skipped corrupted tasks from record ";
+    public static final String TASK_FILE_INCOMPLETE = "Oh no! The task file was not saved completely. Kept every task that could be read.";
     public static final String TASK_PARSING_ERROR = "Oh no! parsing task: ";
 }
@@ -1,8 +1,18 @@
 package ui;
 
+import metrics.Metrics;
 import task.Task;
+import tasklist.Reminder;
+
+import java.io.BufferedWriter;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Scanner;
 
 public class Ui {
@@ -13,95 +23,426 @@ public class Ui {
                     + " | |___ | |_| | |_| || | | |___  \n"
                     + " |_____||____/|____/|___||_____| \n";
 
+    private static final int OUTPUT_BUFFER_SIZE = 1 << 16;
+    public static final int PAGE_SIZE = 50;
+    public static final int SUMMARY_SIZE = 10;
+    /** The most tasks a schedule or query shows; the rest are only counted. */
+    public static final int MAX_RESULTS = 1000;
+    public static final String DIVIDER = "_____________________________________________________________________";
+
     private final Scanner scanner;
+    private final PrintWriter out;
+    /** When the command being answered finished executing, or 0 if no response is pending. */
+    private long responseStart;
 
+    /**
+     * Constructs a Ui on the console. Output is buffered and flushed before each prompt,
+     * or explicitly through {@link #flush()}.
+     */
     public Ui() {
-        this.scanner = new Scanner(System.in);
+        this(System.in, System.out);
+    }
+
+    /**
+     * Constructs a Ui that reads commands from and writes responses to the given streams.
+     *
+     * @param in  The stream commands are read from.
+     * @param out The stream responses are written to.
+     */
+    public Ui(InputStream in, OutputStream out) {
+        this.scanner = new Scanner(in);
+        this.out = new PrintWriter(new BufferedWriter(new OutputStreamWriter(out), OUTPUT_BUFFER_SIZE), false);
     }
 
     public void showStartPage() {
-        System.out.println(LOGO);
+        out.println(LOGO);
         printLine();
-        System.out.println("Eddie: Welcome to your personal task manager!");
-        System.out.println("I can help you manage different types of tasks.\n");
-
-        System.out.println("HOW TO USE EDDIE:");
-        System.out.println("To add a ToDo: `todo {task}`");
-        System.out.println("To add a Deadline: `deadline {task} /by {date}`");
-        System.out.println("To add an Event: `event {task} /from {start} /to {end}`\n");
-
-        System.out.println("Other Commands:");
-        System.out.println("View all tasks: `list`");
-        System.out.println("Mark as done: `mark 2`");
-        System.out.println("Unmark: `unmark 2`");
-        System.out.println("Delete: `delete 2`");
-        System.out.println("Find tasks: `find {keyword}`");
-        System.out.println("Exit: `bye`");
+        out.println("Eddie: Welcome to your personal task manager!");
+        out.println("I can help you manage different types of tasks.\n");
+
+        out.println("HOW TO USE EDDIE:");
+        out.println("To add a ToDo: `todo {task}`");
+        out.println("To add a Deadline: `deadline {task} /by {date}`");
+        out.println("To add an Event: `event {task} /from {start} /to {end}`");
+        out.println("To repeat either: add `/every [number] day|week|month [until {yyyy-MM-dd}]`\n");
+
+        out.println("Other Commands:");
+        out.println("View all tasks: `list`");
+        out.println("View one page of tasks: `list 2`");
+        out.println("Mark as done: `mark 2`, or by task ID: `mark id:7`");
+        out.println("Unmark: `unmark 2`");
+        out.println("Mark one occurrence of a repeating task: `mark 2 /on {yyyy-MM-dd}`");
+        out.println("Delete: `delete 2`");
+        out.println("Many at once: `mark 1,4,9`, `delete 3-900`, `delete done`, `unmark find {keyword}`, `delete filter #old`");
+        out.println("Find tasks: `find {keyword}`");
+        out.println("Best matches, typos allowed: `find ~{words}`, `find ~{words} /top {number}`");
+        out.println("Filter by tag, type and status: `filter #work type:D not-done` (tag tasks with `#work`)");
+        out.println("Query with and/or/not, dates and a limit: `query report and (#work or type:D) before:2025-05-01 limit 10`");
+        out.println("See how a query is answered: `query explain {query}`");
+        out.println("Switch to another list: `use {list}`, and search every list: `find {keyword} /all`");
+        out.println("Tasks on a day: `due {yyyy-MM-dd}`");
+        out.println("Tasks in a date range: `between {yyyy-MM-dd} {yyyy-MM-dd}`");
+        out.println("Next tasks to do: `upcoming {number}`");
+        out.println("Undo the last change: `undo`, and bring it back: `redo`");
+        out.println("Timings and task counts: `stats`");
+        out.println("Change save format: `convert text` or `convert binary`");
+        out.println("Exit: `bye`");
         printLine();
     }
 
     public void showEndPage() {
         printLine();
-        System.out.println("Eddie: Goodbye! Hope to see you again soon!");
+        out.println("Eddie: Goodbye! Hope to see you again soon!");
         printLine();
     }
 
     public void showTaskAdded(Task task, int count) {
-        System.out.println("Eddie:\nGot it. I've added this task:\n  " + task);
-        System.out.println("Now you have " + count + " tasks in the list.");
+        out.println("Eddie:\nGot it. I've added this task (id:" + task.getId() + "):\n  " + task);
+        out.println("Now you have " + count + " tasks in the list.");
     }
 
     public void showTaskDeleted(Task task, int count) {
-        System.out.println("Eddie:\nNoted. I've removed this task:\n  " + task);
-        System.out.println("Now you have " + count + " tasks in the list.");
+        out.println("Eddie:\nNoted. I've removed this task:\n  " + task);
+        out.println("Now you have " + count + " tasks in the list.");
     }
 
     public void showMarkedStatus(Task task, boolean done) {
         if (done) {
-            System.out.println("Eddie:\nYay! Marked as done:\n  " + task + "\nHave a Beer!!");
+            out.println("Eddie:\nYay! Marked as done:\n  " + task + "\nHave a Beer!!");
         } else {
-            System.out.println("Eddie:\nOh no! Marked as not done:\n  " + task);
+            out.println("Eddie:\nOh no! Marked as not done:\n  " + task);
         }
     }
 
-    public void showTaskList(ArrayList<Task> tasks) {
-        System.out.println("Eddie:\nHere are the tasks in your list:");
+    /**
+     * Shows every task. The first page is flushed straight away and the rest is streamed
+     * through the output buffer.
+     *
+     * @param tasks The tasks to show.
+     */
+    public void showTaskList(List<Task> tasks) {
+        out.println("Eddie:\nHere are the tasks in your list:");
         if (tasks.isEmpty()) {
-            System.out.println("No tasks in your list.");
+            out.println("No tasks in your list.");
             return;
         }
 
         for (int i = 0; i < tasks.size(); i++) {
-            System.out.println((i + 1) + ". " + tasks.get(i));
+            printTask(i + 1, tasks.get(i));
+            if (i + 1 == PAGE_SIZE) {
+                out.flush();
+            }
+        }
+    }
+
+    /**
+     * Shows one page of {@link #PAGE_SIZE} tasks.
+     *
+     * @param pageTasks The tasks on the page.
+     * @param page      The 1-based page number.
+     * @param total     The number of tasks in the whole list.
+     */
+    public void showTaskListPage(List<Task> pageTasks, int page, int total) {
+        int pageCount = Math.max(1, (total + PAGE_SIZE - 1) / PAGE_SIZE);
+        out.println("Eddie:\nHere are the tasks in your list (page " + page + " of " + pageCount + "):");
+        if (pageTasks.isEmpty()) {
+            out.println("No tasks in your list.");
+            return;
+        }
+
+        int number = (page - 1) * PAGE_SIZE + 1;
+        for (Task task : pageTasks) {
+            printTask(number++, task);
+        }
+    }
+
+    /**
+     * Shows the changes an undo reverted or a redo made again.
+     *
+     * @param isRedo  True for a redo.
+     * @param changes Descriptions of the command's changes.
+     * @param count   The number of tasks afterwards.
+     */
+    public void showHistoryStep(boolean isRedo, List<String> changes, int count) {
+        out.println(isRedo ? "Eddie:\nRedone! I've made your change again:" : "Eddie:\nUndone! I've reverted your last change:");
+        printSummary(changes);
+        out.println("Now you have " + count + " tasks in the list.");
+    }
+
+    /**
+     * Shows the tasks a bulk delete removed.
+     *
+     * @param tasks The removed tasks, in list order.
+     * @param count The number of tasks left.
+     */
+    public void showTasksDeleted(List<Task> tasks, int count) {
+        if (tasks.isEmpty()) {
+            out.println("Eddie:\nNo tasks matched, so nothing was removed.");
+            return;
+        }
+        out.println("Eddie:\nNoted. I've removed these " + tasks.size() + " tasks:");
+        printSummary(tasks);
+        out.println("Now you have " + count + " tasks in the list.");
+    }
+
+    /**
+     * Shows the tasks a bulk mark or unmark changed.
+     *
+     * @param tasks The tasks, in list order.
+     * @param done  True if they were marked as done.
+     */
+    public void showMarkedStatus(List<Task> tasks, boolean done) {
+        if (tasks.isEmpty()) {
+            out.println("Eddie:\nNo tasks matched, so nothing was changed.");
+            return;
         }
+        out.println("Eddie:\n" + (done ? "Yay! Marked " : "Oh no! Marked ") + tasks.size()
+                + (done ? " tasks as done:" : " tasks as not done:"));
+        printSummary(tasks);
+    }
+
+    public void showFormatConverted(String format) {
+        out.println("Eddie:\nDone! Your tasks are now saved in " + format + " format.");
+    }
+
+    public void showBatchSummary(int count) {
+        out.println("Eddie:\nRan " + count + " commands and saved your tasks.");
     }
 
     public void showError(String msg) {
-        System.out.println("Eddie:\nError: " + msg);
+        out.println("Eddie:\nError: " + msg);
     }
 
     public void printLine() {
-        System.out.println("_____________________________________________________________________");
+        out.println(DIVIDER);
+    }
+
+    public void showServerStarted(int port) {
+        out.println("Eddie: Serving your tasks on localhost port " + port + ".");
     }
 
-    public void showLoadingError() {
-        System.out.println("Error loading saved tasks. Starting with an empty task list.");
+    /**
+     * Returns whether another command can be read.
+     *
+     * @return False once the input has ended.
+     */
+    public boolean hasCommand() {
+        flushResponse();
+        return scanner.hasNextLine();
     }
 
     public String readCommand() {
-        System.out.print("You: ");
+        out.print("You: ");
+        flushResponse();
         return scanner.nextLine().trim();
     }
 
+    /**
+     * Notes that a command has finished executing, so the time until its response is written
+     * out, or ended with {@link #endResponse()}, is recorded as rendering.
+     */
+    public void startResponse() {
+        responseStart = System.nanoTime();
+    }
+
+    /**
+     * Records the response to the last command as rendered without writing it out, for when
+     * output is written in bulk later.
+     */
+    public void endResponse() {
+        if (responseStart != 0) {
+            Metrics.recordRender(System.nanoTime() - responseStart);
+            responseStart = 0;
+        }
+    }
+
+    /**
+     * Writes out everything shown so far, recording the time since the last command finished
+     * executing as rendering, or the write alone if no response is pending.
+     */
+    public void flush() {
+        if (responseStart == 0) {
+            responseStart = System.nanoTime();
+        }
+        out.flush();
+        endResponse();
+    }
+
+    /**
+     * Writes out everything shown so far before prompting, recording it as rendering only if
+     * it ends a response.
+     */
+    private void flushResponse() {
+        out.flush();
+        endResponse();
+    }
+
+    /**
+     * Shows the collected timings and task counts.
+     *
+     * @param lines The lines describing them.
+     */
+    public void showStats(List<String> lines) {
+        out.println("Eddie:\nHere is what I have been up to:");
+        for (String line : lines) {
+            out.println(line);
+        }
+    }
+
     public void showMatchingTasks(List<Task> matchedTasks) {
-        System.out.println("Eddie:\nHere are the tasks matching your list:");
+        out.println("Eddie:\nHere are the tasks matching your list:");
         if (matchedTasks.isEmpty()) {
-            System.out.println("No tasks matching your list.");
+            out.println("No tasks matching your list.");
         }
         int index = 1;
         for (Task task : matchedTasks) {
-            System.out.println(index + ". " + task);
+            printTask(index, task);
+            index++;
+        }
+    }
+
+    /**
+     * Shows the results of a query, printing each task as it is produced.
+     *
+     * @param results The matching tasks.
+     */
+    public void showQueryResults(Iterable<Task> results) {
+        out.println("Eddie:\nHere are the tasks matching your query:");
+        int index = 1;
+        long hidden = 0;
+        for (Task task : results) {
+            if (index > MAX_RESULTS) {
+                hidden++;
+                continue;
+            }
+            printTask(index, task);
+            index++;
+        }
+        if (index == 1) {
+            out.println("No tasks matching your query.");
+        }
+        if (hidden > 0) {
+            out.println("...and " + hidden + " more. Add limit {number} or narrow the query to see them.");
+        }
+    }
+
+    /**
+     * Shows the plan a query ran with.
+     *
+     * @param planLines     The steps of the plan, with estimated and actual rows.
+     * @param count         The number of tasks the query found.
+     * @param elapsedMicros How long the query took to run.
+     */
+    public void showQueryPlan(List<String> planLines, int count, long elapsedMicros) {
+        out.println("Eddie:\nHere is how I answered your query:");
+        for (String line : planLines) {
+            out.println(line);
+        }
+        out.println("Found " + count + " tasks in " + elapsedMicros + " us.");
+    }
+
+    /**
+     * Shows the tasks found in each list by a search of every list.
+     *
+     * @param matchesByList The matching tasks of each list that has any, keyed by list name.
+     */
+    public void showMatchingTasksByList(Map<String, List<Task>> matchesByList) {
+        out.println("Eddie:\nHere are the tasks matching your lists:");
+        if (matchesByList.isEmpty()) {
+            out.println("No tasks matching your lists.");
+        }
+        for (Map.Entry<String, List<Task>> matches : matchesByList.entrySet()) {
+            out.println(matches.getKey() + ":");
+            int index = 1;
+            for (Task task : matches.getValue()) {
+                printTask(index, task);
+                index++;
+            }
+        }
+    }
+
+    /**
+     * Shows which list is now in use.
+     *
+     * @param name  The list's name.
+     * @param count The number of tasks in it.
+     */
+    public void showListInUse(String name, int count) {
+        out.println("Eddie:\nNow using the list '" + name + "'. It has " + count + " tasks.");
+    }
+
+    /**
+     * Shows deadlines and events found by a time query.
+     *
+     * @param description What the tasks have in common, e.g. "due on 2025-04-01".
+     * @param tasks       The first of the tasks, ordered by time.
+     * @param total       How many tasks there are in all, including those not shown.
+     */
+    public void showScheduledTasks(String description, List<Task> tasks, long total) {
+        out.println("Eddie:\nHere are the tasks " + description + ":");
+        if (tasks.isEmpty()) {
+            out.println("No tasks found.");
+        }
+        int index = 1;
+        for (Task task : tasks) {
+            printTask(index, task);
             index++;
         }
+        if (total > tasks.size()) {
+            out.println("...and " + (total - tasks.size()) + " more. Narrow the dates to see them.");
+        }
+    }
+
+    /**
+     * Shows the reminders that have come due, if there are any.
+     *
+     * @param reminders The reminders, ordered by when their tasks start.
+     */
+    public void showReminders(List<Reminder> reminders) {
+        if (reminders.isEmpty()) {
+            return;
+        }
+        out.println("Eddie:\nReminder! Coming up soon:");
+        List<String> lines = new ArrayList<>(reminders.size());
+        for (Reminder reminder : reminders) {
+            lines.add(reminder.getTask() + ", " + formatTimeLeft(reminder.getTimeLeft()));
+        }
+        printSummary(lines);
+    }
+
+    private static String formatTimeLeft(Duration timeLeft) {
+        long minutes = timeLeft.toMinutes();
+        if (minutes == 0) {
+            return "now";
+        }
+        StringBuilder text = new StringBuilder("in");
+        appendUnit(text, minutes / (24 * 60), "day");
+        appendUnit(text, minutes / 60 % 24, "hour");
+        appendUnit(text, minutes % 60, "minute");
+        return text.toString();
+    }
+
+    private static void appendUnit(StringBuilder text, long count, String unit) {
+        if (count > 0) {
+            text.append(' ').append(count).append(' ').append(unit).append((count == 1) ? "" : "s");
+        }
+    }
+
+    /**
+     * Prints the first few items of a long list, one per line, and how many more there are.
+     */
+    private void printSummary(List<?> items) {
+        for (int i = 0; i < Math.min(items.size(), SUMMARY_SIZE); i++) {
+            out.println("  " + items.get(i));
+        }
+        if (items.size() > SUMMARY_SIZE) {
+            out.println("  ...and " + (items.size() - SUMMARY_SIZE) + " more.");
+        }
+    }
+
+    private void printTask(int number, Task task) {
+        out.print(number);
+        out.print(". ");
+        out.println(task);
     }
 }
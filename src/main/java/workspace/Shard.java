@@ -0,0 +1,185 @@
+package workspace;
+
+import command.Command;
+import command.EddieException;
+import storage.Storage;
+import tasklist.ColumnarTaskStore;
+import tasklist.Reminder;
+import tasklist.TaskList;
+import ui.ErrorMessages;
+import ui.Ui;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * One named task list of a {@link Workspace}, with its own file, Storage and lock.
+ *
+ * The tasks are only loaded from the file the first time the list is used. Commands on one
+ * list never wait for commands on another, and each list is saved without touching the others.
+ */
+public class Shard {
+    private final String name;
+    private final String layout;
+    private final Storage storage;
+    private volatile TaskList tasks;
+    private volatile String loadFailure;
+    private Clock reminderClock;
+    private List<Duration> leadTimes;
+
+    Shard(String name, String filePath, String layout) {
+        this.name = name;
+        this.layout = layout;
+        this.storage = new Storage(filePath, true);
+    }
+
+    /**
+     * Returns the list's name.
+     *
+     * @return The name, e.g. "tasks".
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns the Storage that saves this list.
+     *
+     * @return The Storage.
+     */
+    public Storage getStorage() {
+        return storage;
+    }
+
+    /**
+     * Returns the list's tasks, loading them from the file if this is the first use.
+     * A list that cannot be loaded starts empty, and the problem is reported by {@link #takeFailures()}.
+     *
+     * @return The task list.
+     */
+    public TaskList getTasks() {
+        TaskList loaded = tasks;
+        if (loaded != null) {
+            return loaded;
+        }
+        synchronized (this) {
+            if (tasks == null) {
+                TaskList newTasks = load();
+                if (leadTimes != null) {
+                    newTasks.enableReminders(reminderClock, leadTimes);
+                }
+                tasks = newTasks;
+            }
+            return tasks;
+        }
+    }
+
+    /**
+     * Returns whether the list's tasks have been loaded.
+     *
+     * @return True once {@link #getTasks()} has been called.
+     */
+    public boolean isLoaded() {
+        return tasks != null;
+    }
+
+    /**
+     * Executes a command on this list, holding its read lock for read-only commands and its
+     * write lock otherwise.
+     *
+     * @param command The command.
+     * @param ui      The Ui to show the result on.
+     * @throws EddieException If the command fails.
+     */
+    public void execute(Command command, Ui ui) throws EddieException {
+        TaskList taskList = getTasks();
+        Lock lock = command.isReadOnly() ? taskList.readLock() : taskList.writeLock();
+        lock.lock();
+        try {
+            command.execute(taskList, ui, storage);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Keeps reminders for this list's deadlines and events, from now on if it is loaded or
+     * from when it is.
+     *
+     * @param clock     Where the current time comes from.
+     * @param leadTimes How long before each task starts to remind of it, at least one.
+     */
+    public synchronized void enableReminders(Clock clock, List<Duration> leadTimes) {
+        this.reminderClock = clock;
+        this.leadTimes = leadTimes;
+        TaskList loaded = tasks;
+        if (loaded != null) {
+            Lock lock = loaded.writeLock();
+            lock.lock();
+            try {
+                loaded.enableReminders(clock, leadTimes);
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Returns the reminders of this list that have come due since the last call.
+     *
+     * @return The reminders, or none if the list is not loaded.
+     */
+    public List<Reminder> takeDueReminders() {
+        TaskList loaded = tasks;
+        if (loaded == null) {
+            return new ArrayList<>();
+        }
+        Lock lock = loaded.writeLock();
+        lock.lock();
+        try {
+            return loaded.takeDueReminders();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns and clears the problems with loading or saving this list since the last call.
+     *
+     * @return The failure messages, oldest first.
+     */
+    public List<String> takeFailures() {
+        List<String> failures = new ArrayList<>();
+        if (loadFailure != null) {
+            failures.add(loadFailure);
+            loadFailure = null;
+        }
+        failures.addAll(storage.takeFailures());
+        return failures;
+    }
+
+    private TaskList load() {
+        try {
+            TaskList tasks;
+            switch (layout) {
+            case "lazy":
+                tasks = storage.loadLazily();
+                break;
+            case "columnar":
+                tasks = new TaskList(ColumnarTaskStore.of(storage.loadTask()));
+                break;
+            default:
+                tasks = new TaskList(storage.loadTask());
+                break;
+            }
+            tasks.reserveIds(storage.getNextId());
+            return tasks;
+        } catch (EddieException e) {
+            loadFailure = ErrorMessages.LIST_LOAD_FAILED + name;
+            return new TaskList();
+        }
+    }
+}
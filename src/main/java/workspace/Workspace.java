@@ -0,0 +1,278 @@
+package workspace;
+
+import command.EddieException;
+import task.Task;
+import tasklist.Reminder;
+import tasklist.TaskList;
+import ui.ErrorMessages;
+
+import java.io.File;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.Lock;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+/**
+ * A set of named task lists kept side by side in one directory, each in its own file
+ * {@code {name}.txt}. Lists are created on first use and loaded lazily; see {@link Shard}.
+ *
+ * Queries over every list run on a small thread pool, one list per task, each under that
+ * list's own read lock.
+ */
+public class Workspace {
+    /**
+     * The name of the list used until another one is chosen.
+     */
+    public static final String DEFAULT_LIST = "tasks";
+
+    private static final String FILE_EXTENSION = ".txt";
+    private static final Pattern LIST_NAME = Pattern.compile("[A-Za-z0-9_-]+");
+
+    private final String directory;
+    private final String layout;
+    private final Map<String, Shard> shards = new ConcurrentHashMap<>();
+    private final ExecutorService queryPool;
+    private long writeBehindMillis;
+    private boolean isBatching;
+    private Clock reminderClock;
+    private List<Duration> leadTimes;
+
+    /**
+     * Constructs a workspace over a directory of task files.
+     *
+     * @param directory The directory the lists are saved in.
+     * @param layout    How each list holds its tasks in memory: "objects", "lazy" or "columnar".
+     */
+    public Workspace(String directory, String layout) {
+        this.directory = directory;
+        this.layout = layout;
+        this.queryPool = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), runnable -> {
+            Thread thread = new Thread(runnable, "eddie-list-query");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Returns whether a name can be used for a list: letters, digits, '-' and '_' only.
+     *
+     * @param name The name.
+     * @return True if the name is valid.
+     */
+    public static boolean isValidName(String name) {
+        return LIST_NAME.matcher(name).matches();
+    }
+
+    /**
+     * Returns the list with the given name, creating it if it does not exist yet.
+     * Its tasks are not loaded until they are first used.
+     *
+     * @param name The list's name.
+     * @return The list.
+     * @throws EddieException If the name is not valid.
+     */
+    public synchronized Shard getShard(String name) throws EddieException {
+        if (!isValidName(name)) {
+            throw new EddieException(ErrorMessages.INVALID_LIST_NAME);
+        }
+        Shard shard = shards.get(name);
+        if (shard == null) {
+            shard = new Shard(name, new File(directory, name + FILE_EXTENSION).getPath(), layout);
+            if (writeBehindMillis > 0) {
+                shard.getStorage().enableWriteBehind(writeBehindMillis);
+            }
+            if (isBatching) {
+                shard.getStorage().beginBatch();
+            }
+            if (leadTimes != null) {
+                shard.enableReminders(reminderClock, leadTimes);
+            }
+            shards.put(name, shard);
+        }
+        return shard;
+    }
+
+    /**
+     * Returns the names of every list, whether saved in the directory or only created so far.
+     *
+     * @return The names, sorted.
+     */
+    public List<String> getListNames() {
+        TreeSet<String> names = new TreeSet<>(shards.keySet());
+        String[] files = new File(directory).list();
+        if (files != null) {
+            for (String file : files) {
+                String name = file.substring(0, Math.max(0, file.length() - FILE_EXTENSION.length()));
+                if (file.endsWith(FILE_EXTENSION) && isValidName(name)) {
+                    names.add(name);
+                }
+            }
+        }
+        return new ArrayList<>(names);
+    }
+
+    /**
+     * Runs a query on every list in parallel, loading lists that are not loaded yet.
+     *
+     * @param query The query to run on one list while its read lock is held.
+     * @return The results of each list that found anything, keyed by list name in name order.
+     * @throws EddieException If a list cannot be opened or the query fails on one.
+     */
+    public Map<String, List<Task>> queryEveryList(Function<TaskList, List<Task>> query) throws EddieException {
+        List<String> names = getListNames();
+        List<Callable<List<Task>>> queries = new ArrayList<>();
+        for (String name : names) {
+            Shard shard = getShard(name);
+            queries.add(() -> {
+                TaskList tasks = shard.getTasks();
+                Lock lock = tasks.readLock();
+                lock.lock();
+                try {
+                    return query.apply(tasks);
+                } finally {
+                    lock.unlock();
+                }
+            });
+        }
+
+        Map<String, List<Task>> results = new LinkedHashMap<>();
+        try {
+            List<Future<List<Task>>> futures = queryPool.invokeAll(queries);
+            for (int i = 0; i < names.size(); i++) {
+                List<Task> found = futures.get(i).get();
+                if (!found.isEmpty()) {
+                    results.put(names.get(i), found);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof EddieException) {
+                throw (EddieException) e.getCause();
+            }
+            throw new EddieException(ErrorMessages.SEARCH_FAILED + e.getCause());
+        }
+        return results;
+    }
+
+    /**
+     * Saves every list written from now on in the background, at most {@code maxDelayMillis}
+     * after it changes. See {@link storage.Storage#enableWriteBehind(long)}.
+     *
+     * @param maxDelayMillis The longest a change may wait before being written.
+     */
+    public synchronized void enableWriteBehind(long maxDelayMillis) {
+        writeBehindMillis = maxDelayMillis;
+        for (Shard shard : shards.values()) {
+            shard.getStorage().enableWriteBehind(maxDelayMillis);
+        }
+    }
+
+    /**
+     * Keeps reminders for the deadlines and events of every list, each from when it is loaded.
+     *
+     * @param clock     Where the current time comes from.
+     * @param leadTimes How long before each task starts to remind of it, at least one.
+     */
+    public synchronized void enableReminders(Clock clock, List<Duration> leadTimes) {
+        reminderClock = clock;
+        this.leadTimes = leadTimes;
+        for (Shard shard : shards.values()) {
+            shard.enableReminders(clock, leadTimes);
+        }
+    }
+
+    /**
+     * Returns the reminders of every loaded list that have come due since the last call.
+     *
+     * @return The reminders, ordered by list name and then by when their tasks start.
+     */
+    public List<Reminder> takeDueReminders() {
+        List<Reminder> due = new ArrayList<>();
+        for (Shard shard : new TreeMap<>(shards).values()) {
+            due.addAll(shard.takeDueReminders());
+        }
+        return due;
+    }
+
+    /**
+     * Starts deferring persistence of every list until {@link #commitBatch()}.
+     */
+    public synchronized void beginBatch() {
+        isBatching = true;
+        for (Shard shard : shards.values()) {
+            shard.getStorage().beginBatch();
+        }
+    }
+
+    /**
+     * Ends the current batch, writing each list that changed once.
+     */
+    public synchronized void commitBatch() {
+        isBatching = false;
+        for (Shard shard : shards.values()) {
+            // A list that was never loaded cannot have changed, so its batch ends without a write.
+            ArrayList<Task> tasks = shard.isLoaded() ? shard.getTasks().getAllTasks() : new ArrayList<>();
+            shard.getStorage().commitBatch(tasks);
+        }
+    }
+
+    /**
+     * Counts the tasks of each type across every loaded list.
+     *
+     * @return The counts, keyed by type name.
+     */
+    public Map<String, Integer> countTasksByType() {
+        Map<String, Integer> counts = new TreeMap<>();
+        for (Shard shard : shards.values()) {
+            if (!shard.isLoaded()) {
+                continue;
+            }
+            TaskList tasks = shard.getTasks();
+            Lock lock = tasks.readLock();
+            lock.lock();
+            try {
+                tasks.countTasksByType().forEach((type, count) -> counts.merge(type, count, Integer::sum));
+            } finally {
+                lock.unlock();
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * Returns and clears the load and save failures of every list since the last call.
+     *
+     * @return The failure messages.
+     */
+    public List<String> takeFailures() {
+        List<String> failures = new ArrayList<>();
+        for (Shard shard : shards.values()) {
+            failures.addAll(shard.takeFailures());
+        }
+        return failures;
+    }
+
+    /**
+     * Writes out pending changes of every list and releases their files.
+     */
+    public void close() {
+        for (Shard shard : shards.values()) {
+            shard.getStorage().close();
+        }
+        queryPool.shutdown();
+    }
+}
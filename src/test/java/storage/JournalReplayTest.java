@@ -0,0 +1,169 @@
+package storage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import command.EddieException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import task.Deadline;
+import task.Recurring;
+import task.Task;
+import task.Todo;
+import tasklist.Change;
+import tasklist.TaskList;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public class JournalReplayTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    public void loadTask_afterJournaledChanges_replaysEveryRecord() throws EddieException {
+        String path = directory.resolve("tasks.txt").toString();
+        Storage storage = new Storage(path, true);
+        TaskList tasks = new TaskList(storage.loadTask());
+        Task first = add(tasks, storage, new Todo("read book"));
+        Task second = add(tasks, storage, new Deadline("report", LocalDateTime.of(2026, 3, 2, 9, 0)));
+        Recurring standup = new Recurring("standup", LocalDateTime.of(2026, 3, 2, 9, 0),
+                LocalDateTime.of(2026, 3, 2, 9, 15), 1, ChronoUnit.DAYS, LocalDate.of(2026, 3, 9));
+        add(tasks, storage, standup);
+        add(tasks, storage, new Todo("water plants"));
+
+        apply(tasks, storage, Change.marked(second, false, true));
+        apply(tasks, storage, Change.occurrenceMarked(standup, 2, true));
+        apply(tasks, storage, Change.deleted(first, 0));
+        storage.close();
+
+        assertEquals(describe(tasks.getAllTasks()), describe(reload(path)));
+        assertTrue(Files.exists(Path.of(path + ".journal")));
+    }
+
+    @Test
+    public void loadTask_undoneBulkDelete_putsTasksBackInPlace() throws EddieException {
+        String path = directory.resolve("tasks.txt").toString();
+        Storage storage = new Storage(path, true);
+        TaskList tasks = new TaskList(storage.loadTask());
+        for (int i = 0; i < 6; i++) {
+            add(tasks, storage, new Todo("task " + i));
+        }
+        List<Change> deletions = List.of(Change.deleted(tasks.getTask(4), 4), Change.deleted(tasks.getTask(1), 1));
+        tasks.applyChanges(deletions);
+        storage.recordChanges(deletions, tasks);
+
+        List<Change> undo = List.of(deletions.get(1).inverse(), deletions.get(0).inverse());
+        tasks.applyChanges(undo);
+        storage.recordChanges(undo, tasks);
+        storage.close();
+
+        assertEquals(describe(tasks.getAllTasks()), describe(reload(path)));
+    }
+
+    @Test
+    public void loadTask_tornFinalRecord_keepsEverythingBeforeIt() throws EddieException, IOException {
+        String path = directory.resolve("tasks.txt").toString();
+        Storage storage = new Storage(path, true);
+        TaskList tasks = new TaskList(storage.loadTask());
+        add(tasks, storage, new Todo("read book"));
+        add(tasks, storage, new Todo("water plants"));
+        storage.close();
+
+        Files.write(Path.of(path + ".journal"), "A | 9 | T".getBytes(StandardCharsets.UTF_8),
+                StandardOpenOption.APPEND);
+
+        assertEquals(describe(tasks.getAllTasks()), describe(reload(path)));
+    }
+
+    @Test
+    public void loadTask_afterCompaction_matchesList() throws EddieException {
+        String path = directory.resolve("tasks.txt").toString();
+        Storage storage = new Storage(path, true);
+        TaskList tasks = new TaskList(storage.loadTask());
+        Random random = new Random(5);
+        for (int i = 0; i < 30_000; i++) {
+            add(tasks, storage, new Todo("task number " + i));
+            Task task = tasks.getTask(random.nextInt(tasks.size()));
+            apply(tasks, storage, Change.marked(task, task.isDone(), !task.isDone()));
+        }
+        storage.close();
+
+        assertEquals(describe(tasks.getAllTasks()), describe(reload(path)));
+        assertTrue(Path.of(path + ".journal").toFile().length() < 1 << 20);
+    }
+
+    @Test
+    public void getNextId_highestTaskDeletedInJournal_isNotReused() throws EddieException {
+        String path = directory.resolve("tasks.txt").toString();
+        Storage storage = new Storage(path, true);
+        TaskList tasks = new TaskList(storage.loadTask());
+        add(tasks, storage, new Todo("read book"));
+        Task last = add(tasks, storage, new Todo("water plants"));
+        apply(tasks, storage, Change.deleted(last, 1));
+        storage.close();
+
+        assertEquals(last.getId() + 1, addAfterReload(path).getId());
+    }
+
+    @Test
+    public void getNextId_highestTaskDeletedBeforeSnapshot_isNotReused() throws EddieException {
+        for (TaskFileFormat format : TaskFileFormat.values()) {
+            String path = directory.resolve("tasks-" + format + ".txt").toString();
+            Storage storage = new Storage(path, true);
+            TaskList tasks = new TaskList(storage.loadTask());
+            add(tasks, storage, new Todo("read book"));
+            Task last = add(tasks, storage, new Todo("water plants"));
+            apply(tasks, storage, Change.deleted(last, 1));
+            storage.convertTo(format, tasks.getAllTasks());
+            storage.close();
+
+            assertEquals(last.getId() + 1, addAfterReload(path).getId(), format.toString());
+        }
+    }
+
+    private static Task addAfterReload(String path) throws EddieException {
+        Storage storage = new Storage(path, true);
+        TaskList tasks = new TaskList(storage.loadTask());
+        tasks.reserveIds(storage.getNextId());
+        storage.close();
+        Task task = new Todo("new task");
+        tasks.addTask(task);
+        return task;
+    }
+
+    private static Task add(TaskList tasks, Storage storage, Task task) {
+        tasks.addTask(task);
+        storage.recordAdd(task, tasks);
+        return task;
+    }
+
+    private static void apply(TaskList tasks, Storage storage, Change change) throws EddieException {
+        tasks.applyChanges(List.of(change));
+        storage.recordChanges(List.of(change), tasks);
+    }
+
+    private static List<Task> reload(String path) throws EddieException {
+        Storage storage = new Storage(path, true);
+        List<Task> tasks = storage.loadTask();
+        storage.close();
+        return tasks;
+    }
+
+    private static List<String> describe(List<Task> tasks) {
+        List<String> descriptions = new ArrayList<>();
+        for (Task task : tasks) {
+            descriptions.add(task.getId() + " | " + task.toFileFormat());
+        }
+        return descriptions;
+    }
+}
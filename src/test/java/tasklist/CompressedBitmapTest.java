@@ -0,0 +1,94 @@
+package tasklist;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+import java.util.Random;
+
+public class CompressedBitmapTest {
+    @Test
+    public void add_pastArrayLimit_keepsEveryValueOnceChunkTurnsIntoBitmap() {
+        CompressedBitmap bitmap = new CompressedBitmap();
+        for (int value = 0; value < 10_000; value += 2) {
+            bitmap.add(value);
+            bitmap.add(value);
+        }
+
+        assertEquals(5_000, bitmap.cardinality());
+        assertTrue(bitmap.contains(9_998));
+        assertFalse(bitmap.contains(9_999));
+    }
+
+    @Test
+    public void remove_lastValueOfChunk_dropsChunk() {
+        CompressedBitmap bitmap = new CompressedBitmap();
+        bitmap.add(5);
+        bitmap.add(70_000);
+        bitmap.add(200_000);
+
+        bitmap.remove(70_000);
+        bitmap.remove(123);
+
+        assertEquals("5 200000", describe(bitmap));
+        assertEquals(2, bitmap.cardinality());
+    }
+
+    @Test
+    public void setOperations_randomSparseAndDenseSets_matchBitSet() {
+        Random random = new Random(7);
+        for (int round = 0; round < 100; round++) {
+            int range = random.nextBoolean() ? 300_000 : 70_000;
+            double density = random.nextDouble();
+            CompressedBitmap left = new CompressedBitmap();
+            CompressedBitmap right = new CompressedBitmap();
+            BitSet leftBits = new BitSet();
+            BitSet rightBits = new BitSet();
+            int count = random.nextInt(20_000);
+            for (int i = 0; i < count; i++) {
+                int value = (random.nextDouble() < density) ? random.nextInt(range) : random.nextInt(range / 50);
+                left.add(value);
+                leftBits.set(value);
+                int other = random.nextInt(range / (1 + random.nextInt(20)));
+                right.add(other);
+                rightBits.set(other);
+            }
+            for (int i = 0; i < count / 3; i++) {
+                int value = random.nextInt(range / 10 + 1);
+                left.remove(value);
+                leftBits.clear(value);
+            }
+
+            BitSet expected = (BitSet) leftBits.clone();
+            expected.and(rightBits);
+            assertEquals(expected, toBitSet(left.and(right)), "and, round " + round);
+            expected = (BitSet) leftBits.clone();
+            expected.or(rightBits);
+            assertEquals(expected, toBitSet(left.or(right)), "or, round " + round);
+            expected = (BitSet) leftBits.clone();
+            expected.andNot(rightBits);
+            assertEquals(expected, toBitSet(left.andNot(right)), "andNot, round " + round);
+            assertEquals(leftBits, toBitSet(left));
+            assertEquals(leftBits.cardinality(), left.cardinality());
+            for (int i = 0; i < 100; i++) {
+                int value = random.nextInt(range);
+                assertEquals(leftBits.get(value), left.contains(value));
+            }
+        }
+    }
+
+    private static BitSet toBitSet(CompressedBitmap bitmap) {
+        BitSet bits = new BitSet();
+        bitmap.forEach(bits::set);
+        return bits;
+    }
+
+    private static String describe(CompressedBitmap bitmap) {
+        StringBuilder values = new StringBuilder();
+        bitmap.forEach(value -> values.append(values.length() == 0 ? "" : " ").append(value));
+        return values.toString();
+    }
+}
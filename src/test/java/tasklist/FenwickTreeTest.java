@@ -0,0 +1,87 @@
+package tasklist;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public class FenwickTreeTest {
+    @Test
+    public void prefixSumAndSelect_someSlotsEmptied_skipEmptySlots() {
+        FenwickTree tree = new FenwickTree();
+        for (int i = 0; i < 5; i++) {
+            tree.append(1);
+        }
+        tree.add(1, -1);
+        tree.add(3, -1);
+
+        assertEquals(3, tree.prefixSum(5));
+        assertEquals(1, tree.prefixSum(2));
+        assertEquals(0, tree.select(1));
+        assertEquals(2, tree.select(2));
+        assertEquals(4, tree.select(3));
+    }
+
+    @Test
+    public void clear_thenAppend_startsFromNoSlots() {
+        FenwickTree tree = new FenwickTree();
+        tree.append(1);
+        tree.append(1);
+
+        tree.clear();
+        tree.append(0);
+        tree.append(1);
+
+        assertEquals(1, tree.prefixSum(2));
+        assertEquals(1, tree.select(1));
+    }
+
+    @Test
+    public void operations_randomAppendsAndToggles_matchPlainArray() {
+        Random random = new Random(3);
+        FenwickTree tree = new FenwickTree();
+        List<Integer> weights = new ArrayList<>();
+        for (int op = 0; op < 20_000; op++) {
+            if (weights.isEmpty() || random.nextInt(3) == 0) {
+                int weight = random.nextInt(2);
+                tree.append(weight);
+                weights.add(weight);
+            } else {
+                int slot = random.nextInt(weights.size());
+                int delta = 1 - 2 * weights.get(slot);
+                tree.add(slot, delta);
+                weights.set(slot, weights.get(slot) + delta);
+            }
+
+            int count = random.nextInt(weights.size() + 1);
+            assertEquals(sum(weights, count), tree.prefixSum(count), "op " + op);
+            int total = sum(weights, weights.size());
+            if (total > 0) {
+                int rank = 1 + random.nextInt(total);
+                assertEquals(selectPlainly(weights, rank), tree.select(rank), "op " + op);
+            }
+        }
+    }
+
+    private static int sum(List<Integer> weights, int count) {
+        int sum = 0;
+        for (int i = 0; i < count; i++) {
+            sum += weights.get(i);
+        }
+        return sum;
+    }
+
+    private static int selectPlainly(List<Integer> weights, int rank) {
+        int seen = 0;
+        for (int slot = 0; slot < weights.size(); slot++) {
+            seen += weights.get(slot);
+            if (seen == rank) {
+                return slot;
+            }
+        }
+        throw new IllegalArgumentException("rank " + rank);
+    }
+}
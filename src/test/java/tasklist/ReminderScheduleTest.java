@@ -0,0 +1,172 @@
+package tasklist;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import command.EddieException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import task.Deadline;
+import task.Event;
+import task.Recurring;
+import task.Task;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+public class ReminderScheduleTest {
+    private static final LocalDateTime NOW = LocalDateTime.of(2026, 3, 2, 9, 0);
+
+    private SteppedClock clock;
+    private TaskList tasks;
+
+    @BeforeEach
+    public void setUp() {
+        clock = new SteppedClock(NOW);
+        tasks = new TaskList();
+        tasks.enableReminders(clock, List.of(Duration.ofMinutes(15), Duration.ofHours(1)));
+    }
+
+    @Test
+    public void takeDueReminders_eachLeadTime_firesOnceWhenItComes() {
+        tasks.addTask(new Deadline("report", NOW.plusHours(3)));
+
+        clock.setTo(NOW.plusMinutes(119));
+        assertTrue(tasks.takeDueReminders().isEmpty());
+        clock.setTo(NOW.plusHours(2));
+        assertEquals(List.of("report in PT1H"), describe(tasks.takeDueReminders()));
+        clock.setTo(NOW.plusMinutes(165));
+        assertEquals(List.of("report in PT15M"), describe(tasks.takeDueReminders()));
+        clock.setTo(NOW.plusHours(5));
+        assertTrue(tasks.takeDueReminders().isEmpty());
+    }
+
+    @Test
+    public void takeDueReminders_addedWithinShortestLead_firesStraightAway() {
+        tasks.addTask(new Event("call", NOW.plusMinutes(10), NOW.plusMinutes(40)));
+
+        assertEquals(List.of("call in PT10M"), describe(tasks.takeDueReminders()));
+        assertTrue(tasks.takeDueReminders().isEmpty());
+    }
+
+    @Test
+    public void takeDueReminders_taskStartedBeforeAnyoneAsked_isDropped() {
+        tasks.addTask(new Deadline("report", NOW.plusHours(3)));
+
+        clock.setTo(NOW.plusHours(4));
+        assertTrue(tasks.takeDueReminders().isEmpty());
+    }
+
+    @Test
+    public void takeDueReminders_severalTasks_orderedByStart() {
+        tasks.addTask(new Deadline("later", NOW.plusMinutes(50)));
+        tasks.addTask(new Deadline("sooner", NOW.plusMinutes(40)));
+
+        clock.setTo(NOW.plusMinutes(35));
+        assertEquals(List.of("sooner in PT5M", "later in PT15M"), describe(tasks.takeDueReminders()));
+    }
+
+    @Test
+    public void takeDueReminders_doneOrDeletedTask_isCancelled() throws EddieException {
+        Task done = new Deadline("done", NOW.plusHours(3));
+        Task deleted = new Deadline("deleted", NOW.plusHours(3));
+        tasks.addTask(done);
+        tasks.addTask(deleted);
+
+        tasks.markTaskById(done.getId(), true);
+        tasks.removeTaskById(deleted.getId());
+
+        clock.setTo(NOW.plusHours(2));
+        assertTrue(tasks.takeDueReminders().isEmpty());
+    }
+
+    @Test
+    public void takeDueReminders_taskUnmarkedAgain_isRescheduled() throws EddieException {
+        Task task = new Deadline("report", NOW.plusHours(3));
+        tasks.addTask(task);
+        tasks.markTaskById(task.getId(), true);
+
+        tasks.markTaskById(task.getId(), false);
+
+        clock.setTo(NOW.plusHours(2));
+        assertEquals(List.of("report in PT1H"), describe(tasks.takeDueReminders()));
+    }
+
+    @Test
+    public void takeDueReminders_recurringTask_movesOnToEachNextOccurrence() throws EddieException {
+        Recurring standup = new Recurring("standup", NOW.plusDays(1), NOW.plusDays(1),
+                1, ChronoUnit.DAYS, LocalDate.of(2026, 3, 6));
+        tasks.addTask(standup);
+
+        clock.setTo(NOW.plusDays(1).minusMinutes(15));
+        assertEquals(List.of("standup in PT15M"), describe(tasks.takeDueReminders()));
+
+        tasks.markOccurrenceById(standup.getId(), 1, true);
+
+        List<String> reminded = new ArrayList<>();
+        for (int day = 1; day <= 5; day++) {
+            clock.setTo(NOW.plusDays(day).minusMinutes(15));
+            for (Reminder reminder : tasks.takeDueReminders()) {
+                reminded.add(reminder.getTask().getStart().toLocalDate().toString());
+            }
+        }
+        assertEquals(List.of("2026-03-05", "2026-03-06"), reminded);
+    }
+
+    @Test
+    public void enableReminders_tasksAlreadyInList_areScheduled() {
+        TaskList loaded = new TaskList();
+        loaded.addTask(new Deadline("report", NOW.plusHours(3)));
+
+        loaded.enableReminders(clock, List.of(Duration.ofHours(1)));
+
+        clock.setTo(NOW.plusHours(2));
+        assertEquals(List.of("report in PT1H"), describe(loaded.takeDueReminders()));
+    }
+
+    private static List<String> describe(List<Reminder> reminders) {
+        List<String> descriptions = new ArrayList<>();
+        for (Reminder reminder : reminders) {
+            descriptions.add(reminder.getTask().getDescription() + " in " + reminder.getTimeLeft());
+        }
+        return descriptions;
+    }
+
+    /**
+     * A clock that only moves when told to.
+     */
+    private static final class SteppedClock extends Clock {
+        private Instant now;
+
+        SteppedClock(LocalDateTime now) {
+            setTo(now);
+        }
+
+        void setTo(LocalDateTime now) {
+            this.now = now.toInstant(ZoneOffset.UTC);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package tasklist;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+public class TimingWheelTest {
+    private static final long START = 29_000_000L;
+
+    @Test
+    public void advanceTo_timerOnFinestLevel_firesAtItsMinute() {
+        TimingWheel wheel = new TimingWheel(START);
+        wheel.add(1, START + 10, 0, -1);
+
+        assertTrue(wheel.advanceTo(START + 9).isEmpty());
+        assertEquals(List.of("1@" + (START + 10)), describe(wheel.advanceTo(START + 10)));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    public void advanceTo_timersOnCoarserLevels_cascadeDownAndFireOnTime() {
+        TimingWheel wheel = new TimingWheel(START);
+        long[] delays = {63, 64, 65, 4095, 4096, 4097, 262_145, 16_777_217, 1_073_741_825};
+        for (int i = 0; i < delays.length; i++) {
+            wheel.add(i, START + delays[i], 0, -1);
+        }
+
+        for (int i = 0; i < delays.length; i++) {
+            assertTrue(wheel.advanceTo(START + delays[i] - 1).isEmpty(), "early at delay " + delays[i]);
+            assertEquals(List.of(i + "@" + (START + delays[i])), describe(wheel.advanceTo(START + delays[i])));
+        }
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    public void advanceTo_timerBeyondLongestDelay_firesOnlyAtItsMinute() {
+        TimingWheel wheel = new TimingWheel(START);
+        long minute = START + (1L << 40);
+        wheel.add(7, minute, 0, -1);
+
+        assertTrue(wheel.advanceTo(START + (1L << 36)).isEmpty());
+        assertTrue(wheel.advanceTo(minute - 1).isEmpty());
+        assertEquals(List.of("7@" + minute), describe(wheel.advanceTo(minute)));
+    }
+
+    @Test
+    public void advanceTo_timerAlreadyPassed_firesOnNextAdvance() {
+        TimingWheel wheel = new TimingWheel(START);
+        wheel.advanceTo(START + 100);
+        wheel.add(3, START + 50, 0, -1);
+
+        assertEquals(List.of("3@" + (START + 50)), describe(wheel.advanceTo(START + 100)));
+    }
+
+    @Test
+    public void cancel_taskWithTimersOnSeveralLevels_removesEveryOne() {
+        TimingWheel wheel = new TimingWheel(START);
+        wheel.add(1, START + 5, 0, -1);
+        wheel.add(1, START + 5_000, 1, -1);
+        wheel.add(1, START + 5_000_000, 2, -1);
+        wheel.add(2, START + 5_000, 0, -1);
+
+        wheel.cancel(1);
+
+        assertEquals(1, wheel.size());
+        assertEquals(List.of("2@" + (START + 5_000)), describe(wheel.advanceTo(START + 10_000_000)));
+    }
+
+    @Test
+    public void cancel_afterSomeTimersFired_removesTheRest() {
+        TimingWheel wheel = new TimingWheel(START);
+        wheel.add(1, START + 10, 0, -1);
+        wheel.add(1, START + 20, 1, -1);
+        wheel.add(1, START + 30, 2, -1);
+
+        assertEquals(List.of("1@" + (START + 10), "1@" + (START + 20)), describe(wheel.advanceTo(START + 25)));
+        wheel.cancel(1);
+
+        assertEquals(0, wheel.size());
+        assertTrue(wheel.advanceTo(START + 100).isEmpty());
+    }
+
+    @Test
+    public void advanceTo_randomOperations_matchesSortedModel() {
+        Random random = new Random(11);
+        long[] spans = {3, 70, 5_000, 300_000, 20_000_000, 3_000_000_000L};
+        long[] jumps = {0, 1, 5, 63, 64, 65, 4_096, 100_000, 2_000_000};
+        for (int round = 0; round < 20; round++) {
+            long next = START + random.nextInt(1 << 20);
+            TimingWheel wheel = new TimingWheel(next);
+            Map<Long, List<Long>> model = new HashMap<>();
+            for (int op = 0; op < 2000; op++) {
+                int kind = random.nextInt(10);
+                long id = random.nextInt(300);
+                if (kind < 5) {
+                    long span = spans[random.nextInt(spans.length)];
+                    long minute = next + (long) ((random.nextDouble() * 1.1 - 0.1) * span);
+                    wheel.add(id, minute, 0, -1);
+                    model.computeIfAbsent(id, key -> new ArrayList<>()).add(minute);
+                } else if (kind < 7) {
+                    wheel.cancel(id);
+                    model.remove(id);
+                } else {
+                    long to = next - 1 + jumps[random.nextInt(jumps.length)];
+                    List<String> fired = describe(wheel.advanceTo(to));
+                    Collections.sort(fired);
+                    assertEquals(takeDue(model, to), fired, "round " + round + ", op " + op);
+                    next = Math.max(next, to + 1);
+                    assertEquals(model.values().stream().mapToInt(List::size).sum(), wheel.size());
+                }
+            }
+        }
+    }
+
+    private static List<String> takeDue(Map<Long, List<Long>> model, long to) {
+        List<String> due = new ArrayList<>();
+        for (Iterator<Map.Entry<Long, List<Long>>> entries = model.entrySet().iterator(); entries.hasNext(); ) {
+            Map.Entry<Long, List<Long>> entry = entries.next();
+            for (Iterator<Long> minutes = entry.getValue().iterator(); minutes.hasNext(); ) {
+                long minute = minutes.next();
+                if (minute <= to) {
+                    due.add(entry.getKey() + "@" + minute);
+                    minutes.remove();
+                }
+            }
+            if (entry.getValue().isEmpty()) {
+                entries.remove();
+            }
+        }
+        Collections.sort(due);
+        return due;
+    }
+
+    private static List<String> describe(List<TimingWheel.Timer> timers) {
+        List<String> descriptions = new ArrayList<>();
+        for (TimingWheel.Timer timer : timers) {
+            descriptions.add(timer.getTaskId() + "@" + timer.getMinute());
+        }
+        return descriptions;
+    }
+}